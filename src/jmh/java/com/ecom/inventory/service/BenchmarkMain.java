@@ -0,0 +1,37 @@
+package com.ecom.inventory.service;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once per thread count in {@code jmh.threads} and writes every
+ * run into a single JSON file at {@code jmh.result}. Any other arguments are passed to JMH.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String result = System.getProperty("jmh.result", "target/jmh-result.json");
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : System.getProperty("jmh.threads", "1,4,16").split(",")) {
+            results.addAll(new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build()).run());
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, result).writeOut(results);
+        System.out.println("Wrote " + results.size() + " results to " + result);
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.InventoryServiceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end HTTP throughput with platform request threads against the {@code virtual}
+ * profile. Every JMH thread is one closed-loop client, so run it with more threads than
+ * Tomcat's pool (200) to see where the platform mode stops scaling, e.g.
+ * {@code -Djmh.include=HttpLoadBenchmark -Djmh.threads=64,256,1024}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HttpLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    String threading;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .profiles("virtual".equals(threading) ? new String[]{"virtual"} : new String[0])
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--eureka.client.enabled=false",
+                        "--management.tracing.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--inventory.holds.default-ttl=1s",
+                        "--inventory.holds.tick-ms=100");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/inventory";
+        client = HttpClient.newBuilder()
+                .executor(Runnable::run)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        client.close();
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+
+        long productId() {
+            return 1 + random.nextInt(50);
+        }
+    }
+
+    @Benchmark
+    public int readPage(Client client) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?after=" + client.productId() + "&size=20"))
+                .GET().build());
+    }
+
+    @Benchmark
+    public int reserve(Client client) throws IOException, InterruptedException {
+        String body = "{\"productId\":" + client.productId() + ",\"quantity\":1}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/reserve"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,174 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.InventoryServiceApplication;
+import com.ecom.inventory.dto.InventoryPage;
+import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.dto.StockReservationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Hot paths of {@link InventoryService} against the embedded H2 database, with productIds
+ * drawn either uniformly or from a Zipf distribution over {@code products} rows.
+ * <p>
+ * Every product starts with a large quantity and a large untracked reservation, so reserve
+ * and release never run dry, and one product in ten sits below its reorder level so the
+ * low-stock index has pages to serve. Holds are created with a one second TTL and expire
+ * while the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InventoryServiceBenchmark {
+
+    private static final long FIRST_PRODUCT_ID = 1_000_000L;
+    private static final int QUANTITY = 1_000_000_000;
+    private static final int RESERVED = 500_000_000;
+
+    @Param({"10000"})
+    int products;
+
+    @Param({"uniform", "zipf"})
+    String distribution;
+
+    @Param({"0.99"})
+    double zipfExponent;
+
+    ConfigurableApplicationContext context;
+    InventoryService inventoryService;
+    StockLedger stockLedger;
+    double[] zipfCdf;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--eureka.client.enabled=false",
+                        "--management.tracing.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--inventory.holds.default-ttl=1s",
+                        "--inventory.holds.tick-ms=100");
+        inventoryService = context.getBean(InventoryService.class);
+        stockLedger = context.getBean(StockLedger.class);
+        seed(context.getBean(JdbcTemplate.class));
+        stockLedger.counters(LongStream.range(0, products).map(i -> FIRST_PRODUCT_ID + i).boxed().toList());
+        zipfCdf = zipfCdf(products, zipfExponent);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            int reorderLevel = i % 10 == 0 ? QUANTITY : 10;
+            rows.add(new Object[]{FIRST_PRODUCT_ID + i, QUANTITY, RESERVED, reorderLevel, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, "
+                + "last_updated) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    /**
+     * Per-thread productId source. Ids are drawn up front into a ring so the sampling cost
+     * stays out of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private static final int RING_SIZE = 1 << 16;
+
+        final long[] ring = new long[RING_SIZE];
+        int next;
+
+        @Setup(Level.Trial)
+        public void draw(InventoryServiceBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            boolean zipf = "zipf".equals(benchmark.distribution);
+            for (int i = 0; i < RING_SIZE; i++) {
+                int index;
+                if (zipf) {
+                    int found = Arrays.binarySearch(benchmark.zipfCdf, random.nextDouble());
+                    index = Math.min(found >= 0 ? found : -found - 1, benchmark.products - 1);
+                } else {
+                    index = random.nextInt(benchmark.products);
+                }
+                ring[i] = FIRST_PRODUCT_ID + index;
+            }
+        }
+
+        long next() {
+            return ring[next++ & (RING_SIZE - 1)];
+        }
+    }
+
+    @Benchmark
+    public StockReservationResponse reserveStock(Keys keys) {
+        return inventoryService.reserveStock(new StockReservationRequest(keys.next(), 1));
+    }
+
+    @Benchmark
+    public StockReservationResponse releaseStock(Keys keys) {
+        return inventoryService.releaseStock(new StockReservationRequest(keys.next(), 1));
+    }
+
+    @Benchmark
+    public InventoryResponse getInventoryByProductId(Keys keys) {
+        return inventoryService.getInventoryByProductId(keys.next());
+    }
+
+    @Benchmark
+    public InventoryPage checkLowStock(Keys keys) {
+        return inventoryService.checkLowStock(keys.next(), 50);
+    }
+
+    @Benchmark
+    public InventoryResponse mapToResponse(Keys keys) {
+        return inventoryService.mapToResponse(stockLedger.counter(keys.next()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.InventoryServiceApplication;
+import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.exception.ErrorBodies;
+import com.ecom.inventory.exception.InsufficientStockException;
+import com.ecom.inventory.exception.RejectionCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * A sell-out: every product is fully reserved, so every reservation is turned down. Compares
+ * a rejection returned as a {@link ReservationResult} and rendered from
+ * {@link ErrorBodies}, the same rejection thrown and caught, and a cached read of the same
+ * products. {@code legacyRejection} rebuilds what a rejection used to cost on top of the
+ * counter check (a message, a stack trace and the handler's map) for reference.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SellOutBenchmark {
+
+    private static final long FIRST_PRODUCT_ID = 1_000_000L;
+    private static final int QUANTITY = 100;
+
+    @Param({"1000"})
+    int products;
+
+    ConfigurableApplicationContext context;
+    InventoryService inventoryService;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:sellout;DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--eureka.client.enabled=false",
+                        "--management.tracing.enabled=false",
+                        "--logging.level.root=WARN");
+        inventoryService = context.getBean(InventoryService.class);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            rows.add(new Object[]{FIRST_PRODUCT_ID + i, QUANTITY, QUANTITY, 10, now});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO inventory (product_id, quantity, "
+                + "reserved_quantity, reorder_level, last_updated) VALUES (?, ?, ?, ?, ?)", rows);
+        context.getBean(StockLedger.class)
+                .counters(LongStream.range(0, products).map(i -> FIRST_PRODUCT_ID + i).boxed().toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Keys {
+
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+
+        long next(SellOutBenchmark benchmark) {
+            return FIRST_PRODUCT_ID + random.nextInt(benchmark.products);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<?> rejectByResult(Keys keys) {
+        ReservationResult result = inventoryService.tryReserveStock(new StockReservationRequest(keys.next(this), 1));
+        return ErrorBodies.rejection(result.rejection(), result.productId(), result.available(), result.requested());
+    }
+
+    @Benchmark
+    public Object rejectByException(Keys keys) {
+        try {
+            return inventoryService.reserveStock(new StockReservationRequest(keys.next(this), 1));
+        } catch (InsufficientStockException ex) {
+            return ErrorBodies.rejection(RejectionCode.INSUFFICIENT_STOCK,
+                    ex.getProductId(), ex.getAvailable(), ex.getRequested());
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyRejection(Keys keys) {
+        ReservationResult result = inventoryService.tryReserveStock(new StockReservationRequest(keys.next(this), 1));
+        RuntimeException ex = new RuntimeException("Insufficient stock for product ID: " + result.productId()
+                + ". Available: " + result.available() + ", Requested: " + result.requested());
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", 400);
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        return error;
+    }
+
+    @Benchmark
+    public InventoryResponse getInventoryByProductId(Keys keys) {
+        return inventoryService.getInventoryByProductId(keys.next(this));
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.InventoryServiceApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP throughput and latency with tracing off, with every trace exported over OTLP, and with
+ * tail sampling in front of the exporter. Spans go to an in-process OTLP endpoint that reads
+ * and discards them, so the numbers include span export but no collector; the bytes it
+ * received are printed when each trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TracingBenchmark {
+
+    @Param({"off", "all", "tail"})
+    String sampling;
+
+    ConfigurableApplicationContext context;
+    HttpServer collector;
+    AtomicLong exportedBytes = new AtomicLong();
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/v1/traces", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                exportedBytes.addAndGet(body.transferTo(OutputStream.nullOutputStream()));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--eureka.client.enabled=false",
+                        "--management.tracing.enabled=" + !"off".equals(sampling),
+                        "--management.otlp.tracing.endpoint=http://localhost:"
+                                + collector.getAddress().getPort() + "/v1/traces",
+                        "--inventory.tracing.tail-sampling.enabled=" + "tail".equals(sampling),
+                        "--logging.level.root=WARN",
+                        "--inventory.holds.default-ttl=1s",
+                        "--inventory.holds.tick-ms=100");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/inventory";
+        client = HttpClient.newBuilder()
+                .executor(Runnable::run)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        client.close();
+        context.close();
+        collector.stop(0);
+        System.out.printf("%nsampling=%s: %,d bytes of spans exported%n", sampling, exportedBytes.get());
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+
+        long productId() {
+            return 1 + random.nextInt(50);
+        }
+    }
+
+    @Benchmark
+    public int get(Client client) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + client.productId())).GET().build());
+    }
+
+    @Benchmark
+    public int reserve(Client client) throws IOException, InterruptedException {
+        String body = "{\"productId\":" + client.productId() + ",\"quantity\":1}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/reserve"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
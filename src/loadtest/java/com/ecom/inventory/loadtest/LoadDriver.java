@@ -0,0 +1,276 @@
+package com.ecom.inventory.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Drives the REST API with an open workload: requests are started on a fixed schedule,
+ * whether or not earlier ones have answered, the way independent shoppers would. Each
+ * latency is measured from the moment the schedule said the request should start, so time a
+ * request spent waiting behind a stalled server or an exhausted in-flight limit is counted
+ * rather than silently omitted (coordinated omission). The service time from the actual
+ * send is recorded next to it for comparison.
+ * <p>
+ * Every reservation the service grants is remembered; releases give back granted
+ * reservations, oldest first, so the generator always knows how many units it holds of each
+ * product and can check afterwards that the service never granted more than it had.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    enum Operation {
+        GET, RESERVE, RELEASE, LOW_STOCK;
+
+        String label() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private static final int MAX_QUANTITY = 3;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final SkewedProducts products;
+    private final Operation[] mix;
+    private final int stock;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final SplittableRandom random;
+    private final HttpClient client;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicIntegerArray held;
+    private final Queue<long[]> granted = new ConcurrentLinkedQueue<>();
+
+    LoadDriver(String baseUrl, int productCount, SkewedProducts products, Map<Operation, Integer> weights,
+               int stock, int maxInFlight, long seed) {
+        this.baseUrl = baseUrl;
+        this.products = products;
+        this.mix = weights.entrySet().stream()
+                .flatMap(weight -> Stream.generate(weight::getKey).limit(weight.getValue()))
+                .toArray(Operation[]::new);
+        this.stock = stock;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.random = new SplittableRandom(seed);
+        this.held = new AtomicIntegerArray(productCount + 1);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Sets every product to {@code stock} units through the bulk ingest endpoint.
+     */
+    void seed(int productCount) throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("productId,quantity,reorderLevel\n");
+        for (int productId = 1; productId <= productCount; productId++) {
+            csv.append(productId).append(',').append(stock).append(",10\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/ingest"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    /**
+     * Issues {@code rate} requests per second for {@code duration} and waits for the last one.
+     */
+    LoadReport.Step run(double rate, Duration duration, boolean poisson) {
+        Recording recording = new Recording();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double offset = 0;
+        long issued = 0;
+        for (long intended = start; intended < end; intended = start + (long) offset) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            Operation operation = mix[random.nextInt(mix.length)];
+            long productId = products.next(random);
+            int quantity = 1 + random.nextInt(MAX_QUANTITY);
+            // waiting here delays the send, not the intended start, so the wait is still measured
+            inFlight.acquireUninterruptibly();
+            long scheduled = intended;
+            executor.execute(() -> {
+                try {
+                    call(operation, productId, quantity, scheduled, recording);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            issued++;
+            offset += poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+        long elapsed = System.nanoTime() - start;
+        inFlight.release(maxInFlight);
+        return recording.step(rate, issued, elapsed);
+    }
+
+    private void call(Operation operation, long productId, int quantity, long scheduled, Recording recording) {
+        long[] release = null;
+        HttpRequest request;
+        if (operation == Operation.RELEASE && (release = granted.poll()) == null) {
+            operation = Operation.GET;
+        }
+        switch (operation) {
+            case GET -> request = get("/" + productId);
+            case RESERVE -> request = post("/reserve", productId, quantity);
+            case RELEASE -> request = post("/release", release[0], (int) release[1]);
+            default -> request = get("/low-stock?size=20");
+        }
+        long sent = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException ex) {
+            status = -1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            status = -1;
+        }
+        long done = System.nanoTime();
+        if (operation == Operation.RESERVE && status == 200) {
+            held.addAndGet((int) productId, quantity);
+            granted.add(new long[]{productId, quantity});
+        } else if (operation == Operation.RELEASE) {
+            if (status == 200) {
+                held.addAndGet((int) release[0], (int) -release[1]);
+            } else {
+                granted.add(release);
+            }
+        }
+        // an insufficient-stock answer is a correct outcome under load, not a failure
+        boolean rejected = operation == Operation.RESERVE && status == 400;
+        recording.record(operation, scheduled, sent, done, status == 200 || rejected, rejected);
+    }
+
+    /**
+     * Compares the units the generator holds of every product with the service's view of it.
+     * Call it once no requests are in flight.
+     */
+    LoadReport.Correctness check() throws IOException, InterruptedException {
+        long checked = 0;
+        long oversoldUnits = 0;
+        long oversoldProducts = 0;
+        long mismatched = 0;
+        for (int productId = 1; productId < held.length(); productId++) {
+            int units = held.get(productId);
+            oversoldUnits += Math.max(0, units - stock);
+            HttpResponse<String> response = client.send(get("/" + productId), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                continue;
+            }
+            JsonNode inventory = objectMapper.readTree(response.body());
+            int reserved = inventory.get("reservedQuantity").asInt();
+            checked++;
+            if (reserved > inventory.get("quantity").asInt()) {
+                oversoldProducts++;
+            }
+            if (reserved != units) {
+                mismatched++;
+            }
+        }
+        return new LoadReport.Correctness(checked, oversoldUnits, oversoldProducts, mismatched);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, long productId, int quantity) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"productId\":" + productId + ",\"quantity\":" + quantity + "}"))
+                .build();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    /**
+     * Latencies and outcomes of one step, in microseconds.
+     */
+    private static final class Recording {
+
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final Histogram serviceTime = new ConcurrentHistogram(3);
+        private final Map<Operation, Histogram> latencyByOperation = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder[]> outcomes = new EnumMap<>(Operation.class);
+
+        Recording() {
+            for (Operation operation : Operation.values()) {
+                latencyByOperation.put(operation, new ConcurrentHistogram(3));
+                outcomes.put(operation, new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()});
+            }
+        }
+
+        void record(Operation operation, long scheduled, long sent, long done, boolean ok, boolean rejected) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(done - scheduled);
+            latency.recordValue(micros);
+            latencyByOperation.get(operation).recordValue(micros);
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+            LongAdder[] counts = outcomes.get(operation);
+            counts[0].increment();
+            if (!ok) {
+                counts[1].increment();
+            }
+            if (rejected) {
+                counts[2].increment();
+            }
+        }
+
+        LoadReport.Step step(double rate, long issued, long elapsedNanos) {
+            Map<String, LoadReport.Operation> operations = new LinkedHashMap<>();
+            long errors = 0;
+            long rejected = 0;
+            for (Operation operation : Operation.values()) {
+                LongAdder[] counts = outcomes.get(operation);
+                if (counts[0].sum() == 0) {
+                    continue;
+                }
+                errors += counts[1].sum();
+                rejected += counts[2].sum();
+                operations.put(operation.label(), new LoadReport.Operation(counts[0].sum(), counts[1].sum(),
+                        counts[2].sum(), LoadReport.Latency.of(latencyByOperation.get(operation))));
+            }
+            double achieved = latency.getTotalCount() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+            return new LoadReport.Step(rate, achieved, issued, errors, rejected, LoadReport.Latency.of(latency),
+                    LoadReport.Latency.of(serviceTime), operations);
+        }
+    }
+}
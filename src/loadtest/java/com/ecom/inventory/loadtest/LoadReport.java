@@ -0,0 +1,61 @@
+package com.ecom.inventory.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a load test, written as JSON so runs can be compared, and printed as a
+ * table. Latencies are in milliseconds; {@code latency} is measured from the moment the
+ * schedule said a request should start, {@code serviceTime} from the moment it was sent.
+ */
+record LoadReport(Map<String, Object> settings, double hotShare, List<Step> steps, Correctness correctness) {
+
+    record Step(double targetRate, double achievedRate, long issued, long errors, long rejected,
+                Latency latency, Latency serviceTime, Map<String, Operation> operations) {
+    }
+
+    record Operation(long count, long errors, long rejected, Latency latency) {
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram micros) {
+            return new Latency(millis(micros, 50), millis(micros, 90), millis(micros, 99), millis(micros, 99.9),
+                    micros.getMaxValue() / 1000.0);
+        }
+
+        private static double millis(Histogram micros, double percentile) {
+            return micros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /**
+     * @param oversoldUnits      units the service confirmed as reserved beyond a product's stock
+     * @param oversoldProducts   products whose reserved quantity the service reports above their
+     *                           stock
+     * @param mismatchedProducts products whose reserved quantity differs from the reservations
+     *                           the load generator was granted and has not released
+     */
+    record Correctness(long checkedProducts, long oversoldUnits, long oversoldProducts, long mismatchedProducts) {
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%10s %10s %9s %7s %9s %9s %9s %9s %9s %12s%n", "target/s", "achieved/s", "issued",
+                "errors", "rejected", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+        for (Step step : steps) {
+            out.printf("%10.0f %10.1f %9d %7d %9d %9.2f %9.2f %9.2f %9.2f %12.2f%n", step.targetRate(),
+                    step.achievedRate(), step.issued(), step.errors(), step.rejected(), step.latency().p50(),
+                    step.latency().p99(), step.latency().p999(), step.latency().max(), step.serviceTime().p99());
+            step.operations().forEach((name, operation) -> out.printf("%10s %10s %9d %7d %9d %9.2f %9.2f %9.2f %9.2f%n",
+                    "", name, operation.count(), operation.errors(), operation.rejected(), operation.latency().p50(),
+                    operation.latency().p99(), operation.latency().p999(), operation.latency().max()));
+        }
+        out.printf("%nHot share: %.1f%% of requests went to the hottest 1%% of products%n", hotShare * 100);
+        out.printf("Oversell check over %d products: %d units oversold, %d products over stock, %d mismatched%n",
+                correctness.checkedProducts(), correctness.oversoldUnits(), correctness.oversoldProducts(),
+                correctness.mismatchedProducts());
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecom.inventory.loadtest;
+
+import com.ecom.inventory.InventoryServiceApplication;
+import com.ecom.inventory.loadtest.LoadDriver.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Boots the service on a random port with Eureka and tracing disabled and the embedded H2
+ * database, seeds {@code loadtest.products} products with {@code loadtest.stock} units each,
+ * then runs one {@link LoadDriver} step per rate in {@code loadtest.rates} after a warm-up at
+ * the first rate. With {@code loadtest.target} set, an already running instance is driven
+ * instead. The report is printed and written as JSON to {@code loadtest.result}; any
+ * arguments are passed on to the application, e.g. {@code --spring.profiles.active=virtual}.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Double> rates = Arrays.stream(property("loadtest.rates", "200,400,800").split(","))
+                .map(rate -> Double.parseDouble(rate.trim()))
+                .toList();
+        Duration duration = DurationStyle.detectAndParse(property("loadtest.duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(property("loadtest.warmup", "10s"));
+        int products = Integer.parseInt(property("loadtest.products", "10000"));
+        double skew = Double.parseDouble(property("loadtest.skew", "1.0"));
+        int stock = Integer.parseInt(property("loadtest.stock", "100"));
+        String mixSpec = property("loadtest.mix", "get:60,reserve:25,release:10,low-stock:5");
+        Map<Operation, Integer> mix = mix(mixSpec);
+        boolean poisson = !"uniform".equals(property("loadtest.arrivals", "poisson"));
+        int maxInFlight = Integer.parseInt(property("loadtest.max-in-flight", "1000"));
+        long seed = Long.parseLong(property("loadtest.seed", "42"));
+        String result = property("loadtest.result", "target/loadtest-result.json");
+        String target = property("loadtest.target", "");
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rates", rates);
+        settings.put("duration", duration.toString());
+        settings.put("warmup", warmup.toString());
+        settings.put("products", products);
+        settings.put("skew", skew);
+        settings.put("stock", stock);
+        settings.put("mix", mixSpec);
+        settings.put("arrivals", poisson ? "poisson" : "uniform");
+        settings.put("maxInFlight", maxInFlight);
+        settings.put("seed", seed);
+        settings.put("applicationArgs", List.of(args));
+
+        ConfigurableApplicationContext context = target.isEmpty() ? start(args) : null;
+        try {
+            String baseUrl = context != null
+                    ? "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort()
+                    + "/api/inventory"
+                    : target;
+            SkewedProducts skewed = new SkewedProducts(products, skew, seed);
+            try (LoadDriver driver = new LoadDriver(baseUrl, products, skewed, mix, stock, maxInFlight, seed)) {
+                driver.seed(products);
+                if (!warmup.isZero()) {
+                    System.out.printf("Warming up at %.0f requests/s for %s%n", rates.get(0), warmup);
+                    driver.run(rates.get(0), warmup, poisson);
+                }
+                List<LoadReport.Step> steps = new ArrayList<>();
+                for (double rate : rates) {
+                    System.out.printf("Running %.0f requests/s for %s%n", rate, duration);
+                    steps.add(driver.run(rate, duration, poisson));
+                }
+                LoadReport report = new LoadReport(settings, skewed.hotShare(0.01), steps, driver.check());
+                report.print(System.out);
+                File file = new File(result);
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+                System.out.println("Wrote report to " + result);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String[] args) {
+        String[] defaults = {
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--eureka.client.enabled=false",
+                "--management.tracing.enabled=false",
+                "--logging.level.root=WARN",
+                "--inventory.ledger.snapshot.enabled=false",
+                // every granted reservation has to outlive the run for the oversell check
+                "--inventory.holds.default-ttl=24h"
+        };
+        return new SpringApplicationBuilder(InventoryServiceApplication.class)
+                .run(Stream.concat(Arrays.stream(defaults), Arrays.stream(args)).toArray(String[]::new));
+    }
+
+    private static Map<Operation, Integer> mix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase().replace('-', '_'));
+            weights.put(operation, Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecom.inventory.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws product ids from a Zipf distribution over {@code 1..products}: the product of rank
+ * {@code k} is drawn with a weight of {@code 1 / k^exponent}, so with an exponent around 1 a
+ * handful of hot SKUs take most of the traffic, and an exponent of 0 is uniform. Ranks are
+ * shuffled over the id space with the run's seed, so the hot products are not simply the
+ * lowest ids.
+ */
+final class SkewedProducts {
+
+    private final double[] cumulative;
+    private final long[] productIds;
+
+    SkewedProducts(int products, double exponent, long seed) {
+        cumulative = new double[products];
+        double total = 0;
+        for (int rank = 0; rank < products; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < products; rank++) {
+            cumulative[rank] /= total;
+        }
+        productIds = new long[products];
+        for (int i = 0; i < products; i++) {
+            productIds[i] = i + 1;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = products - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = productIds[i];
+            productIds[i] = productIds[j];
+            productIds[j] = swap;
+        }
+    }
+
+    long next(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return productIds[Math.min(rank, productIds.length - 1)];
+    }
+
+    /**
+     * @return the share of draws that land on the {@code fraction} hottest products
+     */
+    double hotShare(double fraction) {
+        int top = Math.max(1, (int) Math.round(cumulative.length * fraction));
+        return cumulative[top - 1];
+    }
+}
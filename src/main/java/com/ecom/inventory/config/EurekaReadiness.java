@@ -0,0 +1,34 @@
+package com.ecom.inventory.config;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mirrors the application's readiness into its Eureka status. The instance registers as
+ * {@code STARTING} ({@code eureka.instance.initial-status}) and only becomes {@code UP}, and
+ * so visible to clients and to the shard ring, once startup work such as the warm-up has
+ * finished; a readiness change back to refusing traffic takes it out of rotation again.
+ */
+@Component
+public class EurekaReadiness {
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    public EurekaReadiness(ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+        this.applicationInfoManager = applicationInfoManager;
+    }
+
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        ApplicationInfoManager manager = applicationInfoManager.getIfAvailable();
+        if (manager != null) {
+            manager.setInstanceStatus(event.getState() == ReadinessState.ACCEPTING_TRAFFIC
+                    ? InstanceStatus.UP : InstanceStatus.OUT_OF_SERVICE);
+        }
+    }
+}
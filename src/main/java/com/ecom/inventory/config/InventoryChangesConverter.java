@@ -0,0 +1,130 @@
+package com.ecom.inventory.config;
+
+import com.ecom.inventory.dto.InventoryChange;
+import com.ecom.inventory.dto.InventoryChangePage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of an {@link InventoryChangePage}, selected with
+ * {@code Accept: application/x-inventory-changes}. All integers are LEB128 varints; signed
+ * ones are zigzag-encoded first. The layout is
+ * <pre>
+ * format (1 byte, currently 1) | cursor | hasMore (1 byte) | count
+ * count x { version - previous version | productId - previous productId (signed)
+ *           | quantity (signed) | reservedQuantity (signed) | reorderLevel (signed) }
+ * </pre>
+ * with both "previous" values starting at zero. Changes are in version order, so a typical
+ * change takes six to ten bytes against well over a hundred as JSON.
+ */
+@Component
+public class InventoryChangesConverter extends AbstractHttpMessageConverter<InventoryChangePage> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-inventory-changes";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int FORMAT = 1;
+
+    public InventoryChangesConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return InventoryChangePage.class.equals(clazz);
+    }
+
+    @Override
+    protected InventoryChangePage readInternal(Class<? extends InventoryChangePage> clazz, HttpInputMessage input)
+            throws IOException {
+        return decode(input.getBody(), input);
+    }
+
+    @Override
+    protected void writeInternal(InventoryChangePage page, HttpOutputMessage output) throws IOException {
+        output.getBody().write(encode(page));
+    }
+
+    private static byte[] encode(InventoryChangePage page) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + page.changes().size() * 10);
+        out.write(FORMAT);
+        writeVarint(out, page.cursor());
+        out.write(page.hasMore() ? 1 : 0);
+        writeVarint(out, page.changes().size());
+        long previousVersion = 0;
+        long previousProductId = 0;
+        for (InventoryChange change : page.changes()) {
+            writeVarint(out, change.version() - previousVersion);
+            writeVarint(out, zigzag(change.productId() - previousProductId));
+            writeVarint(out, zigzag(change.quantity()));
+            writeVarint(out, zigzag(change.reservedQuantity()));
+            writeVarint(out, zigzag(change.reorderLevel()));
+            previousVersion = change.version();
+            previousProductId = change.productId();
+        }
+        return out.toByteArray();
+    }
+
+    private static InventoryChangePage decode(InputStream in, HttpInputMessage input) throws IOException {
+        int format = in.read();
+        if (format != FORMAT) {
+            throw new HttpMessageNotReadableException("Unsupported change page format: " + format, input);
+        }
+        long cursor = readVarint(in, input);
+        boolean hasMore = in.read() == 1;
+        int count = (int) readVarint(in, input);
+        List<InventoryChange> changes = new ArrayList<>(count);
+        long version = 0;
+        long productId = 0;
+        for (int i = 0; i < count; i++) {
+            version += readVarint(in, input);
+            productId += unzigzag(readVarint(in, input));
+            int quantity = (int) unzigzag(readVarint(in, input));
+            int reserved = (int) unzigzag(readVarint(in, input));
+            int reorderLevel = (int) unzigzag(readVarint(in, input));
+            changes.add(new InventoryChange(productId, version, quantity, reserved, quantity - reserved, reorderLevel));
+        }
+        return new InventoryChangePage(changes, cursor, hasMore);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in, HttpInputMessage input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new HttpMessageNotReadableException("Truncated change page", input);
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new HttpMessageNotReadableException("Malformed varint in change page", input);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
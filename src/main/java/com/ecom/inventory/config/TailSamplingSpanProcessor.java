@@ -0,0 +1,268 @@
+package com.ecom.inventory.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether to export a trace once its local root span has ended, holding the trace's
+ * other spans until then. A trace is always kept when one of its spans failed or answered
+ * with a client or server error, or when the root took at least the latency threshold. The
+ * rest are kept at a rate that is re-estimated every second so that, together with the
+ * traces that must be kept, about {@code spansPerSecond} spans reach the exporter.
+ * <p>
+ * The keep decision for the rate-sampled traces is taken from the trace id, so every
+ * instance sampling at the same rate agrees on the same traces. At most
+ * {@code maxBufferedSpans} spans are held; spans beyond that are dropped and counted, and a
+ * trace whose root has not ended after {@code maxTraceAge} is decided with what it has.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<String> ERROR = AttributeKey.stringKey("error");
+    private static final AttributeKey<String> EXCEPTION = AttributeKey.stringKey("exception");
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    private static final long ADJUST_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+    private static final double SMOOTHING = 0.5;
+
+    private enum Decision { ERROR, SLOW, SAMPLED, DROPPED }
+
+    private final SpanProcessor delegate;
+    private final long latencyThresholdNanos;
+    private final double spansPerSecond;
+    private final int maxBufferedSpans;
+    private final long maxTraceAgeNanos;
+    private final LongSupplier clock;
+    private final Map<String, Trace> traces = new ConcurrentHashMap<>();
+    private final Decided[] decided;
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong lastAdjust;
+    private final LongAdder mandatorySpans = new LongAdder();
+    private final LongAdder optionalSpans = new LongAdder();
+    private final Counter[] decisions = new Counter[Decision.values().length];
+    private final Counter overflow;
+
+    private volatile double sampleRate = 1.0;
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, Duration latencyThreshold, double spansPerSecond,
+                                     int maxBufferedSpans, Duration maxTraceAge, MeterRegistry meterRegistry) {
+        this(delegate, latencyThreshold, spansPerSecond, maxBufferedSpans, maxTraceAge, meterRegistry, System::nanoTime);
+    }
+
+    TailSamplingSpanProcessor(SpanProcessor delegate, Duration latencyThreshold, double spansPerSecond,
+                              int maxBufferedSpans, Duration maxTraceAge, MeterRegistry meterRegistry,
+                              LongSupplier clock) {
+        this.delegate = delegate;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.spansPerSecond = spansPerSecond;
+        this.maxBufferedSpans = maxBufferedSpans;
+        this.maxTraceAgeNanos = maxTraceAge.toNanos();
+        this.clock = clock;
+        this.lastAdjust = new AtomicLong(clock.getAsLong());
+        this.decided = new Decided[Integer.highestOneBit(Math.max(1024, maxBufferedSpans)) * 2];
+        for (Decision decision : Decision.values()) {
+            decisions[decision.ordinal()] = Counter.builder("inventory.tracing.traces")
+                    .description("Traces by tail-sampling decision")
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.overflow = Counter.builder("inventory.tracing.spans.overflow")
+                .description("Spans dropped because the tail-sampling buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("inventory.tracing.sample.rate", this, TailSamplingSpanProcessor::sampleRate)
+                .description("Share of ordinary traces currently exported")
+                .register(meterRegistry);
+        Gauge.builder("inventory.tracing.spans.buffered", buffered, AtomicInteger::get)
+                .description("Spans held until their trace is decided")
+                .register(meterRegistry);
+    }
+
+    double sampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        delegate.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+        long now = clock.getAsLong();
+        Decided previous = decided[slot(traceId)];
+        if (previous != null && previous.traceId.equals(traceId) && now - previous.at < maxTraceAgeNanos) {
+            if (previous.keep) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+        SpanContext parent = span.getParentSpanContext();
+        if (!parent.isValid() || parent.isRemote()) {
+            Trace trace = traces.remove(traceId);
+            List<ReadableSpan> spans = trace != null ? trace.drain() : new ArrayList<>(1);
+            if (trace != null) {
+                buffered.addAndGet(-spans.size());
+            }
+            spans.add(span);
+            boolean failed = (trace != null && trace.failed) || failed(span);
+            decide(traceId, spans, now, failed ? Decision.ERROR
+                    : span.getLatencyNanos() >= latencyThresholdNanos ? Decision.SLOW : null);
+        } else {
+            buffer(traceId, span, now);
+        }
+        long last = lastAdjust.get();
+        if (now - last >= ADJUST_INTERVAL_NANOS && lastAdjust.compareAndSet(last, now)) {
+            adjust(now - last);
+            expire(now);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+    private void buffer(String traceId, ReadableSpan span, long now) {
+        if (buffered.incrementAndGet() > maxBufferedSpans) {
+            buffered.decrementAndGet();
+            overflow.increment();
+            return;
+        }
+        Trace trace = traces.computeIfAbsent(traceId, id -> new Trace(now));
+        if (!trace.add(span, failed(span))) {
+            // decided and removed between lookup and add; start over with the cached decision
+            buffered.decrementAndGet();
+            onEnd(span);
+        }
+    }
+
+    private void decide(String traceId, List<ReadableSpan> spans, long now, Decision mandatory) {
+        Decision decision = mandatory;
+        if (decision != null) {
+            mandatorySpans.add(spans.size());
+        } else {
+            optionalSpans.add(spans.size());
+            decision = sampled(traceId) ? Decision.SAMPLED : Decision.DROPPED;
+        }
+        boolean keep = decision != Decision.DROPPED;
+        decided[slot(traceId)] = new Decided(traceId, keep, now);
+        decisions[decision.ordinal()].increment();
+        if (keep) {
+            for (ReadableSpan span : spans) {
+                delegate.onEnd(span);
+            }
+        }
+    }
+
+    private int slot(String traceId) {
+        int hash = traceId.hashCode();
+        return (hash ^ (hash >>> 16)) & (decided.length - 1);
+    }
+
+    // the low 63 bits of the trace id are random, as with the SDK's ratio-based sampler
+    private boolean sampled(String traceId) {
+        double rate = sampleRate;
+        if (rate >= 1.0) {
+            return true;
+        }
+        long random = Long.parseUnsignedLong(traceId, 16, 32, 16) & Long.MAX_VALUE;
+        return random < (long) (rate * Long.MAX_VALUE);
+    }
+
+    void adjust(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        double mandatory = mandatorySpans.sumThenReset() / seconds;
+        double optional = optionalSpans.sumThenReset() / seconds;
+        double target = optional == 0 ? 1.0 : Math.min(1.0, Math.max(0, spansPerSecond - mandatory) / optional);
+        sampleRate = SMOOTHING * sampleRate + (1 - SMOOTHING) * target;
+    }
+
+    private void expire(long now) {
+        Iterator<Map.Entry<String, Trace>> it = traces.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Trace> entry = it.next();
+            Trace trace = entry.getValue();
+            if (now - trace.started >= maxTraceAgeNanos && traces.remove(entry.getKey(), trace)) {
+                List<ReadableSpan> spans = trace.drain();
+                buffered.addAndGet(-spans.size());
+                decide(entry.getKey(), spans, now, trace.failed ? Decision.ERROR : null);
+            }
+        }
+    }
+
+    private static boolean failed(ReadableSpan span) {
+        String exception = span.getAttribute(EXCEPTION);
+        String outcome = span.getAttribute(OUTCOME);
+        return span.getAttribute(ERROR) != null
+                || (exception != null && !"none".equals(exception))
+                || "CLIENT_ERROR".equals(outcome) || "SERVER_ERROR".equals(outcome)
+                || span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    /**
+     * A recent decision, kept for spans that end after their root, e.g. async work. The table
+     * is direct-mapped and written without locking, so a decision can be overwritten by a
+     * later trace; a span that misses it is buffered and decided again when it expires.
+     */
+    private record Decided(String traceId, boolean keep, long at) {
+    }
+
+    private static final class Trace {
+        private final long started;
+        private List<ReadableSpan> spans = new ArrayList<>(4);
+        private volatile boolean failed;
+
+        Trace(long started) {
+            this.started = started;
+        }
+
+        synchronized boolean add(ReadableSpan span, boolean failed) {
+            if (spans == null) {
+                return false;
+            }
+            spans.add(span);
+            this.failed |= failed;
+            return true;
+        }
+
+        synchronized List<ReadableSpan> drain() {
+            List<ReadableSpan> drained = spans;
+            spans = null;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecom.inventory.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanProcessors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Puts every span processor Spring Boot would register, the OTLP batch exporter among them,
+ * behind a {@link TailSamplingSpanProcessor} when
+ * {@code inventory.tracing.tail-sampling.enabled} is set. The head sampler has to record
+ * every trace ({@code management.tracing.sampling.probability: 1.0}) for the tail decision
+ * to see the slow and failed ones.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(SpanProcessors.class)
+@ConditionalOnProperty(name = "inventory.tracing.tail-sampling.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    SpanProcessors spanProcessors(ObjectProvider<SpanProcessor> spanProcessors,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.tracing.tail-sampling.latency-threshold:250ms}") Duration latencyThreshold,
+                                  @Value("${inventory.tracing.tail-sampling.spans-per-second:100}") double spansPerSecond,
+                                  @Value("${inventory.tracing.tail-sampling.max-buffered-spans:10000}") int maxBufferedSpans,
+                                  @Value("${inventory.tracing.tail-sampling.max-trace-age:30s}") Duration maxTraceAge) {
+        SpanProcessor exporting = SpanProcessor.composite(spanProcessors.orderedStream().toList());
+        return SpanProcessors.of(new TailSamplingSpanProcessor(
+                exporting, latencyThreshold, spansPerSecond, maxBufferedSpans, maxTraceAge, meterRegistry));
+    }
+}
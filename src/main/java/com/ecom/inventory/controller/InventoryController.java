@@ -1,35 +1,174 @@
 package com.ecom.inventory.controller;
 
+import com.ecom.inventory.dto.AllocationRequest;
+import com.ecom.inventory.dto.AllocationResponse;
+import com.ecom.inventory.dto.AvailabilityRequest;
+import com.ecom.inventory.dto.AvailabilityResponse;
+import com.ecom.inventory.dto.BatchReservationRequest;
+import com.ecom.inventory.dto.CompactionReport;
+import com.ecom.inventory.dto.ConsistencyReport;
+import com.ecom.inventory.dto.HoldResponse;
+import com.ecom.inventory.config.InventoryChangesConverter;
+import com.ecom.inventory.dto.IngestReport;
+import com.ecom.inventory.dto.InventoryChangePage;
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.dto.InventoryEventPage;
+import com.ecom.inventory.dto.InventoryPage;
 import com.ecom.inventory.dto.InventoryRequest;
 import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.LocationStockRequest;
+import com.ecom.inventory.dto.LocationStockResponse;
 import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.dto.ReplayReport;
 import com.ecom.inventory.dto.StockReservationResponse;
+import com.ecom.inventory.exception.ErrorBodies;
+import com.ecom.inventory.service.AllocationEngine;
+import com.ecom.inventory.service.ChangeFeed;
+import com.ecom.inventory.service.ConsistencyChecker;
+import com.ecom.inventory.service.EventCompactor;
+import com.ecom.inventory.service.InventoryReplayer;
 import com.ecom.inventory.service.InventoryService;
+import com.ecom.inventory.service.InventorySnapshotter;
+import com.ecom.inventory.service.LocationLedger;
+import com.ecom.inventory.service.ReservationResult;
+import com.ecom.inventory.service.StockIngestor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final InventoryService inventoryService;
+    private final InventorySnapshotter inventorySnapshotter;
+    private final InventoryReplayer inventoryReplayer;
+    private final ConsistencyChecker consistencyChecker;
+    private final StockIngestor stockIngestor;
+    private final ChangeFeed changeFeed;
+    private final EventCompactor eventCompactor;
+    private final LocationLedger locationLedger;
+    private final AllocationEngine allocationEngine;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService,
+                               InventorySnapshotter inventorySnapshotter,
+                               InventoryReplayer inventoryReplayer,
+                               ConsistencyChecker consistencyChecker,
+                               StockIngestor stockIngestor,
+                               ChangeFeed changeFeed,
+                               EventCompactor eventCompactor,
+                               LocationLedger locationLedger,
+                               AllocationEngine allocationEngine,
+                               ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.inventorySnapshotter = inventorySnapshotter;
+        this.inventoryReplayer = inventoryReplayer;
+        this.consistencyChecker = consistencyChecker;
+        this.stockIngestor = stockIngestor;
+        this.changeFeed = changeFeed;
+        this.eventCompactor = eventCompactor;
+        this.locationLedger = locationLedger;
+        this.allocationEngine = allocationEngine;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<List<InventoryResponse>> getAllInventory() {
-        return ResponseEntity.ok(inventoryService.getAllInventory());
+    public ResponseEntity<InventoryPage> getInventoryPage(@RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(inventoryService.getInventoryPage(after, size));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportInventory() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                inventoryService.exportInventory(item -> {
+                    try {
+                        generator.writeObject(item);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping(value = "/ingest", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<IngestReport> ingest(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                               InputStream body) throws IOException {
+        StockIngestor.Format format = NDJSON.isCompatibleWith(contentType)
+                ? StockIngestor.Format.NDJSON : StockIngestor.Format.CSV;
+        InputStreamReader feed = new InputStreamReader(body,
+                contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8);
+        return ResponseEntity.ok(stockIngestor.ingest(feed, format));
+    }
+
+    @GetMapping(value = "/changes",
+            produces = {MediaType.APPLICATION_JSON_VALUE, InventoryChangesConverter.MEDIA_TYPE_VALUE})
+    public CompletableFuture<ResponseEntity<InventoryChangePage>> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestParam(defaultValue = "0") int waitSeconds) {
+        return changeFeed.poll(since, size, Duration.ofSeconds(waitSeconds)).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(defaultValue = "1000") int size) {
+        SseEmitter emitter = new SseEmitter(0L);
+        long from = since != null ? since : lastEventId != null ? lastEventId : changeFeed.version();
+        Runnable unsubscribe = changeFeed.subscribe(from, size, page -> {
+            try {
+                emitter.send(SseEmitter.event().name("changes").id(Long.toString(page.cursor()))
+                        .data(page, MediaType.APPLICATION_JSON));
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+                throw new UncheckedIOException(ex);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        return emitter;
+    }
+
+    @PostMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> getAvailability(@Valid @RequestBody AvailabilityRequest request) {
+        return ResponseEntity.ok(inventoryService.getAvailability(request.productIds()));
     }
 
     @GetMapping("/{productId}")
@@ -43,8 +182,35 @@ public class InventoryController {
     }
 
     @PostMapping("/reserve")
-    public ResponseEntity<StockReservationResponse> reserveStock(@Valid @RequestBody StockReservationRequest request) {
-        return ResponseEntity.ok(inventoryService.reserveStock(request));
+    public ResponseEntity<?> reserveStock(@Valid @RequestBody StockReservationRequest request) {
+        ReservationResult result = inventoryService.tryReserveStock(request);
+        if (result.isReserved()) {
+            return ResponseEntity.ok(result.response());
+        }
+        return ErrorBodies.rejection(result.rejection(), result.productId(), result.available(), result.requested());
+    }
+
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<List<StockReservationResponse>> reserveStockBatch(
+            @Valid @RequestBody BatchReservationRequest request) {
+        return ResponseEntity.ok(inventoryService.reserveStockBatch(request));
+    }
+
+    @PostMapping("/allocations")
+    public ResponseEntity<AllocationResponse> allocate(@Valid @RequestBody AllocationRequest request) {
+        return ResponseEntity.ok(allocationEngine.allocate(request));
+    }
+
+    @GetMapping("/{productId}/locations")
+    public ResponseEntity<List<LocationStockResponse>> getLocationStock(@PathVariable Long productId) {
+        return ResponseEntity.ok(locationLedger.getStock(productId));
+    }
+
+    @PutMapping("/{productId}/locations/{locationCode}")
+    public ResponseEntity<LocationStockResponse> setLocationStock(@PathVariable Long productId,
+                                                                  @PathVariable String locationCode,
+                                                                  @Valid @RequestBody LocationStockRequest request) {
+        return ResponseEntity.ok(locationLedger.setStock(productId, locationCode, request.quantity()));
     }
 
     @PostMapping("/release")
@@ -52,8 +218,85 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.releaseStock(request));
     }
 
+    @GetMapping("/holds/{holdId}")
+    public ResponseEntity<HoldResponse> getHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(inventoryService.getHold(holdId));
+    }
+
+    @PostMapping("/holds/{holdId}/extend")
+    public ResponseEntity<HoldResponse> extendHold(@PathVariable String holdId,
+                                                   @RequestParam(required = false) Integer ttlSeconds) {
+        return ResponseEntity.ok(inventoryService.extendHold(holdId, ttlSeconds));
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<HoldResponse> confirmHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(inventoryService.confirmHold(holdId));
+    }
+
+    @PostMapping("/holds/{holdId}/release")
+    public ResponseEntity<HoldResponse> releaseHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(inventoryService.releaseHold(holdId));
+    }
+
     @GetMapping("/low-stock")
-    public ResponseEntity<List<InventoryResponse>> checkLowStock() {
-        return ResponseEntity.ok(inventoryService.checkLowStock());
+    public ResponseEntity<InventoryPage> checkLowStock(@RequestParam(required = false) Long after,
+                                                       @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(inventoryService.checkLowStock(after, size));
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStock() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Runnable unsubscribe = inventoryService.subscribeLowStock(alert -> {
+            try {
+                emitter.send(SseEmitter.event().name("low-stock").data(alert));
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+                throw new UncheckedIOException(ex);
+            }
+        }, emitter::complete);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        return emitter;
+    }
+
+    @GetMapping("/events/{productId}")
+    public ResponseEntity<InventoryEventPage> getEvents(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(inventoryService.getEventPage(productId, from, to, after, size));
+    }
+
+    @GetMapping("/events/{productId}/daily")
+    public ResponseEntity<List<InventoryDailySummary>> getDailySummaries(
+            @PathVariable Long productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(inventoryService.getDailySummaries(productId, from, to));
+    }
+
+    @PostMapping("/admin/snapshots")
+    public ResponseEntity<ReplayReport> takeSnapshots() {
+        return ResponseEntity.ok(inventorySnapshotter.takeSnapshots());
+    }
+
+    @PostMapping("/admin/replay")
+    public ResponseEntity<ReplayReport> replay() {
+        return ResponseEntity.ok(inventoryReplayer.replayAll());
+    }
+
+    @PostMapping("/admin/compact")
+    public ResponseEntity<CompactionReport> compactEvents() {
+        return ResponseEntity.ok(eventCompactor.compact());
+    }
+
+    @GetMapping("/admin/consistency")
+    public ResponseEntity<ConsistencyReport> checkConsistency() {
+        return ResponseEntity.ok(consistencyChecker.check());
     }
 }
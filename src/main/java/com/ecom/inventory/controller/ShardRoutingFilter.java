@@ -0,0 +1,276 @@
+package com.ecom.inventory.controller;
+
+import com.ecom.inventory.exception.BatchSpansShardsException;
+import com.ecom.inventory.exception.GlobalExceptionHandler;
+import com.ecom.inventory.exception.ShardForwardTimeoutException;
+import com.ecom.inventory.exception.WrongShardException;
+import com.ecom.inventory.service.HoldManager;
+import com.ecom.inventory.service.ShardRouter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends product-scoped requests to the instance that owns the product when sharding is
+ * enabled. The product is taken from the path, from the {@code productId} of a JSON body,
+ * or from the hold a hold request names. Requests for another instance's products are
+ * proxied to it with {@code inventory.sharding.forward}, or answered with
+ * {@code 421 Misdirected Request} and the owner in {@code X-Inventory-Shard-Owner}. A
+ * request is forwarded at most once; if the receiving instance disagrees about the owner
+ * while the ring is changing, it answers with the hint instead of serving the product.
+ * <p>
+ * If the owner cannot be reached, the client gets the hint. If a {@code POST} reached the
+ * owner but no answer came back, the owner may have applied it, so unless it carries an
+ * idempotency key the client gets {@code 504 Gateway Timeout} and no owner to retry against.
+ * <p>
+ * Holds are routed through the {@code stock_holds} row, so a hold can only be addressed
+ * through another instance once its owner has flushed it; until then, send hold requests to
+ * the instance named in the reservation's {@code X-Inventory-Shard-Owner} header.
+ */
+@Component
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    static final String FORWARDED_HEADER = "X-Inventory-Forwarded";
+
+    private static final String PREFIX = "/api/inventory";
+    private static final Pattern PRODUCT_PATH =
+            Pattern.compile(PREFIX + "(?:/events)?/(-?\\d{1,18})(?:/locations(?:/[^/]+)?)?");
+    private static final Pattern HOLD_PATH = Pattern.compile(PREFIX + "/holds/([^/]+)(?:/(?:extend|confirm|release))?");
+    private static final List<String> PRODUCT_BODY_PATHS = List.of(PREFIX, PREFIX + "/reserve", PREFIX + "/release");
+    private static final List<String> BATCH_PATHS = List.of(PREFIX + "/reserve/batch", PREFIX + "/allocations");
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, "traceparent", "tracestate");
+
+    private final ShardRouter shardRouter;
+    private final HoldManager holdManager;
+    private final ObjectMapper objectMapper;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final boolean forward;
+    private final Duration forwardTimeout;
+    private final HttpClient httpClient;
+
+    public ShardRoutingFilter(ShardRouter shardRouter,
+                              HoldManager holdManager,
+                              ObjectMapper objectMapper,
+                              @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                              @Value("${inventory.sharding.forward:true}") boolean forward,
+                              @Value("${inventory.sharding.forward-timeout:2s}") Duration forwardTimeout) {
+        this.shardRouter = shardRouter;
+        this.holdManager = holdManager;
+        this.objectMapper = objectMapper;
+        this.exceptionResolver = exceptionResolver;
+        this.forward = forward;
+        this.forwardTimeout = forwardTimeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(forwardTimeout).build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !shardRouter.isEnabled() || !request.getRequestURI().startsWith(PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest routed = request;
+        URI owner;
+        try {
+            String path = request.getRequestURI();
+            Long productId = null;
+            Matcher product = PRODUCT_PATH.matcher(path);
+            Matcher hold = HOLD_PATH.matcher(path);
+            if (product.matches()) {
+                productId = Long.parseLong(product.group(1));
+            } else if (hold.matches()) {
+                productId = holdManager.productOf(hold.group(1));
+            } else if ("POST".equals(request.getMethod())
+                    && (PRODUCT_BODY_PATHS.contains(path) || BATCH_PATHS.contains(path))) {
+                CachedBodyRequest cached = new CachedBodyRequest(request);
+                routed = cached;
+                productId = productOf(path, cached.body);
+            }
+            if (productId == null || shardRouter.owns(productId)) {
+                chain.doFilter(routed, response);
+                return;
+            }
+            owner = shardRouter.owner(productId);
+            if (!forward || request.getHeader(FORWARDED_HEADER) != null) {
+                throw new WrongShardException("Product " + productId + " is owned by " + owner, owner);
+            }
+        } catch (WrongShardException | BatchSpansShardsException ex) {
+            exceptionResolver.resolveException(request, response, null, ex);
+            return;
+        }
+        proxy(routed, response, owner);
+    }
+
+    private Long productOf(String path, byte[] body) {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(body);
+        } catch (IOException ex) {
+            return null;
+        }
+        if (json == null) {
+            return null;
+        }
+        if (!BATCH_PATHS.contains(path)) {
+            JsonNode productId = json.get("productId");
+            return productId != null && productId.canConvertToLong() ? productId.asLong() : null;
+        }
+        Long first = null;
+        URI owner = null;
+        for (JsonNode line : json.path("lines")) {
+            JsonNode productId = line.get("productId");
+            if (productId == null || !productId.canConvertToLong()) {
+                continue;
+            }
+            URI lineOwner = shardRouter.owner(productId.asLong());
+            if (first == null) {
+                first = productId.asLong();
+                owner = lineOwner;
+            } else if (!lineOwner.equals(owner)) {
+                throw new BatchSpansShardsException("Reservation batch spans shards; send one batch per owner");
+            }
+        }
+        return first;
+    }
+
+    private void proxy(HttpServletRequest request, HttpServletResponse response, URI owner) throws IOException {
+        String query = request.getQueryString();
+        byte[] body = request instanceof CachedBodyRequest cached
+                ? cached.body : request.getInputStream().readAllBytes();
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(
+                        owner.resolve(request.getRequestURI() + (query != null ? "?" + query : "")))
+                .timeout(forwardTimeout)
+                .header(FORWARDED_HEADER, "true")
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                forwarded.header(name, value);
+            }
+        }
+        HttpResponse<byte[]> answer;
+        try {
+            answer = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            unanswered(request, response, owner, body, true);
+            return;
+        } catch (IOException ex) {
+            logger.warn("Could not forward " + request.getRequestURI() + " to " + owner + ": " + ex);
+            unanswered(request, response, owner, body,
+                    !(ex instanceof ConnectException || ex instanceof HttpConnectTimeoutException));
+            return;
+        }
+        response.setStatus(answer.statusCode());
+        response.setHeader(GlobalExceptionHandler.SHARD_OWNER_HEADER, owner.toString());
+        answer.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                .ifPresent(contentType -> response.setHeader(HttpHeaders.CONTENT_TYPE, contentType));
+        response.getOutputStream().write(answer.body());
+    }
+
+    private void unanswered(HttpServletRequest request, HttpServletResponse response, URI owner, byte[] body,
+                            boolean delivered) {
+        RuntimeException answer = delivered && "POST".equals(request.getMethod()) && !hasIdempotencyKey(body)
+                ? new ShardForwardTimeoutException("Owner " + owner + " did not answer in time and may have applied "
+                        + "the request; check before retrying")
+                : new WrongShardException("Owner " + owner + " did not answer; retry against it directly", owner);
+        exceptionResolver.resolveException(request, response, null, answer);
+    }
+
+    private boolean hasIdempotencyKey(byte[] body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return json != null && json.path("idempotencyKey").isTextual();
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException ex) {
+                        listener.onError(ex);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record AllocationResponse(
+        String strategy,
+        List<LineAllocation> lines
+) {
+}
@@ -0,0 +1,14 @@
+package com.ecom.inventory.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record AvailabilityRequest(
+        @NotEmpty(message = "At least one product ID is required")
+        @Size(max = 1000, message = "At most 1000 product IDs per request")
+        List<@NotNull Long> productIds
+) {
+}
@@ -0,0 +1,10 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record AvailabilityResponse(
+        Map<Long, Integer> available,
+        List<Long> notFound
+) {
+}
@@ -0,0 +1,26 @@
+package com.ecom.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public record BatchReservationRequest(
+        @NotEmpty(message = "At least one line is required")
+        List<@NotNull @Valid StockReservationRequest> lines
+) {
+
+    /**
+     * A batch is reserved all or nothing and is not remembered by the idempotency store, so a
+     * keyed line would be accepted and then silently double-reserved on retry. Keyed
+     * reservations go through {@code POST /reserve} one line at a time.
+     */
+    @JsonIgnore
+    @AssertTrue(message = "Idempotency keys are not supported on batch lines; use /reserve for keyed reservations")
+    public boolean isUnkeyed() {
+        return lines == null || lines.stream().allMatch(line -> line == null || line.idempotencyKey() == null);
+    }
+}
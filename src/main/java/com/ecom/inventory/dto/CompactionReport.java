@@ -0,0 +1,11 @@
+package com.ecom.inventory.dto;
+
+import java.time.LocalDateTime;
+
+public record CompactionReport(
+        LocalDateTime cutoff,
+        long eventsArchived,
+        long summariesWritten,
+        long durationMillis
+) {
+}
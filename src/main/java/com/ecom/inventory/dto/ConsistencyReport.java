@@ -0,0 +1,12 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record ConsistencyReport(
+        long productsChecked,
+        long mismatchCount,
+        long sequenceGaps,
+        List<StockMismatch> mismatches,
+        long durationMillis
+) {
+}
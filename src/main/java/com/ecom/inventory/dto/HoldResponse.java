@@ -0,0 +1,15 @@
+package com.ecom.inventory.dto;
+
+import com.ecom.inventory.model.HoldStatus;
+
+import java.time.LocalDateTime;
+
+public record HoldResponse(
+        String holdId,
+        Long productId,
+        Integer quantity,
+        HoldStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt
+) {
+}
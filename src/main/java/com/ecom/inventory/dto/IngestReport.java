@@ -0,0 +1,15 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record IngestReport(
+        long linesRead,
+        long created,
+        long updated,
+        long unchanged,
+        long skipped,
+        long rejected,
+        List<IngestError> errors,
+        long durationMillis
+) {
+}
@@ -0,0 +1,11 @@
+package com.ecom.inventory.dto;
+
+public record InventoryChange(
+        Long productId,
+        Long version,
+        Integer quantity,
+        Integer reservedQuantity,
+        Integer availableQuantity,
+        Integer reorderLevel
+) {
+}
@@ -0,0 +1,10 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record InventoryChangePage(
+        List<InventoryChange> changes,
+        long cursor,
+        boolean hasMore
+) {
+}
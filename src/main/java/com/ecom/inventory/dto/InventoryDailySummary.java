@@ -0,0 +1,33 @@
+package com.ecom.inventory.dto;
+
+import java.time.LocalDate;
+
+public record InventoryDailySummary(
+        Long productId,
+        LocalDate day,
+        long events,
+        long reservations,
+        long quantityAdded,
+        long quantityRemoved,
+        long reservedAdded,
+        long reservedReleased,
+        Long firstSequence,
+        Long lastSequence
+) {
+
+    public InventoryDailySummary plus(InventoryDailySummary other) {
+        return new InventoryDailySummary(
+                productId,
+                day,
+                events + other.events,
+                reservations + other.reservations,
+                quantityAdded + other.quantityAdded,
+                quantityRemoved + other.quantityRemoved,
+                reservedAdded + other.reservedAdded,
+                reservedReleased + other.reservedReleased,
+                firstSequence == null ? other.firstSequence
+                        : other.firstSequence == null ? firstSequence : Math.min(firstSequence, other.firstSequence),
+                lastSequence == null ? other.lastSequence
+                        : other.lastSequence == null ? lastSequence : Math.max(lastSequence, other.lastSequence));
+    }
+}
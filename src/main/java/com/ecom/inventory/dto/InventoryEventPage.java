@@ -0,0 +1,9 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record InventoryEventPage(
+        List<InventoryEventResponse> items,
+        Long nextCursor
+) {
+}
@@ -0,0 +1,18 @@
+package com.ecom.inventory.dto;
+
+import com.ecom.inventory.model.InventoryEventType;
+
+import java.time.LocalDateTime;
+
+public record InventoryEventResponse(
+        Long id,
+        Long productId,
+        InventoryEventType eventType,
+        Integer quantity,
+        Long sequence,
+        Integer quantityDelta,
+        Integer reservedDelta,
+        Integer reorderLevel,
+        LocalDateTime timestamp
+) {
+}
@@ -0,0 +1,9 @@
+package com.ecom.inventory.dto;
+
+import java.util.List;
+
+public record InventoryPage(
+        List<InventoryResponse> items,
+        Long nextCursor
+) {
+}
@@ -0,0 +1,14 @@
+package com.ecom.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record LineAllocation(
+        Long productId,
+        Integer quantity,
+        Integer availableQuantity,
+        String holdId,
+        LocalDateTime expiresAt,
+        List<LocationAllocation> locations
+) {
+}
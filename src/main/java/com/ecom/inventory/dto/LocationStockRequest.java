@@ -0,0 +1,11 @@
+package com.ecom.inventory.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record LocationStockRequest(
+        @NotNull(message = "Quantity is required")
+        @Min(value = 0, message = "Quantity cannot be negative")
+        Integer quantity
+) {
+}
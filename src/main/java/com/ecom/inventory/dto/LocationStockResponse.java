@@ -0,0 +1,10 @@
+package com.ecom.inventory.dto;
+
+public record LocationStockResponse(
+        Long productId,
+        String locationCode,
+        Integer quantity,
+        Integer allocatedQuantity,
+        Integer availableQuantity
+) {
+}
@@ -0,0 +1,18 @@
+package com.ecom.inventory.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product crossing its reorder level. {@code sequence} is the product's stock event
+ * sequence when the crossing was seen; it never goes down from one alert for a product to
+ * the next, so a client that merges streams can drop an alert older than one it has.
+ */
+public record LowStockAlert(
+        Long productId,
+        boolean lowStock,
+        Integer availableQuantity,
+        Integer reorderLevel,
+        long sequence,
+        LocalDateTime timestamp
+) {
+}
@@ -0,0 +1,7 @@
+package com.ecom.inventory.dto;
+
+public record ProductAvailability(
+        Long productId,
+        Integer availableQuantity
+) {
+}
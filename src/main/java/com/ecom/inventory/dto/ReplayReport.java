@@ -0,0 +1,23 @@
+package com.ecom.inventory.dto;
+
+public record ReplayReport(
+        long productsReplayed,
+        long eventsApplied,
+        long sequenceGaps,
+        long snapshotsWritten,
+        long durationMillis
+) {
+
+    public ReplayReport plus(ReplayReport other) {
+        return new ReplayReport(
+                productsReplayed + other.productsReplayed,
+                eventsApplied + other.eventsApplied,
+                sequenceGaps + other.sequenceGaps,
+                snapshotsWritten + other.snapshotsWritten,
+                durationMillis + other.durationMillis);
+    }
+
+    public ReplayReport withDuration(long durationMillis) {
+        return new ReplayReport(productsReplayed, eventsApplied, sequenceGaps, snapshotsWritten, durationMillis);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecom.inventory.dto;
+
+public record StockMismatch(
+        Long productId,
+        Integer replayedQuantity,
+        Integer replayedReservedQuantity,
+        Integer replayedReorderLevel,
+        Integer storedQuantity,
+        Integer storedReservedQuantity,
+        Integer storedReorderLevel
+) {
+}
@@ -2,6 +2,7 @@ package com.ecom.inventory.dto;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public record StockReservationRequest(
         @NotNull(message = "Product ID is required")
@@ -9,6 +10,20 @@ public record StockReservationRequest(
 
         @NotNull(message = "Quantity is required")
         @Min(value = 1, message = "Quantity must be at least 1")
-        Integer quantity
+        Integer quantity,
+
+        @Min(value = 1, message = "Hold TTL must be at least 1 second")
+        Integer holdTtlSeconds,
+
+        @Size(max = 64, message = "Idempotency key must be at most 64 characters")
+        String idempotencyKey
 ) {
+
+    public StockReservationRequest(Long productId, Integer quantity) {
+        this(productId, quantity, null, null);
+    }
+
+    public StockReservationRequest(Long productId, Integer quantity, Integer holdTtlSeconds) {
+        this(productId, quantity, holdTtlSeconds, null);
+    }
 }
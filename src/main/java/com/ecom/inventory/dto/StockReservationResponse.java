@@ -1,9 +1,13 @@
 package com.ecom.inventory.dto;
 
+import java.time.LocalDateTime;
+
 public record StockReservationResponse(
         Long productId,
         boolean reserved,
         Integer availableQuantity,
-        String message
+        String message,
+        String holdId,
+        LocalDateTime expiresAt
 ) {
 }
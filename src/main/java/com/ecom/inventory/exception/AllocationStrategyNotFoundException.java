@@ -0,0 +1,8 @@
+package com.ecom.inventory.exception;
+
+public class AllocationStrategyNotFoundException extends RuntimeException {
+
+    public AllocationStrategyNotFoundException(String message) {
+        super(message);
+    }
+}
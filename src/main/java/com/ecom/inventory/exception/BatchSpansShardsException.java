@@ -0,0 +1,8 @@
+package com.ecom.inventory.exception;
+
+public class BatchSpansShardsException extends RuntimeException {
+
+    public BatchSpansShardsException(String message) {
+        super(message);
+    }
+}
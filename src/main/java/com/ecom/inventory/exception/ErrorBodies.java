@@ -0,0 +1,125 @@
+package com.ecom.inventory.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * JSON error bodies for reservation rejections, written straight into a byte array from
+ * pre-encoded fragments, so a rejection needs no map, no message string and no serializer
+ * pass. The fields match the bodies {@link GlobalExceptionHandler} writes for other errors,
+ * plus the rejection {@code code} and its numbers; the timestamp is kept to the second and
+ * re-encoded once per second.
+ */
+public final class ErrorBodies {
+
+    private static final byte[] TIMESTAMP = ascii("{\"timestamp\":\"");
+    private static final byte[] INSUFFICIENT_STOCK = ascii("\",\"status\":400,\"error\":\"Bad Request\","
+            + "\"code\":\"INSUFFICIENT_STOCK\",\"message\":\"Insufficient stock for product ID: ");
+    private static final byte[] AVAILABLE = ascii(". Available: ");
+    private static final byte[] REQUESTED = ascii(", Requested: ");
+    private static final byte[] NOT_FOUND = ascii("\",\"status\":404,\"error\":\"Not Found\","
+            + "\"code\":\"NOT_FOUND\",\"message\":\"Inventory not found for product ID: ");
+    private static final byte[] PRODUCT_ID = ascii("\",\"productId\":");
+    private static final byte[] AVAILABLE_QUANTITY = ascii(",\"availableQuantity\":");
+    private static final byte[] REQUESTED_QUANTITY = ascii(",\"requestedQuantity\":");
+    private static final byte END = '}';
+    private static final HttpHeaders JSON_HEADERS = jsonHeaders();
+
+    private static volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, new byte[0]);
+
+    private ErrorBodies() {
+    }
+
+    public static ResponseEntity<byte[]> rejection(RejectionCode code, long productId, int available, int requested) {
+        return new ResponseEntity<>(render(code, productId, available, requested), JSON_HEADERS, code.getStatus());
+    }
+
+    static byte[] render(RejectionCode code, long productId, int available, int requested) {
+        byte[] now = timestamp();
+        return switch (code) {
+            case INSUFFICIENT_STOCK -> new Writer(TIMESTAMP.length + now.length + INSUFFICIENT_STOCK.length
+                    + AVAILABLE.length + REQUESTED.length + PRODUCT_ID.length + AVAILABLE_QUANTITY.length
+                    + REQUESTED_QUANTITY.length + 1
+                    + 2 * (length(productId) + length(available) + length(requested)))
+                    .put(TIMESTAMP).put(now).put(INSUFFICIENT_STOCK).put(productId)
+                    .put(AVAILABLE).put(available).put(REQUESTED).put(requested)
+                    .put(PRODUCT_ID).put(productId).put(AVAILABLE_QUANTITY).put(available)
+                    .put(REQUESTED_QUANTITY).put(requested).put(END).bytes;
+            case NOT_FOUND -> new Writer(TIMESTAMP.length + now.length + NOT_FOUND.length + PRODUCT_ID.length + 1
+                    + 2 * length(productId))
+                    .put(TIMESTAMP).put(now).put(NOT_FOUND).put(productId)
+                    .put(PRODUCT_ID).put(productId).put(END).bytes;
+        };
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static byte[] timestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second() != second) {
+            current = new Timestamp(second, ascii(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString()));
+            timestamp = current;
+        }
+        return current.bytes();
+    }
+
+    private static int length(long value) {
+        int length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value / 10); rest != 0; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private record Timestamp(long second, byte[] bytes) {
+    }
+
+    private static final class Writer {
+        private final byte[] bytes;
+        private int position;
+
+        Writer(int length) {
+            this.bytes = new byte[length];
+        }
+
+        Writer put(byte[] fragment) {
+            System.arraycopy(fragment, 0, bytes, position, fragment.length);
+            position += fragment.length;
+            return this;
+        }
+
+        Writer put(byte value) {
+            bytes[position++] = value;
+            return this;
+        }
+
+        Writer put(long value) {
+            int end = position + length(value);
+            int index = end;
+            long rest = value;
+            do {
+                bytes[--index] = (byte) ('0' + Math.abs(rest % 10));
+                rest /= 10;
+            } while (rest != 0);
+            if (value < 0) {
+                bytes[--index] = '-';
+            }
+            position = end;
+            return this;
+        }
+    }
+}
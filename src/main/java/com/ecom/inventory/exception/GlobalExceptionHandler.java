@@ -1,6 +1,7 @@
 package com.ecom.inventory.exception;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,8 +14,23 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    public static final String SHARD_OWNER_HEADER = "X-Inventory-Shard-Owner";
+
+    private static final HttpStatusCode MISDIRECTED_REQUEST = HttpStatusCode.valueOf(421);
+
     @ExceptionHandler(InventoryNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleInventoryNotFound(InventoryNotFoundException ex) {
+    public ResponseEntity<byte[]> handleInventoryNotFound(InventoryNotFoundException ex) {
+        return ErrorBodies.rejection(RejectionCode.NOT_FOUND, ex.getProductId(), 0, 0);
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<byte[]> handleInsufficientStock(InsufficientStockException ex) {
+        return ErrorBodies.rejection(RejectionCode.INSUFFICIENT_STOCK,
+                ex.getProductId(), ex.getAvailable(), ex.getRequested());
+    }
+
+    @ExceptionHandler(HoldNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleHoldNotFound(HoldNotFoundException ex) {
         Map<String, Object> error = new HashMap<>();
         error.put("timestamp", LocalDateTime.now().toString());
         error.put("status", HttpStatus.NOT_FOUND.value());
@@ -23,8 +39,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
-    @ExceptionHandler(InsufficientStockException.class)
-    public ResponseEntity<Map<String, Object>> handleInsufficientStock(InsufficientStockException ex) {
+    @ExceptionHandler(LocationNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleLocationNotFound(LocationNotFoundException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.NOT_FOUND.value());
+        error.put("error", "Not Found");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(AllocationStrategyNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleAllocationStrategyNotFound(AllocationStrategyNotFoundException ex) {
         Map<String, Object> error = new HashMap<>();
         error.put("timestamp", LocalDateTime.now().toString());
         error.put("status", HttpStatus.BAD_REQUEST.value());
@@ -33,6 +59,72 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(HoldNotActiveException.class)
+    public ResponseEntity<Map<String, Object>> handleHoldNotActive(HoldNotActiveException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.CONFLICT.value());
+        error.put("error", "Conflict");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(StockBelowReservedException.class)
+    public ResponseEntity<Map<String, Object>> handleStockBelowReserved(StockBelowReservedException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.CONFLICT.value());
+        error.put("error", "Conflict");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.UNPROCESSABLE_ENTITY.value());
+        error.put("error", "Unprocessable Entity");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+
+    @ExceptionHandler(WrongShardException.class)
+    public ResponseEntity<Map<String, Object>> handleWrongShard(WrongShardException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", MISDIRECTED_REQUEST.value());
+        error.put("error", "Misdirected Request");
+        error.put("message", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(MISDIRECTED_REQUEST);
+        if (ex.getOwner() != null) {
+            error.put("owner", ex.getOwner().toString());
+            response.header(SHARD_OWNER_HEADER, ex.getOwner().toString());
+        }
+        return response.body(error);
+    }
+
+    @ExceptionHandler(BatchSpansShardsException.class)
+    public ResponseEntity<Map<String, Object>> handleBatchSpansShards(BatchSpansShardsException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Bad Request");
+        error.put("code", "BATCH_SPANS_SHARDS");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(ShardForwardTimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleShardForwardTimeout(ShardForwardTimeoutException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now().toString());
+        error.put("status", HttpStatus.GATEWAY_TIMEOUT.value());
+        error.put("error", "Gateway Timeout");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
         Map<String, Object> error = new HashMap<>();
@@ -0,0 +1,8 @@
+package com.ecom.inventory.exception;
+
+public class HoldNotActiveException extends RuntimeException {
+
+    public HoldNotActiveException(String message) {
+        super(message);
+    }
+}
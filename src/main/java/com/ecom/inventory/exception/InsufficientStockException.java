@@ -1,8 +1,37 @@
 package com.ecom.inventory.exception;
 
+/**
+ * Thrown without a stack trace, since it reports an expected outcome rather than a fault;
+ * the message is only built when it is read.
+ */
 public class InsufficientStockException extends RuntimeException {
 
-    public InsufficientStockException(String message) {
-        super(message);
+    private final long productId;
+    private final int available;
+    private final int requested;
+
+    public InsufficientStockException(long productId, int available, int requested) {
+        super(null, null, false, false);
+        this.productId = productId;
+        this.available = available;
+        this.requested = requested;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Insufficient stock for product ID: " + productId + ". Available: " + available
+                + ", Requested: " + requested;
     }
 }
@@ -1,8 +1,23 @@
 package com.ecom.inventory.exception;
 
+/**
+ * Thrown without a stack trace, like {@link InsufficientStockException}.
+ */
 public class InventoryNotFoundException extends RuntimeException {
 
-    public InventoryNotFoundException(String message) {
-        super(message);
+    private final long productId;
+
+    public InventoryNotFoundException(long productId) {
+        super(null, null, false, false);
+        this.productId = productId;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Inventory not found for product ID: " + productId;
     }
 }
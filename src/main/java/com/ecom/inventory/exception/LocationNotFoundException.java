@@ -0,0 +1,8 @@
+package com.ecom.inventory.exception;
+
+public class LocationNotFoundException extends RuntimeException {
+
+    public LocationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecom.inventory.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Why a reservation was turned down, with the status it is answered with.
+ */
+public enum RejectionCode {
+
+    INSUFFICIENT_STOCK(HttpStatus.BAD_REQUEST),
+    NOT_FOUND(HttpStatus.NOT_FOUND);
+
+    private final HttpStatus status;
+
+    RejectionCode(HttpStatus status) {
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
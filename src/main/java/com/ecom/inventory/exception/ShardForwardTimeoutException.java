@@ -0,0 +1,12 @@
+package com.ecom.inventory.exception;
+
+/**
+ * A forwarded request that changes stock reached its owner, which did not answer in time.
+ * It may have been applied, so no owner is named for the client to retry against.
+ */
+public class ShardForwardTimeoutException extends RuntimeException {
+
+    public ShardForwardTimeoutException(String message) {
+        super(message);
+    }
+}
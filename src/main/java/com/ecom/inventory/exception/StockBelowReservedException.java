@@ -0,0 +1,9 @@
+package com.ecom.inventory.exception;
+
+public class StockBelowReservedException extends RuntimeException {
+
+    public StockBelowReservedException(Long productId, int quantity, int reserved) {
+        super("Quantity " + quantity + " for product ID: " + productId + " is below the " + reserved
+                + " units reserved");
+    }
+}
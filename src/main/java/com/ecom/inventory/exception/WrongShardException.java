@@ -0,0 +1,17 @@
+package com.ecom.inventory.exception;
+
+import java.net.URI;
+
+public class WrongShardException extends RuntimeException {
+
+    private final URI owner;
+
+    public WrongShardException(String message, URI owner) {
+        super(message);
+        this.owner = owner;
+    }
+
+    public URI getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecom.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * The units of an active hold taken from one location.
+ */
+@Entity
+@Table(name = "hold_allocations", indexes = @Index(name = "idx_hold_allocations_hold", columnList = "hold_id"))
+public class HoldAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String holdId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, length = 32)
+    private String locationCode;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public HoldAllocation() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getLocationCode() {
+        return locationCode;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
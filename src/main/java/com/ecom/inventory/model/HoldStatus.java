@@ -0,0 +1,8 @@
+package com.ecom.inventory.model;
+
+public enum HoldStatus {
+    ACTIVE,
+    RELEASED,
+    CONFIRMED,
+    EXPIRED
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
@@ -12,9 +13,14 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory")
+@Table(name = "inventory", indexes = {
+        @Index(name = "idx_inventory_stock_margin", columnList = "stock_margin, product_id"),
+        @Index(name = "idx_inventory_version", columnList = "version")
+})
 public class Inventory {
 
+    public static final int DEFAULT_REORDER_LEVEL = 10;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,10 +35,22 @@ public class Inventory {
     private Integer reservedQuantity = 0;
 
     @Column(nullable = false)
-    private Integer reorderLevel = 10;
+    private Integer reorderLevel = DEFAULT_REORDER_LEVEL;
 
     private LocalDateTime lastUpdated;
 
+    // change-feed position, stamped by InventoryBatchRepository; 0 until the row is first written back
+    @Column(insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long version;
+
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "INTEGER GENERATED ALWAYS AS (quantity - reserved_quantity)")
+    private Integer availableQuantity;
+
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "INTEGER GENERATED ALWAYS AS (quantity - reserved_quantity - reorder_level)")
+    private Integer stockMargin;
+
     public Inventory() {
     }
 
@@ -100,4 +118,12 @@ public class Inventory {
     public void setLastUpdated(LocalDateTime lastUpdated) {
         this.lastUpdated = lastUpdated;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
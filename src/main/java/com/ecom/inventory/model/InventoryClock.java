@@ -0,0 +1,41 @@
+package com.ecom.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single-row table holding the last change-feed version handed out. Writers advance it in
+ * the same transaction as the rows they stamp, so the row lock orders their commits. The
+ * epoch is a random id given to the row once, which tells a warm-start snapshot whether it
+ * was taken from this database.
+ */
+@Entity
+@Table(name = "inventory_clock")
+public class InventoryClock {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(length = 36)
+    private String epoch;
+
+    public InventoryClock() {
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+}
@@ -7,12 +7,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "inventory_events")
+@Table(name = "inventory_events", indexes = {
+        @Index(name = "idx_inventory_events_product_sequence", columnList = "product_id, sequence"),
+        @Index(name = "idx_inventory_events_product_timestamp", columnList = "product_id, timestamp")
+})
 public class InventoryEvent {
 
     @Id
@@ -28,6 +32,14 @@ public class InventoryEvent {
 
     private Integer quantity;
 
+    private Long sequence;
+
+    private Integer quantityDelta;
+
+    private Integer reservedDelta;
+
+    private Integer reorderLevel;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
@@ -41,6 +53,15 @@ public class InventoryEvent {
         this.timestamp = timestamp;
     }
 
+    public InventoryEvent(Long productId, InventoryEventType eventType, Integer quantity, Long sequence,
+                          Integer quantityDelta, Integer reservedDelta, Integer reorderLevel, LocalDateTime timestamp) {
+        this(productId, eventType, quantity, timestamp);
+        this.sequence = sequence;
+        this.quantityDelta = quantityDelta;
+        this.reservedDelta = reservedDelta;
+        this.reorderLevel = reorderLevel;
+    }
+
     public Long getId() {
         return id;
     }
@@ -73,6 +94,38 @@ public class InventoryEvent {
         this.quantity = quantity;
     }
 
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Integer getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public void setQuantityDelta(Integer quantityDelta) {
+        this.quantityDelta = quantityDelta;
+    }
+
+    public Integer getReservedDelta() {
+        return reservedDelta;
+    }
+
+    public void setReservedDelta(Integer reservedDelta) {
+        this.reservedDelta = reservedDelta;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,101 @@
+package com.ecom.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDate;
+
+/**
+ * One product's stock events for one day, kept after the raw events have been compacted out
+ * of {@code inventory_events}. Written only by the compactor, with JDBC.
+ */
+@Entity
+@Table(name = "inventory_event_aggregates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_event_aggregates_product_day", columnNames = {"product_id", "event_day"})
+})
+public class InventoryEventAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private LocalDate eventDay;
+
+    @Column(nullable = false)
+    private Long events;
+
+    @Column(nullable = false)
+    private Long reservations;
+
+    @Column(nullable = false)
+    private Long quantityAdded;
+
+    @Column(nullable = false)
+    private Long quantityRemoved;
+
+    @Column(nullable = false)
+    private Long reservedAdded;
+
+    @Column(nullable = false)
+    private Long reservedReleased;
+
+    private Long firstSequence;
+
+    private Long lastSequence;
+
+    public InventoryEventAggregate() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public LocalDate getEventDay() {
+        return eventDay;
+    }
+
+    public Long getEvents() {
+        return events;
+    }
+
+    public Long getReservations() {
+        return reservations;
+    }
+
+    public Long getQuantityAdded() {
+        return quantityAdded;
+    }
+
+    public Long getQuantityRemoved() {
+        return quantityRemoved;
+    }
+
+    public Long getReservedAdded() {
+        return reservedAdded;
+    }
+
+    public Long getReservedReleased() {
+        return reservedReleased;
+    }
+
+    public Long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+}
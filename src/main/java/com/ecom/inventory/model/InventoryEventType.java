@@ -4,5 +4,6 @@ public enum InventoryEventType {
     STOCK_UPDATED,
     STOCK_RESERVED,
     STOCK_RELEASED,
+    STOCK_CONFIRMED,
     LOW_STOCK_ALERT
 }
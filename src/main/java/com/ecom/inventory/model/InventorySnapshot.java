@@ -0,0 +1,58 @@
+package com.ecom.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_snapshots")
+public class InventorySnapshot {
+
+    @Id
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private Integer reservedQuantity;
+
+    @Column(nullable = false)
+    private Integer reorderLevel;
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+
+    public InventorySnapshot() {
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+}
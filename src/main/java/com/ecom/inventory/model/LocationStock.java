@@ -0,0 +1,67 @@
+package com.ecom.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product's stock at one fulfillment location. {@code allocatedQuantity} is the part of it
+ * promised to active holds; the product's {@link Inventory} row holds the sum over its
+ * locations.
+ */
+@Entity
+@Table(name = "location_stock", uniqueConstraints = @UniqueConstraint(
+        name = "uk_location_stock_product_location", columnNames = {"product_id", "location_code"}))
+public class LocationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, length = 32)
+    private String locationCode;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private Integer allocatedQuantity;
+
+    private LocalDateTime lastUpdated;
+
+    public LocationStock() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getLocationCode() {
+        return locationCode;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Integer getAllocatedQuantity() {
+        return allocatedQuantity;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+}
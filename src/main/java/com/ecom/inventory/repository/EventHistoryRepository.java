@@ -0,0 +1,198 @@
+package com.ecom.inventory.repository;
+
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes for compacting {@code inventory_events} into daily aggregates. Events are
+ * found by id range, since ids grow with write time and the primary key is the one index
+ * every row already pays for.
+ */
+@Repository
+public class EventHistoryRepository {
+
+    private static final String FIRST_ID_SQL = "SELECT MIN(id) FROM inventory_events";
+
+    private static final String LAST_ID_SQL = "SELECT MAX(id) FROM inventory_events";
+
+    private static final String POSITION_SQL =
+            "SELECT id, timestamp FROM inventory_events WHERE id >= ? ORDER BY id LIMIT 1";
+
+    // sequenced events stay until a snapshot covers them, so replay never loses its tail
+    private static final String COMPACTABLE_SQL =
+            "SELECT e.id, e.product_id, e.event_type, e.quantity, e.sequence, e.quantity_delta, e.reserved_delta, "
+                    + "e.reorder_level, e.timestamp FROM inventory_events e "
+                    + "LEFT JOIN inventory_snapshots s ON s.product_id = e.product_id "
+                    + "WHERE e.id > ? AND e.id < ? AND e.timestamp < ? "
+                    + "AND (e.sequence IS NULL OR e.sequence <= COALESCE(s.sequence, 0)) "
+                    + "ORDER BY e.id LIMIT ?";
+
+    private static final String DELETE_EVENT_SQL = "DELETE FROM inventory_events WHERE id = ?";
+
+    private static final String MERGE_SUMMARY_SQL =
+            "MERGE INTO inventory_event_aggregates t USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), "
+                    + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                    + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+                    + "s (product_id, event_day, events, reservations, quantity_added, quantity_removed, "
+                    + "reserved_added, reserved_released, first_sequence, last_sequence) "
+                    + "ON t.product_id = s.product_id AND t.event_day = s.event_day "
+                    + "WHEN MATCHED THEN UPDATE SET events = t.events + s.events, "
+                    + "reservations = t.reservations + s.reservations, "
+                    + "quantity_added = t.quantity_added + s.quantity_added, "
+                    + "quantity_removed = t.quantity_removed + s.quantity_removed, "
+                    + "reserved_added = t.reserved_added + s.reserved_added, "
+                    + "reserved_released = t.reserved_released + s.reserved_released, "
+                    + "first_sequence = LEAST(COALESCE(t.first_sequence, s.first_sequence), "
+                    + "COALESCE(s.first_sequence, t.first_sequence)), "
+                    + "last_sequence = GREATEST(COALESCE(t.last_sequence, s.last_sequence), "
+                    + "COALESCE(s.last_sequence, t.last_sequence)) "
+                    + "WHEN NOT MATCHED THEN INSERT (product_id, event_day, events, reservations, quantity_added, "
+                    + "quantity_removed, reserved_added, reserved_released, first_sequence, last_sequence) "
+                    + "VALUES (s.product_id, s.event_day, s.events, s.reservations, s.quantity_added, "
+                    + "s.quantity_removed, s.reserved_added, s.reserved_released, s.first_sequence, s.last_sequence)";
+
+    private static final String STORED_SUMMARIES_SQL =
+            "SELECT product_id, event_day, events, reservations, quantity_added, quantity_removed, reserved_added, "
+                    + "reserved_released, first_sequence, last_sequence FROM inventory_event_aggregates "
+                    + "WHERE product_id = ? AND event_day >= ? AND event_day < ? ORDER BY event_day";
+
+    private static final String LIVE_SUMMARIES_SQL =
+            "SELECT product_id, CAST(timestamp AS DATE), COUNT(*), "
+                    + "SUM(CASE WHEN event_type = 'STOCK_RESERVED' THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN quantity_delta > 0 THEN quantity_delta ELSE 0 END), "
+                    + "SUM(CASE WHEN quantity_delta < 0 THEN -quantity_delta ELSE 0 END), "
+                    + "SUM(CASE WHEN reserved_delta > 0 THEN reserved_delta ELSE 0 END), "
+                    + "SUM(CASE WHEN reserved_delta < 0 THEN -reserved_delta ELSE 0 END), "
+                    + "MIN(sequence), MAX(sequence) FROM inventory_events "
+                    + "WHERE product_id = ? AND timestamp >= ? AND timestamp < ? "
+                    + "GROUP BY product_id, CAST(timestamp AS DATE)";
+
+    private static final RowMapper<InventoryDailySummary> SUMMARY_MAPPER = (rs, rowNum) -> new InventoryDailySummary(
+            rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+            rs.getLong(6), rs.getLong(7), rs.getLong(8), rs.getObject(9, Long.class), rs.getObject(10, Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Long findFirstId() {
+        return jdbcTemplate.queryForObject(FIRST_ID_SQL, Long.class);
+    }
+
+    public Long findLastId() {
+        return jdbcTemplate.queryForObject(LAST_ID_SQL, Long.class);
+    }
+
+    /**
+     * @return the first event at or after {@code id}, or {@code null} if there is none
+     */
+    public EventPosition findPositionAtOrAfter(long id) {
+        List<EventPosition> found = jdbcTemplate.query(POSITION_SQL,
+                (rs, rowNum) -> new EventPosition(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime()), id);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Events with an id in ({@code afterId}, {@code beforeId}) written before {@code cutoff} that
+     * no longer carry state needed by replay, in id order.
+     */
+    public List<InventoryEvent> findCompactable(long afterId, long beforeId, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(COMPACTABLE_SQL, EventHistoryRepository::mapEvent,
+                afterId, beforeId, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * @return the events that were deleted by this call, which excludes any another instance
+     *         deleted first
+     */
+    public List<InventoryEvent> deleteEvents(List<InventoryEvent> events) {
+        int[] counts = jdbcTemplate.batchUpdate(DELETE_EVENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, events.get(i).getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+        List<InventoryEvent> deleted = new ArrayList<>(events.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                deleted.add(events.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Adds each summary to the stored aggregate for its product and day.
+     */
+    public void mergeSummaries(List<InventoryDailySummary> summaries) {
+        jdbcTemplate.batchUpdate(MERGE_SUMMARY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                InventoryDailySummary summary = summaries.get(i);
+                ps.setLong(1, summary.productId());
+                ps.setDate(2, Date.valueOf(summary.day()));
+                ps.setLong(3, summary.events());
+                ps.setLong(4, summary.reservations());
+                ps.setLong(5, summary.quantityAdded());
+                ps.setLong(6, summary.quantityRemoved());
+                ps.setLong(7, summary.reservedAdded());
+                ps.setLong(8, summary.reservedReleased());
+                ps.setObject(9, summary.firstSequence());
+                ps.setObject(10, summary.lastSequence());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return summaries.size();
+            }
+        });
+    }
+
+    /**
+     * Stored aggregates for days in [{@code from}, {@code to}).
+     */
+    public List<InventoryDailySummary> findStoredSummaries(long productId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(STORED_SUMMARIES_SQL, SUMMARY_MAPPER, productId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Aggregates computed from the events still in {@code inventory_events}, by day.
+     */
+    public List<InventoryDailySummary> summarizeEvents(long productId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(LIVE_SUMMARIES_SQL, SUMMARY_MAPPER,
+                productId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private static InventoryEvent mapEvent(ResultSet rs, int rowNum) throws SQLException {
+        InventoryEvent event = new InventoryEvent(rs.getLong(2), InventoryEventType.valueOf(rs.getString(3)),
+                rs.getObject(4, Integer.class), rs.getObject(5, Long.class), rs.getObject(6, Integer.class),
+                rs.getObject(7, Integer.class), rs.getObject(8, Integer.class), rs.getTimestamp(9).toLocalDateTime());
+        event.setId(rs.getLong(1));
+        return event;
+    }
+
+    public record EventPosition(long id, LocalDateTime timestamp) {
+    }
+}
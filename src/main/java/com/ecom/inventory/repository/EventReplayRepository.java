@@ -0,0 +1,71 @@
+package com.ecom.inventory.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Range reads used by the replay engine. Every query is bounded by a productId range so that
+ * each fork/join leaf reads only its own slice, and rows are streamed to a callback instead
+ * of being mapped to entities.
+ */
+@Repository
+public class EventReplayRepository {
+
+    private static final String PRODUCT_IDS_SQL =
+            "SELECT product_id FROM inventory_snapshots "
+                    + "UNION SELECT product_id FROM inventory_events WHERE sequence IS NOT NULL "
+                    + "ORDER BY 1";
+
+    private static final String SNAPSHOTS_SQL =
+            "SELECT product_id, sequence, quantity, reserved_quantity, reorder_level FROM inventory_snapshots "
+                    + "WHERE product_id BETWEEN ? AND ?";
+
+    private static final String EVENTS_SQL =
+            "SELECT e.product_id, e.sequence, e.quantity_delta, e.reserved_delta, e.reorder_level "
+                    + "FROM inventory_events e LEFT JOIN inventory_snapshots s ON s.product_id = e.product_id "
+                    + "WHERE e.product_id BETWEEN ? AND ? AND e.sequence > COALESCE(s.sequence, 0) "
+                    + "ORDER BY e.product_id, e.sequence";
+
+    private static final String INVENTORY_SQL =
+            "SELECT product_id, quantity, reserved_quantity, reorder_level FROM inventory "
+                    + "WHERE product_id BETWEEN ? AND ?";
+
+    private static final String BASELINE_SQL =
+            "SELECT i.quantity, i.reserved_quantity, i.reorder_level, MAX(e.sequence), MAX(e.timestamp) "
+                    + "FROM inventory i JOIN inventory_events e ON e.product_id = i.product_id "
+                    + "WHERE i.product_id = ? AND e.sequence IS NOT NULL "
+                    + "GROUP BY i.quantity, i.reserved_quantity, i.reorder_level";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventReplayRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> findProductIds() {
+        return jdbcTemplate.queryForList(PRODUCT_IDS_SQL, Long.class);
+    }
+
+    public void readSnapshots(long firstProductId, long lastProductId, RowCallbackHandler handler) {
+        jdbcTemplate.query(SNAPSHOTS_SQL, handler, firstProductId, lastProductId);
+    }
+
+    public void readEventTail(long firstProductId, long lastProductId, RowCallbackHandler handler) {
+        jdbcTemplate.query(EVENTS_SQL, handler, firstProductId, lastProductId);
+    }
+
+    /**
+     * Reads a product's flushed stock with the highest sequence and the newest timestamp in
+     * its written events, as one row, or no row if it has no sequenced events.
+     */
+    public void readBaseline(long productId, RowCallbackHandler handler) {
+        jdbcTemplate.query(BASELINE_SQL, handler, productId);
+    }
+
+    public void readInventory(long firstProductId, long lastProductId, RowCallbackHandler handler) {
+        jdbcTemplate.query(INVENTORY_SQL, handler, firstProductId, lastProductId);
+    }
+}
@@ -0,0 +1,372 @@
+package com.ecom.inventory.repository;
+
+import com.ecom.inventory.model.HoldStatus;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.model.InventoryEvent;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class InventoryBatchRepository {
+
+    private static final String UPDATE_STOCK_SQL =
+            "UPDATE inventory SET quantity = ?, reserved_quantity = ?, reorder_level = ?, last_updated = ?, "
+                    + "version = ? WHERE product_id = ?";
+
+    private static final String UPDATE_STOCK_IF_UNCHANGED_SQL = UPDATE_STOCK_SQL + " AND COALESCE(version, 0) = ?";
+
+    private static final String ADVANCE_CLOCK_SQL = "UPDATE inventory_clock SET version = version + ? WHERE id = 1";
+
+    private static final String READ_CLOCK_SQL = "SELECT version FROM inventory_clock WHERE id = 1";
+
+    private static final String READ_CLOCK_EPOCH_SQL = "SELECT epoch, version FROM inventory_clock WHERE id = 1";
+
+    private static final String STAMP_CLOCK_EPOCH_SQL = "UPDATE inventory_clock SET epoch = ? WHERE id = 1 AND epoch IS NULL";
+
+    private static final String BACKFILL_VERSIONS_SQL =
+            "UPDATE inventory SET version = (SELECT COALESCE(MAX(version), 0) FROM inventory) + id WHERE version = 0";
+
+    private static final String INSERT_CLOCK_SQL =
+            "INSERT INTO inventory_clock (id, version) SELECT 1, COALESCE(MAX(version), 0) FROM inventory";
+
+    private static final String LOAD_STOCK_SQL =
+            "SELECT i.id, i.product_id, i.quantity, i.reserved_quantity, i.reorder_level, i.last_updated, "
+                    + "GREATEST(COALESCE(e.last_sequence, 0), COALESCE(s.sequence, 0)), COALESCE(i.version, 0) "
+                    + "FROM inventory i LEFT JOIN ("
+                    + "SELECT product_id, MAX(sequence) AS last_sequence FROM inventory_events "
+                    + "WHERE sequence IS NOT NULL GROUP BY product_id) e ON e.product_id = i.product_id "
+                    + "LEFT JOIN inventory_snapshots s ON s.product_id = i.product_id";
+
+    // correlated lookups, so that a handful of changed rows does not aggregate the whole event log
+    private static final String LOAD_CHANGED_STOCK_SQL =
+            "SELECT i.id, i.product_id, i.quantity, i.reserved_quantity, i.reorder_level, i.last_updated, "
+                    + "GREATEST(COALESCE((SELECT MAX(e.sequence) FROM inventory_events e "
+                    + "WHERE e.product_id = i.product_id), 0), COALESCE((SELECT s.sequence FROM inventory_snapshots s "
+                    + "WHERE s.product_id = i.product_id), 0)), i.version FROM inventory i WHERE i.version > ?";
+
+    private static final String INSERT_MISSING_STOCK_SQL =
+            "MERGE INTO inventory t USING (VALUES (CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS INTEGER), "
+                    + "CAST(? AS TIMESTAMP))) s (product_id, quantity, reorder_level, last_updated) "
+                    + "ON t.product_id = s.product_id WHEN NOT MATCHED THEN "
+                    + "INSERT (product_id, quantity, reserved_quantity, reorder_level, last_updated, version) "
+                    + "VALUES (s.product_id, s.quantity, 0, s.reorder_level, s.last_updated, ?)";
+
+    private static final String FIND_STOCK_SQL =
+            "SELECT i.id, i.product_id, i.quantity, i.reserved_quantity, i.reorder_level, i.last_updated, i.version "
+                    + "FROM UNNEST(CAST(? AS BIGINT ARRAY)) AS u (product_id) "
+                    + "JOIN inventory i ON i.product_id = u.product_id";
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO inventory_events (product_id, event_type, quantity, sequence, quantity_delta, reserved_delta, "
+                    + "reorder_level, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String MERGE_EVENT_SQL =
+            "MERGE INTO inventory_events (product_id, event_type, quantity, sequence, quantity_delta, reserved_delta, "
+                    + "reorder_level, timestamp) KEY (product_id, sequence) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_SNAPSHOT_SQL =
+            "MERGE INTO inventory_snapshots (product_id, sequence, quantity, reserved_quantity, reorder_level, taken_at) "
+                    + "KEY (product_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_BASELINE_SNAPSHOTS_SQL =
+            "INSERT INTO inventory_snapshots (product_id, sequence, quantity, reserved_quantity, reorder_level, taken_at) "
+                    + "SELECT i.product_id, 0, i.quantity, i.reserved_quantity, i.reorder_level, ? FROM inventory i "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.product_id = i.product_id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM inventory_events e "
+                    + "WHERE e.product_id = i.product_id AND e.sequence IS NOT NULL)";
+
+    private static final String UPSERT_HOLD_SQL =
+            "MERGE INTO stock_holds (id, product_id, quantity, status, created_at, expires_at) KEY (id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_RESERVATION_SQL =
+            "MERGE INTO reservation_idempotency (idempotency_key, product_id, quantity, available_quantity, hold_id, "
+                    + "hold_expires_at, created_at, expires_at) KEY (idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_EXPIRED_RESERVATIONS_SQL =
+            "DELETE FROM reservation_idempotency WHERE expires_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams every inventory row, with the last sequence written for it and its change-feed
+     * version, to {@code handler}.
+     */
+    public void loadStock(RowCallbackHandler handler) {
+        jdbcTemplate.query(LOAD_STOCK_SQL, handler);
+    }
+
+    /**
+     * Like {@link #loadStock}, for the rows stamped with a change-feed version above
+     * {@code version}.
+     */
+    public void loadStockChangedSince(long version, RowCallbackHandler handler) {
+        jdbcTemplate.query(LOAD_CHANGED_STOCK_SQL, handler, version);
+    }
+
+    /**
+     * Writes the rows back and stamps each with the next change-feed version, in list order.
+     *
+     * @return the highest version handed out
+     */
+    @Transactional
+    public long updateStock(List<StockRow> rows) {
+        long first = advanceClock(rows.size()) - rows.size() + 1;
+        jdbcTemplate.batchUpdate(UPDATE_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockRow row = rows.get(i);
+                ps.setInt(1, row.quantity());
+                ps.setInt(2, row.reservedQuantity());
+                ps.setInt(3, row.reorderLevel());
+                ps.setTimestamp(4, Timestamp.valueOf(row.lastUpdated()));
+                ps.setLong(5, first + i);
+                ps.setLong(6, row.productId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return first + rows.size() - 1;
+    }
+
+    /**
+     * Like {@link #updateStock}, but each row is only written if it is still at
+     * {@code expectedVersions[i]}, the version its writer last read or wrote. A row another
+     * instance has written since is left alone and reported as not written.
+     */
+    @Transactional
+    public StockUpdate updateStockIfUnchanged(List<StockRow> rows, long[] expectedVersions) {
+        long first = advanceClock(rows.size()) - rows.size() + 1;
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STOCK_IF_UNCHANGED_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockRow row = rows.get(i);
+                ps.setInt(1, row.quantity());
+                ps.setInt(2, row.reservedQuantity());
+                ps.setInt(3, row.reorderLevel());
+                ps.setTimestamp(4, Timestamp.valueOf(row.lastUpdated()));
+                ps.setLong(5, first + i);
+                ps.setLong(6, row.productId());
+                ps.setLong(7, expectedVersions[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return new StockUpdate(first, counts);
+    }
+
+    /**
+     * Inserts the rows whose product does not exist yet and leaves existing products untouched.
+     * Inserted rows are stamped with change-feed versions like {@link #updateStock}.
+     *
+     * @return the highest version handed out
+     */
+    @Transactional
+    public long insertMissingStock(List<StockRow> rows) {
+        long first = advanceClock(rows.size()) - rows.size() + 1;
+        jdbcTemplate.batchUpdate(INSERT_MISSING_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockRow row = rows.get(i);
+                ps.setLong(1, row.productId());
+                ps.setInt(2, row.quantity());
+                ps.setInt(3, row.reorderLevel());
+                ps.setTimestamp(4, Timestamp.valueOf(row.lastUpdated()));
+                ps.setLong(5, first + i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return first + rows.size() - 1;
+    }
+
+    /**
+     * @return the last change-feed version handed out by a committed write
+     */
+    public long currentVersion() {
+        List<Long> version = jdbcTemplate.queryForList(READ_CLOCK_SQL, Long.class);
+        return version.isEmpty() ? 0L : version.get(0);
+    }
+
+    /**
+     * @return the clock's epoch and last version, or {@code null} if there is no clock yet
+     */
+    public ClockRow readClock() {
+        List<ClockRow> clock = jdbcTemplate.query(READ_CLOCK_EPOCH_SQL,
+                (rs, rowNum) -> new ClockRow(rs.getString(1), rs.getLong(2)));
+        return clock.isEmpty() ? null : clock.get(0);
+    }
+
+    /**
+     * Creates the change-feed clock if it does not exist yet, first giving every row that
+     * predates the feed a version, so that a consumer starting from zero sees all products.
+     * A clock without an epoch is given one.
+     */
+    @Transactional
+    public void initializeClock() {
+        if (jdbcTemplate.queryForList(READ_CLOCK_SQL, Long.class).isEmpty()) {
+            try {
+                jdbcTemplate.update(BACKFILL_VERSIONS_SQL);
+                jdbcTemplate.update(INSERT_CLOCK_SQL);
+            } catch (DuplicateKeyException ex) {
+                // another instance created it first
+            }
+        }
+        jdbcTemplate.update(STAMP_CLOCK_EPOCH_SQL, UUID.randomUUID().toString());
+    }
+
+    // the clock row stays locked until the caller commits, so versions become visible in order
+    private long advanceClock(int count) {
+        if (jdbcTemplate.update(ADVANCE_CLOCK_SQL, count) == 0) {
+            initializeClock();
+            jdbcTemplate.update(ADVANCE_CLOCK_SQL, count);
+        }
+        return jdbcTemplate.queryForObject(READ_CLOCK_SQL, Long.class);
+    }
+
+    public List<Inventory> findStock(Collection<Long> productIds) {
+        return jdbcTemplate.query(FIND_STOCK_SQL, (rs, rowNum) -> {
+            Inventory inventory = new Inventory(rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5));
+            inventory.setId(rs.getLong(1));
+            Timestamp lastUpdated = rs.getTimestamp(6);
+            inventory.setLastUpdated(lastUpdated != null ? lastUpdated.toLocalDateTime() : null);
+            inventory.setVersion(rs.getLong(7));
+            return inventory;
+        }, (Object) productIds.toArray(Long[]::new));
+    }
+
+    public void insertEvents(List<InventoryEvent> events) {
+        writeEvents(INSERT_EVENT_SQL, events);
+    }
+
+    /**
+     * Inserts sequenced events that are not already stored, matching on productId and sequence.
+     */
+    public void mergeEvents(List<InventoryEvent> events) {
+        writeEvents(MERGE_EVENT_SQL, events);
+    }
+
+    private void writeEvents(String sql, List<InventoryEvent> events) {
+        jdbcTemplate.batchUpdate(sql, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getProductId());
+            ps.setString(2, event.getEventType().name());
+            ps.setObject(3, event.getQuantity());
+            ps.setObject(4, event.getSequence());
+            ps.setObject(5, event.getQuantityDelta());
+            ps.setObject(6, event.getReservedDelta());
+            ps.setObject(7, event.getReorderLevel());
+            ps.setTimestamp(8, Timestamp.valueOf(event.getTimestamp()));
+        });
+    }
+
+    public void upsertSnapshots(List<SnapshotRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.productId());
+            ps.setLong(2, row.sequence());
+            ps.setInt(3, row.quantity());
+            ps.setInt(4, row.reservedQuantity());
+            ps.setInt(5, row.reorderLevel());
+            ps.setTimestamp(6, Timestamp.valueOf(row.takenAt()));
+        });
+    }
+
+    /**
+     * Snapshots, at sequence zero, every inventory row that has neither a snapshot nor any
+     * sequenced event yet, so that rows loaded outside the event log can still be replayed.
+     */
+    public int insertBaselineSnapshots(LocalDateTime takenAt) {
+        return jdbcTemplate.update(INSERT_BASELINE_SNAPSHOTS_SQL, Timestamp.valueOf(takenAt));
+    }
+
+    public void upsertHolds(List<HoldRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_HOLD_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.id());
+            ps.setLong(2, row.productId());
+            ps.setInt(3, row.quantity());
+            ps.setString(4, row.status().name());
+            ps.setTimestamp(5, Timestamp.valueOf(row.createdAt()));
+            ps.setTimestamp(6, Timestamp.valueOf(row.expiresAt()));
+        });
+    }
+
+    public void upsertReservations(List<ReservationRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_RESERVATION_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.idempotencyKey());
+            ps.setLong(2, row.productId());
+            ps.setInt(3, row.quantity());
+            ps.setInt(4, row.availableQuantity());
+            ps.setString(5, row.holdId());
+            ps.setTimestamp(6, row.holdExpiresAt() != null ? Timestamp.valueOf(row.holdExpiresAt()) : null);
+            ps.setTimestamp(7, Timestamp.valueOf(row.createdAt()));
+            ps.setTimestamp(8, Timestamp.valueOf(row.expiresAt()));
+        });
+    }
+
+    public int deleteExpiredReservations(LocalDateTime now) {
+        return jdbcTemplate.update(DELETE_EXPIRED_RESERVATIONS_SQL, Timestamp.valueOf(now));
+    }
+
+    public record ClockRow(String epoch, long version) {
+    }
+
+    public record StockRow(long productId, int quantity, int reservedQuantity, int reorderLevel,
+                           LocalDateTime lastUpdated) {
+    }
+
+    /**
+     * The outcome of {@link #updateStockIfUnchanged}: row {@code i} was stamped with
+     * {@code firstVersion + i} if it was written at all.
+     */
+    public record StockUpdate(long firstVersion, int[] updateCounts) {
+
+        public boolean written(int i) {
+            return updateCounts[i] != 0;
+        }
+
+        public long version(int i) {
+            return firstVersion + i;
+        }
+
+        public long lastVersion() {
+            return firstVersion + updateCounts.length - 1;
+        }
+    }
+
+    public record HoldRow(String id, long productId, int quantity, HoldStatus status, LocalDateTime createdAt,
+                          LocalDateTime expiresAt) {
+    }
+
+    public record SnapshotRow(long productId, long sequence, int quantity, int reservedQuantity, int reorderLevel,
+                              LocalDateTime takenAt) {
+    }
+
+    public record ReservationRow(String idempotencyKey, long productId, int quantity, int availableQuantity,
+                                 String holdId, LocalDateTime holdExpiresAt, LocalDateTime createdAt,
+                                 LocalDateTime expiresAt) {
+    }
+}
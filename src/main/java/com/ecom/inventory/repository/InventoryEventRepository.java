@@ -1,13 +1,42 @@
 package com.ecom.inventory.repository;
 
+import com.ecom.inventory.dto.InventoryEventResponse;
 import com.ecom.inventory.model.InventoryEvent;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface InventoryEventRepository extends JpaRepository<InventoryEvent, Long> {
 
-    List<InventoryEvent> findByProductId(Long productId);
+    @Query("select new com.ecom.inventory.dto.InventoryEventResponse(e.id, e.productId, e.eventType, e.quantity, "
+            + "e.sequence, e.quantityDelta, e.reservedDelta, e.reorderLevel, e.timestamp) "
+            + "from InventoryEvent e where e.productId = :productId and e.id > :after order by e.id")
+    List<InventoryEventResponse> findPageAfter(@Param("productId") Long productId, @Param("after") Long after,
+                                               Limit limit);
+
+    @Query("select new com.ecom.inventory.dto.InventoryEventResponse(e.id, e.productId, e.eventType, e.quantity, "
+            + "e.sequence, e.quantityDelta, e.reservedDelta, e.reorderLevel, e.timestamp) "
+            + "from InventoryEvent e where e.productId = :productId and e.timestamp >= :from and e.timestamp < :to "
+            + "and e.id > :after order by e.id")
+    List<InventoryEventResponse> findRangePageAfter(@Param("productId") Long productId,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("after") Long after,
+                                                    Limit limit);
+
+    /**
+     * Rows of product id and sequence; a product can appear twice, once for its events and
+     * once for its snapshot, which still holds the sequence after its events are compacted.
+     */
+    @Query("select e.productId, max(e.sequence) from InventoryEvent e "
+            + "where e.productId in :productIds and e.sequence is not null group by e.productId "
+            + "union all select s.productId, s.sequence from InventorySnapshot s where s.productId in :productIds")
+    List<Object[]> findLastSequences(@Param("productIds") Collection<Long> productIds);
 }
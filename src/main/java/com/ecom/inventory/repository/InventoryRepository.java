@@ -1,16 +1,55 @@
 package com.ecom.inventory.repository;
 
+import com.ecom.inventory.dto.InventoryChange;
+import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.ProductAvailability;
 import com.ecom.inventory.model.Inventory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findByProductId(Long productId);
 
-    List<Inventory> findByQuantityLessThanEqual(Integer threshold);
+    List<Inventory> findByProductIdIn(Collection<Long> productIds);
+
+    @Query("select new com.ecom.inventory.dto.ProductAvailability(i.productId, i.quantity - i.reservedQuantity) "
+            + "from Inventory i where i.productId in :productIds")
+    List<ProductAvailability> findAvailabilityByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select new com.ecom.inventory.dto.InventoryResponse(i.id, i.productId, i.quantity, i.reservedQuantity, "
+            + "i.quantity - i.reservedQuantity, i.reorderLevel, i.lastUpdated) "
+            + "from Inventory i where i.stockMargin <= 0 and i.productId > :after order by i.productId")
+    List<InventoryResponse> findLowStockPageAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select new com.ecom.inventory.dto.InventoryResponse(i.id, i.productId, i.quantity, i.reservedQuantity, "
+            + "i.quantity - i.reservedQuantity, i.reorderLevel, i.lastUpdated) "
+            + "from Inventory i where i.productId > :after order by i.productId")
+    List<InventoryResponse> findPageAfter(@Param("after") Long after, Limit limit);
+
+    @Query("select new com.ecom.inventory.dto.InventoryChange(i.productId, i.version, i.quantity, i.reservedQuantity, "
+            + "i.quantity - i.reservedQuantity, i.reorderLevel) "
+            + "from Inventory i where i.version > :since order by i.version")
+    List<InventoryChange> findChangesSince(@Param("since") long since, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.ecom.inventory.dto.InventoryResponse(i.id, i.productId, i.quantity, i.reservedQuantity, "
+            + "i.quantity - i.reservedQuantity, i.reorderLevel, i.lastUpdated) "
+            + "from Inventory i order by i.productId")
+    Stream<InventoryResponse> streamAll();
 }
@@ -0,0 +1,97 @@
+package com.ecom.inventory.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fulfillment locations, per-location stock and the per-location split of active holds.
+ * The location ledger keeps all three in memory and writes them back in batches.
+ */
+@Repository
+public class LocationRepository {
+
+    private static final String FIND_LOCATIONS_SQL =
+            "SELECT code, name, latitude, longitude FROM fulfillment_locations ORDER BY code";
+
+    private static final String FIND_STOCK_SQL =
+            "SELECT product_id, location_code, quantity, allocated_quantity, last_updated FROM location_stock "
+                    + "WHERE product_id = ? ORDER BY location_code";
+
+    private static final String UPSERT_STOCK_SQL =
+            "MERGE INTO location_stock (product_id, location_code, quantity, allocated_quantity, last_updated) "
+                    + "KEY (product_id, location_code) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String FIND_ALLOCATIONS_SQL =
+            "SELECT hold_id, product_id, location_code, quantity FROM hold_allocations WHERE hold_id = ? ORDER BY id";
+
+    private static final String DELETE_ALLOCATIONS_SQL = "DELETE FROM hold_allocations WHERE hold_id = ?";
+
+    private static final String INSERT_ALLOCATION_SQL =
+            "INSERT INTO hold_allocations (hold_id, product_id, location_code, quantity) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<LocationRow> findLocations() {
+        return jdbcTemplate.query(FIND_LOCATIONS_SQL, (rs, rowNum) ->
+                new LocationRow(rs.getString(1), rs.getString(2), rs.getDouble(3), rs.getDouble(4)));
+    }
+
+    public List<LocationStockRow> findStock(long productId) {
+        return jdbcTemplate.query(FIND_STOCK_SQL, (rs, rowNum) -> {
+            Timestamp lastUpdated = rs.getTimestamp(5);
+            return new LocationStockRow(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4),
+                    lastUpdated != null ? lastUpdated.toLocalDateTime() : null);
+        }, productId);
+    }
+
+    public void upsertStock(List<LocationStockRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_STOCK_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.productId());
+            ps.setString(2, row.locationCode());
+            ps.setInt(3, row.quantity());
+            ps.setInt(4, row.allocatedQuantity());
+            ps.setTimestamp(5, Timestamp.valueOf(row.lastUpdated()));
+        });
+    }
+
+    public List<AllocationRow> findAllocations(String holdId) {
+        return jdbcTemplate.query(FIND_ALLOCATIONS_SQL, (rs, rowNum) ->
+                new AllocationRow(rs.getString(1), rs.getLong(2), rs.getString(3), rs.getInt(4)), holdId);
+    }
+
+    /**
+     * Replaces the stored split of every hold in {@code holdIds} with {@code rows}; a hold
+     * with no rows ends up with none.
+     */
+    @Transactional
+    public void replaceAllocations(Collection<String> holdIds, List<AllocationRow> rows) {
+        jdbcTemplate.batchUpdate(DELETE_ALLOCATIONS_SQL, holdIds, holdIds.size(),
+                (ps, holdId) -> ps.setString(1, holdId));
+        jdbcTemplate.batchUpdate(INSERT_ALLOCATION_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.holdId());
+            ps.setLong(2, row.productId());
+            ps.setString(3, row.locationCode());
+            ps.setInt(4, row.quantity());
+        });
+    }
+
+    public record LocationRow(String code, String name, double latitude, double longitude) {
+    }
+
+    public record LocationStockRow(long productId, String locationCode, int quantity, int allocatedQuantity,
+                                   LocalDateTime lastUpdated) {
+    }
+
+    public record AllocationRow(String holdId, long productId, String locationCode, int quantity) {
+    }
+}
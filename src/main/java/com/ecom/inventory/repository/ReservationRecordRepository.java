@@ -0,0 +1,15 @@
+package com.ecom.inventory.repository;
+
+import com.ecom.inventory.model.ReservationRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReservationRecordRepository extends JpaRepository<ReservationRecord, String> {
+
+    List<ReservationRecord> findByExpiresAtAfterOrderByCreatedAtDesc(LocalDateTime now, Limit limit);
+}
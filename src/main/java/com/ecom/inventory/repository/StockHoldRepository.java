@@ -0,0 +1,14 @@
+package com.ecom.inventory.repository;
+
+import com.ecom.inventory.model.HoldStatus;
+import com.ecom.inventory.model.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, String> {
+
+    List<StockHold> findByStatus(HoldStatus status);
+}
@@ -0,0 +1,188 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.AllocationRequest;
+import com.ecom.inventory.dto.AllocationResponse;
+import com.ecom.inventory.dto.LineAllocation;
+import com.ecom.inventory.dto.LocationAllocation;
+import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.exception.AllocationStrategyNotFoundException;
+import com.ecom.inventory.exception.InsufficientStockException;
+import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.service.OperationMetrics.Operation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reserves a cart line by line and splits each line over fulfillment locations with an
+ * {@link AllocationStrategy}. Lines for the same product are placed one after another;
+ * different products share no state, so a cart with at least
+ * {@code inventory.locations.parallel-threshold} of them is placed on a dedicated pool, one
+ * task per product. The cart is all-or-nothing: if any line cannot be placed, the holds
+ * already taken for the others are released.
+ */
+@Component
+public class AllocationEngine {
+
+    private final StockLedger stockLedger;
+    private final LocationLedger locationLedger;
+    private final HoldManager holdManager;
+    private final OperationMetrics metrics;
+    private final Map<String, AllocationStrategy> strategies = new LinkedHashMap<>();
+    private final String defaultStrategy;
+    private final int parallelThreshold;
+    private final int maxAttempts;
+    private final ForkJoinPool pool;
+
+    public AllocationEngine(StockLedger stockLedger,
+                            LocationLedger locationLedger,
+                            HoldManager holdManager,
+                            OperationMetrics metrics,
+                            List<AllocationStrategy> strategies,
+                            @Value("${inventory.locations.default-strategy:nearest}") String defaultStrategy,
+                            @Value("${inventory.locations.parallelism:4}") int parallelism,
+                            @Value("${inventory.locations.parallel-threshold:4}") int parallelThreshold,
+                            @Value("${inventory.locations.max-attempts:3}") int maxAttempts) {
+        this.stockLedger = stockLedger;
+        this.locationLedger = locationLedger;
+        this.holdManager = holdManager;
+        this.metrics = metrics;
+        strategies.forEach(strategy -> this.strategies.put(strategy.name(), strategy));
+        this.defaultStrategy = defaultStrategy;
+        this.parallelThreshold = parallelThreshold;
+        this.maxAttempts = maxAttempts;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public AllocationResponse allocate(AllocationRequest request) {
+        return metrics.record(Operation.ALLOCATE, () -> place(request));
+    }
+
+    private AllocationResponse place(AllocationRequest request) {
+        AllocationStrategy strategy = strategy(request.strategy());
+        List<StockReservationRequest> lines = request.lines();
+        Map<Long, List<Integer>> linesByProduct = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            linesByProduct.computeIfAbsent(lines.get(i).productId(), id -> new ArrayList<>()).add(i);
+        }
+        Map<Long, StockCounter> counters = stockLedger.counters(linesByProduct.keySet());
+        for (StockReservationRequest line : lines) {
+            if (!counters.containsKey(line.productId())) {
+                throw new InventoryNotFoundException(line.productId());
+            }
+        }
+
+        Placement[] placements = new Placement[lines.size()];
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Runnable> tasks = new ArrayList<>(linesByProduct.size());
+        linesByProduct.forEach((productId, indexes) -> tasks.add(() -> {
+            StockCounter counter = counters.get(productId);
+            for (int i : indexes) {
+                if (failed.get()) {
+                    return;
+                }
+                placements[i] = place(counter, lines.get(i), strategy, request);
+                if (placements[i].hold() == null) {
+                    failed.set(true);
+                }
+            }
+        }));
+        try {
+            run(tasks);
+        } catch (RuntimeException ex) {
+            releaseAll(placements);
+            throw ex;
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            Placement placement = placements[i];
+            if (placement != null && placement.hold() == null) {
+                releaseAll(placements);
+                throw new InsufficientStockException(lines.get(i).productId(), placement.available(),
+                        lines.get(i).quantity());
+            }
+        }
+
+        List<LineAllocation> allocations = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            Placement placement = placements[i];
+            allocations.add(new LineAllocation(lines.get(i).productId(), lines.get(i).quantity(),
+                    placement.available(), placement.hold().getId(),
+                    HoldManager.toDateTime(placement.hold().getExpiresAtMillis()), placement.locations()));
+        }
+        return new AllocationResponse(strategy.name(), allocations);
+    }
+
+    private Placement place(StockCounter counter, StockReservationRequest line, AllocationStrategy strategy,
+                            AllocationRequest request) {
+        int available = stockLedger.reserve(counter, line.quantity());
+        if (available == StockLedger.REJECTED) {
+            return new Placement(null, counter.getAvailableQuantity(), List.of());
+        }
+        List<LocationAllocation> locations = locationLedger.allocate(counter.getProductId(), line.quantity(),
+                strategy, request.latitude(), request.longitude(), maxAttempts);
+        if (locations == null) {
+            stockLedger.release(counter, line.quantity());
+            return new Placement(null, Math.min(counter.getAvailableQuantity(),
+                    locationLedger.available(counter.getProductId())), List.of());
+        }
+        ReservationHold hold = holdManager.create(counter.getProductId(), line.quantity(), line.holdTtlSeconds());
+        locationLedger.track(hold, locations);
+        return new Placement(hold, available, locations);
+    }
+
+    private void run(List<Runnable> tasks) {
+        if (tasks.size() < Math.max(2, parallelThreshold)) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+        CompletableFuture<?>[] futures = tasks.stream()
+                .map(task -> CompletableFuture.runAsync(task, pool))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void releaseAll(Placement[] placements) {
+        for (Placement placement : placements) {
+            if (placement != null && placement.hold() != null) {
+                holdManager.release(placement.hold().getId());
+            }
+        }
+    }
+
+    private AllocationStrategy strategy(String name) {
+        AllocationStrategy strategy = strategies.get(name != null ? name : defaultStrategy);
+        if (strategy == null) {
+            throw new AllocationStrategyNotFoundException(
+                    "Unknown allocation strategy: " + name + "; expected one of " + strategies.keySet());
+        }
+        return strategy;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The outcome of one line: a hold, or none with the quantity that was available instead.
+     */
+    private record Placement(ReservationHold hold, int available, List<LocationAllocation> locations) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which fulfillment locations a reservation line ships from. Strategies are Spring
+ * beans picked by {@link #name()} in an allocation request; a plan is only a proposal, which
+ * {@link LocationLedger} applies with a compare-and-set per location and asks for again if
+ * another reservation got there first.
+ */
+public interface AllocationStrategy {
+
+    String name();
+
+    /**
+     * @return the units to take per location, adding up to less than {@code quantity} only
+     * if the options do not hold enough
+     */
+    List<LocationAllocation> plan(int quantity, List<LocationOption> options);
+
+    /**
+     * One location's stock as the strategy sees it. {@code distanceKm} is {@code NaN} when
+     * the request gave no destination.
+     */
+    record LocationOption(String locationCode, int quantity, int allocated, double distanceKm) {
+
+        public int available() {
+            return Math.max(0, quantity - allocated);
+        }
+
+        public double load() {
+            return quantity <= 0 ? 1.0 : (double) allocated / quantity;
+        }
+    }
+
+    /**
+     * Takes as much as each location has, in the given order, until {@code quantity} is
+     * covered.
+     */
+    static List<LocationAllocation> fill(int quantity, List<LocationOption> ordered) {
+        List<LocationAllocation> plan = new ArrayList<>();
+        int remaining = quantity;
+        for (LocationOption option : ordered) {
+            if (remaining == 0) {
+                break;
+            }
+            int taken = Math.min(remaining, option.available());
+            if (taken > 0) {
+                plan.add(new LocationAllocation(option.locationCode(), taken));
+                remaining -= taken;
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,201 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.InventoryChange;
+import com.ecom.inventory.dto.InventoryChangePage;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Serves "everything that changed since version N" from the {@code version} column that
+ * {@link InventoryBatchRepository} stamps on every row it writes. A product appears once per
+ * page, at its latest version, however often it changed in between.
+ * <p>
+ * A page's cursor only moves past versions whose writes had committed before the page was
+ * read, so a consumer that always resumes from the last cursor misses no change. Waiting
+ * consumers, long polls and streams alike, are woken when this instance writes stock back,
+ * and every {@code inventory.changes.poll-interval-ms} for writes made by other instances;
+ * subscribers sitting at the same cursor share one query.
+ */
+@Component
+public class ChangeFeed implements SmartInitializingSingleton {
+
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final Duration maxWait;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier;
+
+    private volatile long version;
+
+    public ChangeFeed(InventoryRepository inventoryRepository,
+                      InventoryBatchRepository inventoryBatchRepository,
+                      WorkerThreads workerThreads,
+                      @Value("${inventory.changes.max-wait:25s}") Duration maxWait) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.maxWait = maxWait;
+        this.notifier = Executors.newSingleThreadExecutor(workerThreads.factory("change-feed-notifier"));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        inventoryBatchRepository.initializeClock();
+        refresh();
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public InventoryChangePage changes(long since, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // read first: every version up to here was committed before the query starts
+        long committed = version;
+        List<InventoryChange> changes = inventoryRepository.findChangesSince(since, Limit.of(pageSize));
+        if (changes.size() == pageSize) {
+            return new InventoryChangePage(changes, changes.get(changes.size() - 1).version(), true);
+        }
+        long cursor = Math.max(since, committed);
+        if (!changes.isEmpty()) {
+            cursor = Math.max(cursor, changes.get(changes.size() - 1).version());
+        }
+        return new InventoryChangePage(changes, cursor, false);
+    }
+
+    /**
+     * Answers with the changes after {@code since}, waiting up to {@code wait} (capped at
+     * {@code inventory.changes.max-wait}) for the first one if there is none yet.
+     */
+    public CompletableFuture<InventoryChangePage> poll(long since, int size, Duration wait) {
+        InventoryChangePage page = changes(since, size);
+        if (!page.changes().isEmpty() || page.cursor() != since || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(page);
+        }
+        Waiter waiter = new Waiter(since, new CompletableFuture<>());
+        waiters.add(waiter);
+        if (version > since) {
+            waiter.woken().complete(null);
+        }
+        long timeoutMillis = Math.min(wait.toMillis(), maxWait.toMillis());
+        return waiter.woken()
+                .completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, ex) -> waiters.remove(waiter))
+                .thenApplyAsync(ignored -> changes(since, size), notifier);
+    }
+
+    /**
+     * Sends every page after {@code since} to {@code subscriber}, and from then on each new
+     * page as it is written, on a dedicated thread. A subscriber that throws is dropped.
+     *
+     * @return a handle that cancels the subscription
+     */
+    public Runnable subscribe(long since, int size, Consumer<InventoryChangePage> subscriber) {
+        Subscription subscription = new Subscription(subscriber, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), since);
+        subscriptions.add(subscription);
+        notifier.execute(this::dispatch);
+        return () -> subscriptions.remove(subscription);
+    }
+
+    /**
+     * Records that every version up to {@code committed} has been written and wakes the
+     * consumers waiting for it.
+     */
+    public void published(long committed) {
+        if (committed <= version) {
+            return;
+        }
+        synchronized (this) {
+            if (committed <= version) {
+                return;
+            }
+            version = committed;
+        }
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < committed) {
+                waiter.woken().complete(null);
+            }
+        }
+        if (!subscriptions.isEmpty()) {
+            notifier.execute(this::dispatch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.changes.poll-interval-ms:1000}")
+    public void refresh() {
+        published(inventoryBatchRepository.currentVersion());
+    }
+
+    private void dispatch() {
+        long committed = version;
+        Map<PageKey, InventoryChangePage> pages = new HashMap<>();
+        for (Subscription subscription : subscriptions) {
+            try {
+                while (subscription.cursor < committed) {
+                    InventoryChangePage page = pages.computeIfAbsent(
+                            new PageKey(subscription.cursor, subscription.size), key -> changes(key.since(), key.size()));
+                    if (!page.changes().isEmpty()) {
+                        subscription.subscriber.accept(page);
+                    }
+                    if (page.cursor() == subscription.cursor) {
+                        break;
+                    }
+                    subscription.cursor = page.cursor();
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Change feed subscriber failed, unsubscribing", ex);
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    private record Waiter(long since, CompletableFuture<Void> woken) {
+    }
+
+    private record PageKey(long since, int size) {
+    }
+
+    // only touched by the notifier thread after construction
+    private static final class Subscription {
+        private final Consumer<InventoryChangePage> subscriber;
+        private final int size;
+        private long cursor;
+
+        Subscription(Consumer<InventoryChangePage> subscriber, int size, long cursor) {
+            this.subscriber = subscriber;
+            this.size = size;
+            this.cursor = cursor;
+        }
+    }
+}
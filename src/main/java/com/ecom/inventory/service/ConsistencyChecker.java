@@ -0,0 +1,108 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.ConsistencyReport;
+import com.ecom.inventory.dto.StockMismatch;
+import com.ecom.inventory.repository.EventReplayRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the event log and diffs the result against the {@code inventory} table, range by
+ * range on the replay leaves. Pending events and dirty counters are flushed first, so on a
+ * quiet node every product should match; under live traffic, products changed while the
+ * check runs can show up as transient mismatches.
+ */
+@Component
+public class ConsistencyChecker {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsistencyChecker.class);
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final InventoryReplayer inventoryReplayer;
+    private final EventReplayRepository eventReplayRepository;
+    private final InventoryEventPublisher eventPublisher;
+    private final StockLedgerFlusher stockLedgerFlusher;
+
+    public ConsistencyChecker(InventoryReplayer inventoryReplayer,
+                              EventReplayRepository eventReplayRepository,
+                              InventoryEventPublisher eventPublisher,
+                              StockLedgerFlusher stockLedgerFlusher) {
+        this.inventoryReplayer = inventoryReplayer;
+        this.eventReplayRepository = eventReplayRepository;
+        this.eventPublisher = eventPublisher;
+        this.stockLedgerFlusher = stockLedgerFlusher;
+    }
+
+    public ConsistencyReport check() {
+        long start = System.nanoTime();
+        if (!eventPublisher.flush(FLUSH_TIMEOUT)) {
+            log.warn("Inventory events were still unwritten after {}, checking anyway", FLUSH_TIMEOUT);
+        }
+        stockLedgerFlusher.flush();
+        Tally tally = inventoryReplayer.replay(false, this::check, Tally::plus);
+        return new ConsistencyReport(tally.checked(), tally.mismatchCount(), tally.gaps(), tally.mismatches(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private Tally check(InventoryReplayer.ReplaySlice slice) {
+        Map<Long, ReplayFold> replayed = new HashMap<>(slice.products().size() * 2);
+        long gaps = 0;
+        for (ReplayFold fold : slice.products()) {
+            replayed.put(fold.getProductId(), fold);
+            gaps += fold.getGaps();
+        }
+        List<StockMismatch> mismatches = new ArrayList<>();
+        long[] counts = new long[2];
+        eventReplayRepository.readInventory(slice.firstProductId(), slice.lastProductId(), rs -> {
+            long productId = rs.getLong(1);
+            int quantity = rs.getInt(2);
+            int reservedQuantity = rs.getInt(3);
+            int reorderLevel = rs.getInt(4);
+            ReplayFold fold = replayed.remove(productId);
+            counts[0]++;
+            if (fold == null || fold.getQuantity() != quantity || fold.getReservedQuantity() != reservedQuantity
+                    || fold.getReorderLevel() != reorderLevel) {
+                counts[1]++;
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new StockMismatch(productId,
+                            fold != null ? fold.getQuantity() : null,
+                            fold != null ? fold.getReservedQuantity() : null,
+                            fold != null ? fold.getReorderLevel() : null,
+                            quantity, reservedQuantity, reorderLevel));
+                }
+            }
+        });
+        for (ReplayFold orphan : replayed.values()) {
+            counts[1]++;
+            if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                mismatches.add(new StockMismatch(orphan.getProductId(), orphan.getQuantity(),
+                        orphan.getReservedQuantity(), orphan.getReorderLevel(), null, null, null));
+            }
+        }
+        return new Tally(counts[0], counts[1], gaps, mismatches);
+    }
+
+    private record Tally(long checked, long mismatchCount, long gaps, List<StockMismatch> mismatches) {
+
+        Tally plus(Tally other) {
+            List<StockMismatch> merged = new ArrayList<>(mismatches);
+            for (StockMismatch mismatch : other.mismatches) {
+                if (merged.size() == MAX_REPORTED_MISMATCHES) {
+                    break;
+                }
+                merged.add(mismatch);
+            }
+            return new Tally(checked + other.checked, mismatchCount + other.mismatchCount, gaps + other.gaps,
+                    merged);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.InventoryEventResponse;
+import com.ecom.inventory.model.InventoryEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Raw events removed from {@code inventory_events}, one gzip-compressed NDJSON segment per
+ * day. Each {@link #append} adds a gzip member to the day's segment and forces it to disk;
+ * gzip readers treat concatenated members as one stream, so a segment can be read back, or
+ * piped through {@code zcat}, as a single file. A failed append is truncated away.
+ */
+@Component
+public class EventArchive {
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".ndjson.gz";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public EventArchive(ObjectMapper objectMapper,
+                        @Value("${inventory.history.archive-directory:data/archive}") Path directory) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(InventoryEventResponse.class);
+        this.directory = directory;
+    }
+
+    public Path segment(LocalDate day) {
+        return directory.resolve(SEGMENT_PREFIX + day + SEGMENT_SUFFIX);
+    }
+
+    public void append(List<InventoryEvent> events) {
+        Map<LocalDate, List<InventoryEvent>> byDay = new TreeMap<>();
+        for (InventoryEvent event : events) {
+            byDay.computeIfAbsent(event.getTimestamp().toLocalDate(), day -> new ArrayList<>()).add(event);
+        }
+        try {
+            Files.createDirectories(directory);
+            for (Map.Entry<LocalDate, List<InventoryEvent>> day : byDay.entrySet()) {
+                append(segment(day.getKey()), day.getValue());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to archive inventory events", ex);
+        }
+    }
+
+    private void append(Path segment, List<InventoryEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long start = channel.size();
+            channel.position(start);
+            try {
+                // the channel has to stay open after the gzip stream closes, to be forced
+                try (GZIPOutputStream out = new GZIPOutputStream(unclosable(Channels.newOutputStream(channel)), 65536)) {
+                    for (InventoryEvent event : events) {
+                        out.write(writer.writeValueAsBytes(toResponse(event)));
+                        out.write('\n');
+                    }
+                }
+                channel.force(false);
+            } catch (IOException | RuntimeException ex) {
+                channel.truncate(start);
+                throw ex;
+            }
+        }
+    }
+
+    public List<InventoryEventResponse> read(LocalDate day) {
+        Path segment = segment(day);
+        if (!Files.exists(segment)) {
+            return List.of();
+        }
+        List<InventoryEventResponse> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segment), 65536), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    events.add(objectMapper.readValue(line, InventoryEventResponse.class));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read archive segment " + segment, ex);
+        }
+        return events;
+    }
+
+    private static InventoryEventResponse toResponse(InventoryEvent event) {
+        return new InventoryEventResponse(event.getId(), event.getProductId(), event.getEventType(),
+                event.getQuantity(), event.getSequence(), event.getQuantityDelta(), event.getReservedDelta(),
+                event.getReorderLevel(), event.getTimestamp());
+    }
+
+    private static OutputStream unclosable(OutputStream out) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+        };
+    }
+}
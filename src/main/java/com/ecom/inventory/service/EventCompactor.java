@@ -0,0 +1,178 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.CompactionReport;
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.EventHistoryRepository;
+import com.ecom.inventory.repository.EventHistoryRepository.EventPosition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps {@code inventory_events} down to the retention window. Events are treated as
+ * partitioned by calendar day: once a whole day is older than {@code inventory.history.retention},
+ * its events are folded into per-product rows of {@code inventory_event_aggregates}, written
+ * to the {@link EventArchive} and deleted. Sequenced events are only compacted once a snapshot
+ * covers them, so snapshots are advanced first and replay still finds every event it needs.
+ * <p>
+ * Each chunk is deleted, aggregated and archived in one transaction, and only the rows this
+ * instance actually deleted are counted, so aggregates stay exact when several instances
+ * compact at once. A crash after the archive is forced but before the commit can leave the
+ * same events in the archive twice.
+ */
+@Component
+public class EventCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(EventCompactor.class);
+
+    private final EventHistoryRepository eventHistoryRepository;
+    private final EventArchive eventArchive;
+    private final InventorySnapshotter inventorySnapshotter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Counter archived;
+    private final Lock compactLock = new ReentrantLock();
+
+    public EventCompactor(EventHistoryRepository eventHistoryRepository,
+                          EventArchive eventArchive,
+                          InventorySnapshotter inventorySnapshotter,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventory.history.retention:7d}") Duration retention,
+                          @Value("${inventory.history.batch-size:10000}") int batchSize) {
+        this.eventHistoryRepository = eventHistoryRepository;
+        this.eventArchive = eventArchive;
+        this.inventorySnapshotter = inventorySnapshotter;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("inventory.history.archived")
+                .description("Events moved from inventory_events to the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${inventory.history.compact-interval-ms:3600000}",
+            fixedDelayString = "${inventory.history.compact-interval-ms:3600000}")
+    public void scheduledCompact() {
+        try {
+            CompactionReport report = compact();
+            if (report.eventsArchived() > 0) {
+                log.info("Archived {} inventory events before {} in {} ms",
+                        report.eventsArchived(), report.cutoff(), report.durationMillis());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to compact inventory events", ex);
+        }
+    }
+
+    /**
+     * Compacts every day that ended more than the retention period ago.
+     */
+    public CompactionReport compact() {
+        return compact(LocalDateTime.now().minus(retention).toLocalDate().atStartOfDay());
+    }
+
+    CompactionReport compact(LocalDateTime cutoff) {
+        compactLock.lock();
+        try {
+            long start = System.nanoTime();
+            inventorySnapshotter.takeSnapshots();
+            Long firstId = eventHistoryRepository.findFirstId();
+            long events = 0;
+            long summaries = 0;
+            if (firstId != null) {
+                long boundary = boundary(firstId, eventHistoryRepository.findLastId() + 1, cutoff);
+                long after = firstId - 1;
+                List<InventoryEvent> chunk;
+                do {
+                    chunk = eventHistoryRepository.findCompactable(after, boundary, cutoff, batchSize);
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    after = chunk.get(chunk.size() - 1).getId();
+                    List<InventoryEvent> candidates = chunk;
+                    long[] written = transactionTemplate.execute(status -> compactChunk(candidates));
+                    events += written[0];
+                    summaries += written[1];
+                } while (chunk.size() == batchSize);
+            }
+            archived.increment(events);
+            return new CompactionReport(cutoff, events, summaries,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    private long[] compactChunk(List<InventoryEvent> candidates) {
+        List<InventoryEvent> deleted = eventHistoryRepository.deleteEvents(candidates);
+        if (deleted.isEmpty()) {
+            return new long[2];
+        }
+        List<InventoryDailySummary> summaries = summarize(deleted);
+        eventHistoryRepository.mergeSummaries(summaries);
+        eventArchive.append(deleted);
+        return new long[]{deleted.size(), summaries.size()};
+    }
+
+    /**
+     * The first id in [{@code firstId}, {@code endId}) whose event is not before the cutoff.
+     * Ids are assigned in write order, so a binary search over the primary key finds where the
+     * retained days begin without an index on the timestamp.
+     */
+    private long boundary(long firstId, long endId, LocalDateTime cutoff) {
+        long low = firstId;
+        long high = endId;
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            EventPosition position = eventHistoryRepository.findPositionAtOrAfter(mid);
+            if (position == null || position.id() >= high || !position.timestamp().isBefore(cutoff)) {
+                high = mid;
+            } else {
+                low = position.id() + 1;
+            }
+        }
+        return low;
+    }
+
+    static List<InventoryDailySummary> summarize(List<InventoryEvent> events) {
+        Map<DayKey, InventoryDailySummary> summaries = new LinkedHashMap<>();
+        for (InventoryEvent event : events) {
+            LocalDate day = event.getTimestamp().toLocalDate();
+            summaries.merge(new DayKey(event.getProductId(), day), summarize(event, day), InventoryDailySummary::plus);
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    private static InventoryDailySummary summarize(InventoryEvent event, LocalDate day) {
+        int quantityDelta = event.getQuantityDelta() != null ? event.getQuantityDelta() : 0;
+        int reservedDelta = event.getReservedDelta() != null ? event.getReservedDelta() : 0;
+        return new InventoryDailySummary(event.getProductId(), day, 1,
+                event.getEventType() == InventoryEventType.STOCK_RESERVED ? 1 : 0,
+                Math.max(quantityDelta, 0), Math.max(-quantityDelta, 0),
+                Math.max(reservedDelta, 0), Math.max(-reservedDelta, 0),
+                event.getSequence(), event.getSequence());
+    }
+
+    private record DayKey(Long productId, LocalDate day) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ships from the nearest location that can cover the whole line on its own, and otherwise
+ * from the fullest locations first, so that a line is split into as few shipments as a
+ * greedy pass can manage.
+ */
+@Component
+public class FewestSplitsStrategy implements AllocationStrategy {
+
+    private static final Comparator<LocationOption> FULLEST =
+            Comparator.comparingInt(LocationOption::available).reversed();
+
+    @Override
+    public String name() {
+        return "fewest-splits";
+    }
+
+    @Override
+    public List<LocationAllocation> plan(int quantity, List<LocationOption> options) {
+        return options.stream()
+                .filter(option -> option.available() >= quantity)
+                .min(NearestLocationStrategy.NEAREST)
+                .map(option -> List.of(new LocationAllocation(option.locationCode(), quantity)))
+                .orElseGet(() -> AllocationStrategy.fill(quantity, options.stream().sorted(FULLEST).toList()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecom.inventory.service;
+
+/**
+ * Notified after {@link HoldManager} has moved a hold's units on the {@link StockLedger}.
+ * {@code quantity} is what was moved; a partly released hold is still active.
+ */
+public interface HoldListener {
+
+    /**
+     * Called when units of a hold go back to available stock, whether it was released,
+     * expired or drawn down by a release that named only the product.
+     */
+    void onHoldReleased(ReservationHold hold, int quantity);
+
+    void onHoldConfirmed(ReservationHold hold, int quantity);
+}
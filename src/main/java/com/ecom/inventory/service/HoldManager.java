@@ -0,0 +1,472 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.exception.HoldNotActiveException;
+import com.ecom.inventory.exception.HoldNotFoundException;
+import com.ecom.inventory.model.HoldStatus;
+import com.ecom.inventory.model.StockHold;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.HoldRow;
+import com.ecom.inventory.repository.StockHoldRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Owns reservation holds. Every reservation becomes an {@link ReservationHold} with a TTL
+ * tracked by a {@link TimingWheel}; expired holds are released once per tick with a single
+ * ledger update and event per product. Hold rows are written behind in JDBC batches and
+ * active holds are reloaded from {@code stock_holds} on startup.
+ * <p>
+ * Expiry publishes events from its own thread, so it runs as a lifecycle component in
+ * {@link InventoryEventPublisher#PRODUCER_PHASE} and has finished before the publisher
+ * stops.
+ */
+@Component
+public class HoldManager implements SmartInitializingSingleton, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldManager.class);
+
+    private final StockLedger stockLedger;
+    private final StockHoldRepository stockHoldRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final long tickMillis;
+    private final TimingWheel<ReservationHold> wheel;
+    private final Map<String, ReservationHold> holds = new ConcurrentHashMap<>();
+    private final Map<String, ReservationHold> closedHolds = new ConcurrentHashMap<>();
+    private final Map<Long, ProductHolds> holdsByProduct = new ConcurrentHashMap<>();
+    private final Queue<ReservationHold> dirtyHolds = new ConcurrentLinkedQueue<>();
+    private final WorkerThreads workerThreads;
+    private volatile ScheduledExecutorService ticker;
+    private final Lock flushLock = new ReentrantLock();
+    private final List<HoldListener> listeners;
+
+    public HoldManager(StockLedger stockLedger,
+                       StockHoldRepository stockHoldRepository,
+                       InventoryBatchRepository inventoryBatchRepository,
+                       WorkerThreads workerThreads,
+                       List<HoldListener> listeners,
+                       @Value("${inventory.holds.default-ttl:15m}") Duration defaultTtl,
+                       @Value("${inventory.holds.max-ttl:24h}") Duration maxTtl,
+                       @Value("${inventory.holds.tick-ms:1000}") long tickMillis,
+                       @Value("${inventory.holds.wheel-size:4096}") int wheelSize) {
+        this.stockLedger = stockLedger;
+        this.stockHoldRepository = stockHoldRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.workerThreads = workerThreads;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<StockHold> active = stockHoldRepository.findByStatus(HoldStatus.ACTIVE);
+        for (StockHold stored : active) {
+            track(new ReservationHold(stored.getId(), stored.getProductId(), stored.getQuantity(),
+                    HoldStatus.ACTIVE, stored.getCreatedAt(), toMillis(stored.getExpiresAt())));
+        }
+        log.info("Restored {} active stock holds", active.size());
+    }
+
+    @Override
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("hold-expiry"));
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // waits for a tick in progress, so that its releases are queued before the publisher stops
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = ticker;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Hold expiry did not finish within 10s of shutdown");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        ticker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticker != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return InventoryEventPublisher.PRODUCER_PHASE;
+    }
+
+    public ReservationHold create(Long productId, int quantity, Integer ttlSeconds) {
+        ReservationHold hold = new ReservationHold(UUID.randomUUID().toString(), productId, quantity,
+                HoldStatus.ACTIVE, LocalDateTime.now(), System.currentTimeMillis() + ttl(ttlSeconds).toMillis());
+        track(hold);
+        markDirty(hold);
+        return hold;
+    }
+
+    public ReservationHold find(String holdId) {
+        ReservationHold hold = holds.get(holdId);
+        if (hold == null) {
+            hold = closedHolds.get(holdId);
+        }
+        if (hold != null) {
+            return hold;
+        }
+        return stockHoldRepository.findById(holdId)
+                .map(stored -> new ReservationHold(stored.getId(), stored.getProductId(), stored.getQuantity(),
+                        stored.getStatus(), stored.getCreatedAt(), toMillis(stored.getExpiresAt())))
+                .orElseThrow(() -> new HoldNotFoundException("Hold not found: " + holdId));
+    }
+
+    public ReservationHold extend(String holdId, Integer ttlSeconds) {
+        ReservationHold hold = active(holdId);
+        long expiresAt = System.currentTimeMillis() + ttl(ttlSeconds).toMillis();
+        if (!hold.extend(expiresAt)) {
+            throw new HoldNotActiveException("Hold is no longer active: " + holdId);
+        }
+        wheel.schedule(hold, expiresAt);
+        markDirty(hold);
+        return hold;
+    }
+
+    public ReservationHold release(String holdId) {
+        ReservationHold hold = active(holdId);
+        int quantity = hold.close(HoldStatus.RELEASED);
+        if (quantity == 0) {
+            throw new HoldNotActiveException("Hold is no longer active: " + holdId);
+        }
+        stockLedger.release(stockLedger.counter(hold.getProductId()), quantity);
+        retire(hold);
+        released(hold, quantity);
+        return hold;
+    }
+
+    public ReservationHold confirm(String holdId) {
+        ReservationHold hold = active(holdId);
+        int quantity = hold.close(HoldStatus.CONFIRMED);
+        if (quantity == 0) {
+            throw new HoldNotActiveException("Hold is no longer active: " + holdId);
+        }
+        stockLedger.commit(stockLedger.counter(hold.getProductId()), quantity);
+        retire(hold);
+        for (HoldListener listener : listeners) {
+            listener.onHoldConfirmed(hold, quantity);
+        }
+        return hold;
+    }
+
+    /**
+     * Releases {@code amount} units of a product without naming a hold. Active holds are drawn
+     * down oldest first; anything beyond them comes out of reserved stock that no hold tracks,
+     * such as reservations loaded from the table before holds existed.
+     *
+     * @return the units actually released
+     */
+    public int releaseByProduct(StockCounter counter, int amount) {
+        int fromHolds = 0;
+        ProductHolds productHolds = holdsByProduct.get(counter.getProductId());
+        if (productHolds != null) {
+            for (ReservationHold hold : productHolds.oldestFirst) {
+                if (fromHolds == amount) {
+                    break;
+                }
+                int taken = hold.shrink(amount - fromHolds);
+                if (taken > 0) {
+                    productHolds.held.addAndGet(-taken);
+                    fromHolds += taken;
+                    released(hold, taken);
+                }
+                if (hold.getStatus() != HoldStatus.ACTIVE) {
+                    retire(hold);
+                } else if (taken > 0) {
+                    markDirty(hold);
+                }
+            }
+        }
+        int held = productHolds != null ? productHolds.held.get() : 0;
+        int untracked = Math.max(0, counter.getReservedQuantity() - fromHolds - held);
+        return stockLedger.release(counter, fromHolds + Math.min(amount - fromHolds, untracked));
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    /**
+     * @return the product a hold was taken on, or {@code null} if the hold is unknown
+     */
+    public Long productOf(String holdId) {
+        ReservationHold hold = holds.get(holdId);
+        if (hold == null) {
+            hold = closedHolds.get(holdId);
+        }
+        if (hold != null) {
+            return hold.getProductId();
+        }
+        return stockHoldRepository.findById(holdId).map(StockHold::getProductId).orElse(null);
+    }
+
+    /**
+     * Stops tracking the active holds on products matching {@code productIds} and writes
+     * them out, leaving them active in {@code stock_holds} for the instance that takes the
+     * products over.
+     *
+     * @return the number of holds handed off
+     */
+    public int handOff(LongPredicate productIds) {
+        List<ReservationHold> handedOff = new ArrayList<>();
+        for (ReservationHold hold : holds.values()) {
+            if (productIds.test(hold.getProductId()) && holds.remove(hold.getId(), hold)) {
+                handedOff.add(hold);
+            }
+        }
+        // dropped whole: a handed-off hold stays active, so its units cannot be settled here
+        holdsByProduct.keySet().removeIf(productIds::test);
+        flush();
+        return handedOff.size();
+    }
+
+    /**
+     * Starts tracking the active holds stored for products matching {@code productIds}.
+     *
+     * @return the number of holds adopted
+     */
+    public int adopt(LongPredicate productIds) {
+        int adopted = 0;
+        for (StockHold stored : stockHoldRepository.findByStatus(HoldStatus.ACTIVE)) {
+            if (productIds.test(stored.getProductId()) && adopt(stored) != null) {
+                adopted++;
+            }
+        }
+        return adopted;
+    }
+
+    private ReservationHold adopt(StockHold stored) {
+        ReservationHold hold = new ReservationHold(stored.getId(), stored.getProductId(), stored.getQuantity(),
+                HoldStatus.ACTIVE, stored.getCreatedAt(), toMillis(stored.getExpiresAt()));
+        if (closedHolds.containsKey(hold.getId()) || holds.putIfAbsent(hold.getId(), hold) != null) {
+            return null;
+        }
+        schedule(hold);
+        return hold;
+    }
+
+    void expireDue() {
+        try {
+            long now = System.currentTimeMillis();
+            Map<Long, Integer> expiredByProduct = new HashMap<>();
+            List<ReservationHold> expired = new ArrayList<>();
+            for (ReservationHold hold : wheel.advance(now)) {
+                // a hold handed off to another instance is still on the wheel but no longer ours
+                if (hold.getStatus() != HoldStatus.ACTIVE || hold.getExpiresAtMillis() > now
+                        || holds.get(hold.getId()) != hold) {
+                    continue;
+                }
+                int quantity = hold.close(HoldStatus.EXPIRED);
+                if (quantity > 0) {
+                    expiredByProduct.merge(hold.getProductId(), quantity, Integer::sum);
+                    expired.add(hold);
+                    retire(hold);
+                }
+            }
+            if (expiredByProduct.isEmpty()) {
+                return;
+            }
+            expiredByProduct.forEach((productId, quantity) -> {
+                StockCounter counter = stockLedger.find(productId);
+                if (counter != null) {
+                    stockLedger.release(counter, quantity);
+                }
+            });
+            for (ReservationHold hold : expired) {
+                released(hold, hold.getQuantity());
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to expire stock holds", ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.holds.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushDirtyHolds();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushDirtyHolds() {
+        List<ReservationHold> dirty = new ArrayList<>();
+        ReservationHold hold;
+        while ((hold = dirtyHolds.poll()) != null) {
+            hold.clearDirty();
+            dirty.add(hold);
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<HoldRow> rows = new ArrayList<>(dirty.size());
+        for (ReservationHold changed : dirty) {
+            rows.add(new HoldRow(changed.getId(), changed.getProductId(), changed.getQuantity(),
+                    changed.getStatus(), changed.getCreatedAt(), toDateTime(changed.getExpiresAtMillis())));
+        }
+        try {
+            inventoryBatchRepository.upsertHolds(rows);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} stock holds, will retry", rows.size(), ex);
+            dirty.forEach(this::markDirty);
+            return;
+        }
+        for (ReservationHold written : dirty) {
+            if (written.getStatus() != HoldStatus.ACTIVE && !written.isDirty()) {
+                closedHolds.remove(written.getId(), written);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /*
+     * A hold that is active in the table but not in memory was taken by another instance,
+     * before its products moved here; it is adopted on first use.
+     */
+    private ReservationHold active(String holdId) {
+        ReservationHold hold = holds.get(holdId);
+        if (hold != null) {
+            return hold;
+        }
+        if (!closedHolds.containsKey(holdId)) {
+            StockHold stored = stockHoldRepository.findById(holdId)
+                    .orElseThrow(() -> new HoldNotFoundException("Hold not found: " + holdId));
+            if (stored.getStatus() == HoldStatus.ACTIVE) {
+                adopt(stored);
+                hold = holds.get(holdId);
+                if (hold != null) {
+                    return hold;
+                }
+            }
+        }
+        throw new HoldNotActiveException("Hold is no longer active: " + holdId);
+    }
+
+    private void track(ReservationHold hold) {
+        holds.put(hold.getId(), hold);
+        schedule(hold);
+    }
+
+    private void schedule(ReservationHold hold) {
+        holdsByProduct.computeIfAbsent(hold.getProductId(), id -> new ProductHolds()).add(hold);
+        wheel.schedule(hold, hold.getExpiresAtMillis());
+    }
+
+    /*
+     * Closed holds stay readable from memory until their final status has been flushed, so a
+     * lookup right after confirm or release never misses the row that is still being written.
+     */
+    private void retire(ReservationHold hold) {
+        closedHolds.put(hold.getId(), hold);
+        holds.remove(hold.getId());
+        ProductHolds productHolds = holdsByProduct.get(hold.getProductId());
+        if (productHolds != null) {
+            productHolds.remove(hold);
+        }
+        markDirty(hold);
+    }
+
+    private void released(ReservationHold hold, int quantity) {
+        for (HoldListener listener : listeners) {
+            listener.onHoldReleased(hold, quantity);
+        }
+    }
+
+    private void markDirty(ReservationHold hold) {
+        if (hold.markDirty()) {
+            dirtyHolds.add(hold);
+        }
+    }
+
+    private Duration ttl(Integer ttlSeconds) {
+        if (ttlSeconds == null) {
+            return defaultTtl;
+        }
+        Duration requested = Duration.ofSeconds(ttlSeconds);
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /*
+     * A product's active holds, oldest first, and the units they hold between them. Units
+     * leave the total exactly once: when a hold is shrunk, or when it is removed, by which
+     * time it has been closed and its quantity no longer changes.
+     */
+    private static final class ProductHolds {
+
+        private static final Comparator<ReservationHold> CREATION_ORDER =
+                Comparator.comparing(ReservationHold::getCreatedAt).thenComparingLong(ReservationHold::getInstance);
+
+        final NavigableSet<ReservationHold> oldestFirst = new ConcurrentSkipListSet<>(CREATION_ORDER);
+        final AtomicInteger held = new AtomicInteger();
+
+        void add(ReservationHold hold) {
+            if (oldestFirst.add(hold)) {
+                held.addAndGet(hold.getQuantity());
+            }
+        }
+
+        void remove(ReservationHold hold) {
+            if (oldestFirst.remove(hold)) {
+                held.addAndGet(-hold.getQuantity());
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.ecom.inventory.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the products taking the most stock changes and rejected reservations, with
+ * Space-Saving sketches of {@code inventory.metrics.hot-products.capacity} entries fed by one
+ * in {@code sample-rate} of those requests, so memory stays fixed however many products are
+ * hit.
+ * <p>
+ * There is one sketch per stripe, about one per processor. A sample goes to a random stripe
+ * and moves on to the next one if its lock is taken, so request threads do not queue behind
+ * each other. Each sketch keeps its entries in a min-heap on count, so an increment or an
+ * eviction of the smallest entry costs O(log capacity) rather than a scan.
+ * <p>
+ * Every {@code window-ms} the top {@code top} products are published as gauges keyed by rank
+ * rather than by productId, which keeps the series count fixed: the product at each rank,
+ * its estimated request rate, and how many compare-and-sets per second lost a race on its
+ * counter. The sketch then starts over.
+ */
+@Component
+public class HotProducts implements StockChangeListener {
+
+    private final int sampleRate;
+    private final Stripe[] stripes;
+    private volatile Ranking ranking;
+    private long windowStart = System.currentTimeMillis();
+
+    public HotProducts(MeterRegistry meterRegistry,
+                       @Value("${inventory.metrics.hot-products.top:10}") int top,
+                       @Value("${inventory.metrics.hot-products.capacity:64}") int capacity,
+                       @Value("${inventory.metrics.hot-products.sample-rate:8}") int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Math.max(capacity, top));
+        }
+        this.ranking = Ranking.empty(top);
+        for (int i = 0; i < top; i++) {
+            int rank = i;
+            String tag = Integer.toString(i + 1);
+            Gauge.builder("inventory.hot.products.id", this, hot -> hot.ranking.productIds[rank])
+                    .description("ProductId at this rank of request rate, NaN when unranked")
+                    .tag("rank", tag)
+                    .register(meterRegistry);
+            Gauge.builder("inventory.hot.products.rate", this, hot -> hot.ranking.rates[rank])
+                    .description("Estimated stock requests per second for the product at this rank")
+                    .baseUnit("requests")
+                    .tag("rank", tag)
+                    .register(meterRegistry);
+            Gauge.builder("inventory.hot.products.contention", this, hot -> hot.ranking.contention[rank])
+                    .description("Lost compare-and-sets per second on the counter of the product at this rank")
+                    .tag("rank", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void onStockChanged(StockCounter counter, long previousState, long currentState) {
+        sample(counter);
+    }
+
+    @Override
+    public void onReservationRejected(StockCounter counter) {
+        sample(counter);
+    }
+
+    /**
+     * @return the current ranking, hottest first
+     */
+    public List<Long> top() {
+        Ranking current = ranking;
+        List<Long> top = new ArrayList<>();
+        for (double productId : current.productIds) {
+            if (!Double.isNaN(productId)) {
+                top.add((long) productId);
+            }
+        }
+        return top;
+    }
+
+    private void sample(StockCounter counter) {
+        int random = ThreadLocalRandom.current().nextInt();
+        if (sampleRate > 1 && Integer.remainderUnsigned(random, sampleRate) != 0) {
+            return;
+        }
+        int mask = stripes.length - 1;
+        int first = (random >>> 16) & mask;
+        for (int i = 0; i <= mask; i++) {
+            Stripe stripe = stripes[(first + i) & mask];
+            if (stripe.lock.tryLock()) {
+                try {
+                    stripe.add(counter);
+                } finally {
+                    stripe.lock.unlock();
+                }
+                return;
+            }
+        }
+        Stripe stripe = stripes[first];
+        stripe.lock.lock();
+        try {
+            stripe.add(counter);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${inventory.metrics.hot-products.window-ms:10000}")
+    public void rotate() {
+        Map<Long, Entry> merged = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            List<Entry> drained;
+            stripe.lock.lock();
+            try {
+                drained = stripe.drain();
+            } finally {
+                stripe.lock.unlock();
+            }
+            for (Entry entry : drained) {
+                merged.merge(entry.counter.getProductId(), entry, Entry::plus);
+            }
+        }
+        long now = System.currentTimeMillis();
+        long elapsed = Math.max(1, now - windowStart);
+        windowStart = now;
+        List<Entry> window = new ArrayList<>(merged.values());
+        window.sort(Comparator.comparingLong((Entry entry) -> entry.count).reversed());
+        int top = ranking.productIds.length;
+        Ranking next = Ranking.empty(top);
+        double seconds = elapsed / 1000.0;
+        for (int i = 0; i < Math.min(top, window.size()); i++) {
+            Entry entry = window.get(i);
+            next.productIds[i] = entry.counter.getProductId();
+            next.rates[i] = entry.count * sampleRate / seconds;
+            next.contention[i] = (entry.counter.getCasRetries() - entry.casRetriesAtStart) / seconds;
+        }
+        ranking = next;
+    }
+
+    /*
+     * A Space-Saving sketch whose entries form a min-heap on count, each entry knowing its
+     * heap position, so the smallest entry is always at the root.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Entry> entries;
+        private final Entry[] heap;
+        private int size;
+
+        Stripe(int capacity) {
+            this.entries = new HashMap<>(capacity * 2);
+            this.heap = new Entry[capacity];
+        }
+
+        void add(StockCounter counter) {
+            Entry entry = entries.get(counter.getProductId());
+            if (entry != null) {
+                entry.count++;
+                siftDown(entry.position);
+                return;
+            }
+            if (size == heap.length) {
+                // Space-Saving: the newcomer inherits the smallest count as its overestimate
+                Entry smallest = heap[0];
+                entries.remove(smallest.counter.getProductId());
+                entry = new Entry(counter, smallest.count + 1, counter.getCasRetries());
+                place(entry, 0);
+                siftDown(0);
+            } else {
+                entry = new Entry(counter, 1, counter.getCasRetries());
+                place(entry, size++);
+                siftUp(entry.position);
+            }
+            entries.put(counter.getProductId(), entry);
+        }
+
+        List<Entry> drain() {
+            List<Entry> drained = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+            Arrays.fill(heap, 0, size, null);
+            size = 0;
+            entries.clear();
+            return drained;
+        }
+
+        private void siftUp(int position) {
+            Entry entry = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (heap[parent].count <= entry.count) {
+                    break;
+                }
+                place(heap[parent], position);
+                position = parent;
+            }
+            place(entry, position);
+        }
+
+        private void siftDown(int position) {
+            Entry entry = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                    child++;
+                }
+                if (entry.count <= heap[child].count) {
+                    break;
+                }
+                place(heap[child], position);
+                position = child;
+            }
+            place(entry, position);
+        }
+
+        private void place(Entry entry, int position) {
+            heap[position] = entry;
+            entry.position = position;
+        }
+    }
+
+    private static final class Entry {
+        private final StockCounter counter;
+        private final int casRetriesAtStart;
+        private long count;
+        private int position;
+
+        Entry(StockCounter counter, long count, int casRetriesAtStart) {
+            this.counter = counter;
+            this.count = count;
+            this.casRetriesAtStart = casRetriesAtStart;
+        }
+
+        // the same product sampled on two stripes; the retry counter wraps, so compare by difference
+        Entry plus(Entry other) {
+            int casRetriesAtStart = other.casRetriesAtStart - this.casRetriesAtStart < 0
+                    ? other.casRetriesAtStart : this.casRetriesAtStart;
+            return new Entry(counter, count + other.count, casRetriesAtStart);
+        }
+    }
+
+    private record Ranking(double[] productIds, double[] rates, double[] contention) {
+
+        static Ranking empty(int top) {
+            double[] productIds = new double[top];
+            Arrays.fill(productIds, Double.NaN);
+            return new Ranking(productIds, new double[top], new double[top]);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.dto.StockReservationResponse;
+import com.ecom.inventory.exception.IdempotencyKeyReusedException;
+import com.ecom.inventory.model.ReservationRecord;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.ReservationRow;
+import com.ecom.inventory.repository.ReservationRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of every keyed reservation for {@code inventory.idempotency.ttl} so a
+ * retried request gets the original response back instead of reserving again.
+ * <p>
+ * Keys live in a bounded Caffeine cache and are written behind to
+ * {@code reservation_idempotency}. Unexpired rows are loaded back on startup, so as long as
+ * nothing has been evicted for size, a cache miss means the key is new and the table is never
+ * read on the request path. Concurrent requests with the same key wait for the first one;
+ * failed reservations are not remembered and can be retried.
+ */
+@Component
+public class IdempotencyStore implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final ReservationRecordRepository reservationRecordRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final Duration ttl;
+    private final long maximumSize;
+    private final Cache<String, CompletableFuture<Outcome>> outcomes;
+    private final Queue<ReservationRow> pending = new ConcurrentLinkedQueue<>();
+    private final Lock flushLock = new ReentrantLock();
+    private volatile boolean complete;
+
+    public IdempotencyStore(ReservationRecordRepository reservationRecordRepository,
+                            InventoryBatchRepository inventoryBatchRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${inventory.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${inventory.idempotency.maximum-size:1000000}") long maximumSize) {
+        this.reservationRecordRepository = reservationRecordRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.ttl = ttl;
+        this.maximumSize = maximumSize;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .evictionListener((String key, CompletableFuture<Outcome> outcome, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        complete = false;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, "reservation-idempotency");
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int limit = (int) Math.min(maximumSize, Integer.MAX_VALUE);
+        List<ReservationRecord> records = reservationRecordRepository
+                .findByExpiresAtAfterOrderByCreatedAtDesc(LocalDateTime.now(), Limit.of(limit));
+        for (ReservationRecord record : records) {
+            outcomes.put(record.getIdempotencyKey(), CompletableFuture.completedFuture(toOutcome(record)));
+        }
+        complete = records.size() < maximumSize;
+        log.info("Restored {} idempotency keys", records.size());
+    }
+
+    public StockReservationResponse execute(StockReservationRequest request,
+                                            Supplier<StockReservationResponse> reservation) {
+        String key = request.idempotencyKey();
+        while (true) {
+            CompletableFuture<Outcome> claim = new CompletableFuture<>();
+            CompletableFuture<Outcome> existing = outcomes.asMap().putIfAbsent(key, claim);
+            if (existing == null) {
+                return replay(key, run(key, request, claim, reservation), request);
+            }
+            try {
+                return replay(key, existing.join(), request);
+            } catch (CompletionException ex) {
+                // the first attempt failed and gave its key up; this one reserves instead
+            }
+        }
+    }
+
+    private Outcome run(String key, StockReservationRequest request, CompletableFuture<Outcome> claim,
+                        Supplier<StockReservationResponse> reservation) {
+        try {
+            Outcome outcome = complete ? null : reservationRecordRepository.findById(key)
+                    .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                    .map(IdempotencyStore::toOutcome)
+                    .orElse(null);
+            if (outcome == null) {
+                outcome = new Outcome(request.productId(), request.quantity(), reservation.get());
+                pending.add(toRow(key, outcome));
+            }
+            claim.complete(outcome);
+            return outcome;
+        } catch (RuntimeException ex) {
+            outcomes.asMap().remove(key, claim);
+            claim.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static StockReservationResponse replay(String key, Outcome outcome, StockReservationRequest request) {
+        if (!outcome.productId().equals(request.productId()) || !outcome.quantity().equals(request.quantity())) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + key
+                    + " was already used for a different reservation");
+        }
+        return outcome.response();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.idempotency.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<ReservationRow> rows = new ArrayList<>();
+            ReservationRow row;
+            while ((row = pending.poll()) != null) {
+                rows.add(row);
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                inventoryBatchRepository.upsertReservations(rows);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to flush {} idempotency keys, will retry", rows.size(), ex);
+                pending.addAll(rows);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        int purged = inventoryBatchRepository.deleteExpiredReservations(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private ReservationRow toRow(String key, Outcome outcome) {
+        StockReservationResponse response = outcome.response();
+        LocalDateTime now = LocalDateTime.now();
+        return new ReservationRow(key, outcome.productId(), outcome.quantity(), response.availableQuantity(),
+                response.holdId(), response.expiresAt(), now, now.plus(ttl));
+    }
+
+    private static Outcome toOutcome(ReservationRecord record) {
+        return new Outcome(record.getProductId(), record.getQuantity(), new StockReservationResponse(
+                record.getProductId(),
+                true,
+                record.getAvailableQuantity(),
+                "Stock reserved successfully",
+                record.getHoldId(),
+                record.getHoldExpiresAt()));
+    }
+
+    private record Outcome(Long productId, Integer quantity, StockReservationResponse response) {
+    }
+}
@@ -0,0 +1,330 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind pipeline for {@link InventoryEvent}s. Events are buffered in a bounded queue
+ * and drained to {@code inventory_events} in JDBC batches, closed either when
+ * {@code batch-size} events are pending or {@code max-latency-ms} has elapsed.
+ * <p>
+ * When the queue stays full for longer than {@code offer-timeout-ms} the publishing thread
+ * drains and writes a batch itself, so producers slow down instead of losing events. The
+ * queue is flushed completely when the application stops, after the web server has
+ * stopped accepting requests.
+ * <p>
+ * A batch that still fails after {@code max-retries} retries is split in halves, each tried
+ * once more, down to single events, so one bad event cannot hold up the writer. Events that
+ * cannot be written at all are logged to the {@code inventory.events.dead-letter} logger,
+ * one line each, and counted in {@code inventory.events.dead.letters}.
+ */
+@Component
+public class InventoryEventPublisher implements SmartLifecycle {
+
+    /**
+     * Lifecycle phase for components that publish events from their own threads. They stop
+     * in it after the web server and before this publisher writes out its queue for the
+     * last time, so nothing they publish is left behind in it.
+     */
+    public static final int PRODUCER_PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1536;
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEventPublisher.class);
+    private static final Logger deadLetters = LoggerFactory.getLogger("inventory.events.dead-letter");
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final BlockingQueue<InventoryEvent> queue;
+    private final int batchSize;
+    private final long maxLatencyNanos;
+    private final long offerTimeoutMillis;
+    private final int maxRetries;
+    private final Timer drainTimer;
+    private final Timer publishTimer;
+    private final Counter deadLettered;
+    private final WorkerThreads workerThreads;
+    private final StockJournal stockJournal;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong taken = new AtomicLong();
+    private final AtomicLong deadLetterCount = new AtomicLong();
+    // batches hold the read lock from taking events off the queue until they are written
+    private final ReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public InventoryEventPublisher(InventoryBatchRepository inventoryBatchRepository,
+                                   StockJournal stockJournal,
+                                   MeterRegistry meterRegistry,
+                                   WorkerThreads workerThreads,
+                                   @Value("${inventory.events.capacity:65536}") int capacity,
+                                   @Value("${inventory.events.batch-size:500}") int batchSize,
+                                   @Value("${inventory.events.max-latency-ms:50}") long maxLatencyMillis,
+                                   @Value("${inventory.events.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                   @Value("${inventory.events.max-retries:5}") int maxRetries) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.stockJournal = stockJournal;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxRetries = maxRetries;
+        this.workerThreads = workerThreads;
+        this.drainTimer = Timer.builder("inventory.events.drain")
+                .description("Time to write one batch of inventory events")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.publishTimer = Timer.builder("inventory.events.publish")
+                .description("Time a writer spends handing over one event, including backpressure and the journal")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(OperationMetrics.MINIMUM_EXPECTED)
+                .maximumExpectedValue(OperationMetrics.MAXIMUM_EXPECTED)
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("inventory.events.dead.letters")
+                .description("Inventory events that could not be written and were logged instead")
+                .register(meterRegistry);
+        Gauge.builder("inventory.events.queue.depth", queue, BlockingQueue::size)
+                .description("Inventory events waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the event and, when the journal is enabled, returns only once it is durable
+     * there. The event is queued first so that a journal checkpoint taken after the append
+     * always finds it on its way to the database.
+     */
+    public void publish(InventoryEvent event) {
+        long start = System.nanoTime();
+        published.incrementAndGet();
+        try {
+            while (!queue.offer(event, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                drainBatch();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            batchLock.readLock().lock();
+            try {
+                taken.incrementAndGet();
+                write(List.of(event));
+            } finally {
+                batchLock.readLock().unlock();
+            }
+        }
+        stockJournal.append(event);
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void publishAll(Collection<InventoryEvent> events) {
+        events.forEach(this::publish);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * @return the events dead-lettered since startup; {@link #flush} counts them as written
+     */
+    public long deadLettered() {
+        return deadLetterCount.get();
+    }
+
+    /**
+     * Writes every event published before the call, including batches another thread has
+     * already taken off the queue. Events published meanwhile are not waited for, so this
+     * returns under sustained load.
+     *
+     * @return {@code false} if events were still unwritten after {@code timeout}
+     */
+    public boolean flush(Duration timeout) {
+        long target = published.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (taken.get() < target) {
+                if (System.nanoTime() - deadline > 0) {
+                    return false;
+                }
+                if (queue.isEmpty()) {
+                    // a publisher has counted its event but not yet queued it
+                    Thread.sleep(1);
+                } else {
+                    drainBatch();
+                }
+            }
+            if (!batchLock.writeLock().tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            batchLock.writeLock().unlock();
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = workerThreads.factory("inventory-event-drainer").newThread(this::drainLoop);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        while (!queue.isEmpty()) {
+            drainBatch();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    }
+
+    private void drainLoop() {
+        List<InventoryEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                InventoryEvent first = queue.poll(maxLatencyNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batchLock.readLock().lock();
+                try {
+                    batch.add(first);
+                    taken.incrementAndGet();
+                    long deadline = System.nanoTime() + maxLatencyNanos;
+                    while (batch.size() < batchSize) {
+                        int drained = queue.drainTo(batch, batchSize - batch.size());
+                        if (drained > 0) {
+                            taken.addAndGet(drained);
+                            continue;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        InventoryEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        taken.incrementAndGet();
+                    }
+                    write(batch);
+                    batch.clear();
+                } finally {
+                    batchLock.readLock().unlock();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    private void drainBatch() {
+        List<InventoryEvent> batch = new ArrayList<>(batchSize);
+        batchLock.readLock().lock();
+        try {
+            taken.addAndGet(queue.drainTo(batch, batchSize));
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Retries the whole batch for transient failures such as a database restart, then looks
+     * for the events that cannot be written by bisecting, trying each half once.
+     */
+    private void write(List<InventoryEvent> batch) {
+        if (!writeWithRetries(batch)) {
+            bisect(batch);
+        }
+    }
+
+    private boolean writeWithRetries(List<InventoryEvent> batch) {
+        long backoffMillis = 10;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                drainTimer.record(() -> inventoryBatchRepository.insertEvents(batch));
+                return true;
+            } catch (RuntimeException ex) {
+                if (attempt == maxRetries) {
+                    log.warn("Failed to write {} inventory events after {} retries", batch.size(), maxRetries, ex);
+                    return false;
+                }
+                log.warn("Failed to write {} inventory events, retrying in {} ms", batch.size(), backoffMillis, ex);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    log.error("Interrupted while retrying {} inventory events", batch.size());
+                    batch.forEach(this::deadLetter);
+                    return true;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 1000);
+            }
+        }
+    }
+
+    private void bisect(List<InventoryEvent> batch) {
+        if (batch.size() == 1) {
+            deadLetter(batch.get(0));
+            return;
+        }
+        int half = batch.size() / 2;
+        for (List<InventoryEvent> part : List.of(batch.subList(0, half), batch.subList(half, batch.size()))) {
+            try {
+                drainTimer.record(() -> inventoryBatchRepository.insertEvents(part));
+            } catch (RuntimeException ex) {
+                bisect(part);
+            }
+        }
+    }
+
+    private void deadLetter(InventoryEvent event) {
+        deadLetterCount.incrementAndGet();
+        deadLettered.increment();
+        deadLetters.error("productId={} type={} quantity={} sequence={} quantityDelta={} reservedDelta={} "
+                        + "reorderLevel={} timestamp={}", event.getProductId(), event.getEventType(),
+                event.getQuantity(), event.getSequence(), event.getQuantityDelta(), event.getReservedDelta(),
+                event.getReorderLevel(), event.getTimestamp());
+    }
+}
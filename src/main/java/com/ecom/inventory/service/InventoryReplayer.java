@@ -0,0 +1,117 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.ReplayReport;
+import com.ecom.inventory.repository.EventReplayRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Rebuilds stock from the event log. The products with history are split into contiguous
+ * id ranges of at most {@code leaf-size} products on a dedicated fork/join pool; each leaf
+ * reads the snapshots and event tails for its own range with two queries, folds them with
+ * {@link ReplayFold} and hands the result to a caller-supplied function, whose results are
+ * then combined pairwise up the tree.
+ * <p>
+ * The ranges tile the whole id space, so a leaf function that also reads other tables by
+ * range sees every row exactly once.
+ */
+@Component
+public class InventoryReplayer {
+
+    private final EventReplayRepository eventReplayRepository;
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    public InventoryReplayer(EventReplayRepository eventReplayRepository,
+                             @Value("${inventory.replay.parallelism:4}") int parallelism,
+                             @Value("${inventory.replay.leaf-size:4096}") int leafSize) {
+        this.eventReplayRepository = eventReplayRepository;
+        this.pool = new ForkJoinPool(parallelism);
+        this.leafSize = leafSize;
+    }
+
+    public ReplayReport replayAll() {
+        long start = System.nanoTime();
+        ReplayReport report = replay(false, slice -> {
+            long events = 0;
+            long gaps = 0;
+            for (ReplayFold fold : slice.products()) {
+                events += fold.getEventsApplied();
+                gaps += fold.getGaps();
+            }
+            return new ReplayReport(slice.products().size(), events, gaps, 0, 0);
+        }, ReplayReport::plus);
+        return report.withDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    <R> R replay(boolean stopAtGap, Function<ReplaySlice, R> leaf, BinaryOperator<R> combine) {
+        long[] productIds = eventReplayRepository.findProductIds().stream().mapToLong(Long::longValue).toArray();
+        return pool.invoke(new SliceTask<>(productIds, 0, productIds.length, stopAtGap, leaf, combine));
+    }
+
+    ReplaySlice fold(long firstProductId, long lastProductId, boolean stopAtGap) {
+        Map<Long, ReplayFold> folds = new HashMap<>();
+        eventReplayRepository.readSnapshots(firstProductId, lastProductId, rs -> {
+            long productId = rs.getLong(1);
+            folds.put(productId, ReplayFold.fromSnapshot(
+                    productId, rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), stopAtGap));
+        });
+        eventReplayRepository.readEventTail(firstProductId, lastProductId, rs -> {
+            folds.computeIfAbsent(rs.getLong(1), id -> ReplayFold.empty(id, stopAtGap))
+                    .apply(rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getObject(5, Integer.class));
+        });
+        return new ReplaySlice(firstProductId, lastProductId, folds.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    record ReplaySlice(long firstProductId, long lastProductId, Collection<ReplayFold> products) {
+    }
+
+    private final class SliceTask<R> extends RecursiveTask<R> {
+
+        private final long[] productIds;
+        private final int from;
+        private final int to;
+        private final boolean stopAtGap;
+        private final Function<ReplaySlice, R> leaf;
+        private final BinaryOperator<R> combine;
+
+        private SliceTask(long[] productIds, int from, int to, boolean stopAtGap,
+                          Function<ReplaySlice, R> leaf, BinaryOperator<R> combine) {
+            this.productIds = productIds;
+            this.from = from;
+            this.to = to;
+            this.stopAtGap = stopAtGap;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= leafSize) {
+                long first = from == 0 ? Long.MIN_VALUE : productIds[from];
+                long last = to == productIds.length ? Long.MAX_VALUE : productIds[to] - 1;
+                return leaf.apply(fold(first, last, stopAtGap));
+            }
+            int middle = (from + to) >>> 1;
+            SliceTask<R> left = new SliceTask<>(productIds, from, middle, stopAtGap, leaf, combine);
+            left.fork();
+            R right = new SliceTask<>(productIds, middle, to, stopAtGap, leaf, combine).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
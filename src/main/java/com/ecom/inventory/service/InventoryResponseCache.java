@@ -0,0 +1,49 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.InventoryResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of {@link InventoryResponse} snapshots keyed by productId. Entries are
+ * invalidated from {@link StockLedger} after every mutation; because Caffeine blocks an
+ * invalidation until an in-flight load of the same key completes, a snapshot computed
+ * before a write can never survive it.
+ */
+@Component
+public class InventoryResponseCache implements StockChangeListener {
+
+    private final Cache<Long, InventoryResponse> cache;
+
+    public InventoryResponseCache(MeterRegistry meterRegistry,
+                                  @Value("${inventory.cache.maximum-size:100000}") long maximumSize,
+                                  @Value("${inventory.cache.expire-after-write:30s}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory");
+    }
+
+    public InventoryResponse get(Long productId, Function<Long, InventoryResponse> loader) {
+        return cache.get(productId, loader);
+    }
+
+    @Override
+    public void onStockChanged(StockCounter counter, long previousState, long currentState) {
+        cache.invalidate(counter.getProductId());
+    }
+
+    @Override
+    public void onCounterEvicted(StockCounter counter) {
+        cache.invalidate(counter.getProductId());
+    }
+}
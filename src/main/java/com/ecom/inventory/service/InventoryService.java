@@ -1,139 +1,436 @@
 package com.ecom.inventory.service;
 
+import com.ecom.inventory.dto.AvailabilityResponse;
+import com.ecom.inventory.dto.BatchReservationRequest;
+import com.ecom.inventory.dto.HoldResponse;
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.dto.InventoryEventPage;
+import com.ecom.inventory.dto.InventoryEventResponse;
+import com.ecom.inventory.dto.InventoryPage;
 import com.ecom.inventory.dto.InventoryRequest;
 import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.LocationAllocation;
+import com.ecom.inventory.dto.LowStockAlert;
+import com.ecom.inventory.dto.ProductAvailability;
 import com.ecom.inventory.dto.StockReservationRequest;
 import com.ecom.inventory.dto.StockReservationResponse;
 import com.ecom.inventory.exception.InsufficientStockException;
 import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.exception.StockBelowReservedException;
 import com.ecom.inventory.model.Inventory;
 import com.ecom.inventory.model.InventoryEvent;
 import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.EventHistoryRepository;
 import com.ecom.inventory.repository.InventoryEventRepository;
 import com.ecom.inventory.repository.InventoryRepository;
+import com.ecom.inventory.service.OperationMetrics.Operation;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class InventoryService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     private final InventoryRepository inventoryRepository;
     private final InventoryEventRepository inventoryEventRepository;
+    private final EventHistoryRepository eventHistoryRepository;
+    private final StockLedger stockLedger;
+    private final InventoryEventPublisher eventPublisher;
+    private final InventoryResponseCache responseCache;
+    private final LowStockIndex lowStockIndex;
+    private final HoldManager holdManager;
+    private final LocationLedger locationLedger;
+    private final IdempotencyStore idempotencyStore;
+    private final OperationMetrics metrics;
 
     public InventoryService(InventoryRepository inventoryRepository,
-                            InventoryEventRepository inventoryEventRepository) {
+                            InventoryEventRepository inventoryEventRepository,
+                            EventHistoryRepository eventHistoryRepository,
+                            StockLedger stockLedger,
+                            InventoryEventPublisher eventPublisher,
+                            InventoryResponseCache responseCache,
+                            LowStockIndex lowStockIndex,
+                            HoldManager holdManager,
+                            LocationLedger locationLedger,
+                            IdempotencyStore idempotencyStore,
+                            OperationMetrics metrics) {
         this.inventoryRepository = inventoryRepository;
         this.inventoryEventRepository = inventoryEventRepository;
+        this.eventHistoryRepository = eventHistoryRepository;
+        this.stockLedger = stockLedger;
+        this.eventPublisher = eventPublisher;
+        this.responseCache = responseCache;
+        this.lowStockIndex = lowStockIndex;
+        this.holdManager = holdManager;
+        this.locationLedger = locationLedger;
+        this.idempotencyStore = idempotencyStore;
+        this.metrics = metrics;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public InventoryResponse getInventoryByProductId(Long productId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new InventoryNotFoundException(
-                        "Inventory not found for product ID: " + productId));
-        return mapToResponse(inventory);
+        return metrics.record(Operation.GET,
+                () -> responseCache.get(productId, id -> mapToResponse(stockLedger.counter(id))));
     }
 
-    public List<InventoryResponse> getAllInventory() {
-        return inventoryRepository.findAll().stream()
-                .map(this::mapToResponse)
+    /**
+     * Available quantity for each product, read from the ledger's counters where they are
+     * loaded and with a single projection query for the rest, which are not loaded into the
+     * ledger. Products are answered in request order, each once.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public AvailabilityResponse getAvailability(Collection<Long> productIds) {
+        return metrics.record(Operation.AVAILABILITY, () -> availability(productIds));
+    }
+
+    private AvailabilityResponse availability(Collection<Long> productIds) {
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            StockCounter counter = stockLedger.peek(productId);
+            if (counter != null) {
+                available.put(productId, counter.getAvailableQuantity());
+            } else {
+                available.put(productId, null);
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ProductAvailability row : inventoryRepository.findAvailabilityByProductIdIn(missing)) {
+                available.put(row.productId(), row.availableQuantity());
+            }
+        }
+        List<Long> notFound = new ArrayList<>();
+        for (Long productId : missing) {
+            if (available.get(productId) == null) {
+                available.remove(productId);
+                notFound.add(productId);
+            }
+        }
+        return new AvailabilityResponse(available, notFound);
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryPage getInventoryPage(Long after, int size) {
+        return metrics.record(Operation.PAGE, () -> inventoryPage(after, size));
+    }
+
+    private InventoryPage inventoryPage(Long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<InventoryResponse> items = inventoryRepository
+                .findPageAfter(after != null ? after : Long.MIN_VALUE, Limit.of(pageSize)).stream()
+                .map(this::overlay)
                 .collect(Collectors.toList());
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).productId() : null;
+        return new InventoryPage(items, nextCursor);
     }
 
-    public InventoryResponse addOrUpdateInventory(InventoryRequest request) {
-        Inventory inventory = inventoryRepository.findByProductId(request.productId())
-                .orElse(new Inventory());
+    @Transactional(readOnly = true)
+    public void exportInventory(Consumer<InventoryResponse> consumer) {
+        metrics.record(Operation.EXPORT, () -> {
+            try (Stream<InventoryResponse> rows = inventoryRepository.streamAll()) {
+                rows.map(this::overlay).forEach(consumer);
+            }
+            return null;
+        });
+    }
 
-        inventory.setProductId(request.productId());
-        inventory.setQuantity(request.quantity());
-        if (request.reorderLevel() != null) {
-            inventory.setReorderLevel(request.reorderLevel());
-        }
+    /**
+     * Events still in {@code inventory_events} with a timestamp in [{@code from}, {@code to}),
+     * either bound optional; older days are only kept as {@link #getDailySummaries summaries}.
+     */
+    @Transactional(readOnly = true)
+    public InventoryEventPage getEventPage(Long productId, LocalDateTime from, LocalDateTime to, Long after,
+                                           int size) {
+        return metrics.record(Operation.EVENTS, () -> eventPage(productId, from, to, after, size));
+    }
 
-        Inventory saved = inventoryRepository.save(inventory);
+    private InventoryEventPage eventPage(Long productId, LocalDateTime from, LocalDateTime to, Long after,
+                                         int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = after != null ? after : Long.MIN_VALUE;
+        List<InventoryEventResponse> items = from == null && to == null
+                ? inventoryEventRepository.findPageAfter(productId, cursor, Limit.of(pageSize))
+                : inventoryEventRepository.findRangePageAfter(productId,
+                        from != null ? from : HISTORY_START, to != null ? to : HISTORY_END, cursor, Limit.of(pageSize));
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).id() : null;
+        return new InventoryEventPage(items, nextCursor);
+    }
+
+    /**
+     * One row per day in [{@code from}, {@code to}) with events for the product: compacted
+     * days from {@code inventory_event_aggregates}, the rest computed from the live events.
+     * A day being compacted can briefly have part of its events in each.
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryDailySummary> getDailySummaries(Long productId, LocalDate from, LocalDate to) {
+        return metrics.record(Operation.DAILY, () -> {
+            Map<LocalDate, InventoryDailySummary> days = new TreeMap<>();
+            for (InventoryDailySummary summary : eventHistoryRepository.findStoredSummaries(productId, from, to)) {
+                days.merge(summary.day(), summary, InventoryDailySummary::plus);
+            }
+            for (InventoryDailySummary summary : eventHistoryRepository.summarizeEvents(
+                    productId, from.atStartOfDay(), to.atStartOfDay())) {
+                days.merge(summary.day(), summary, InventoryDailySummary::plus);
+            }
+            return new ArrayList<>(days.values());
+        });
+    }
 
-        logEvent(saved.getProductId(), InventoryEventType.STOCK_UPDATED, request.quantity());
+    public InventoryResponse addOrUpdateInventory(InventoryRequest request) {
+        return metrics.record(Operation.UPSERT, () -> upsert(request));
+    }
 
-        if (saved.getQuantity() <= saved.getReorderLevel()) {
-            logEvent(saved.getProductId(), InventoryEventType.LOW_STOCK_ALERT, saved.getQuantity());
+    private InventoryResponse upsert(InventoryRequest request) {
+        StockCounter counter = stockLedger.find(request.productId());
+        if (counter != null) {
+            if (!stockLedger.update(counter, request.quantity(), request.reorderLevel())) {
+                throw new StockBelowReservedException(request.productId(), request.quantity(),
+                        counter.getReservedQuantity());
+            }
+        } else {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(request.productId());
+            inventory.setQuantity(request.quantity());
+            if (request.reorderLevel() != null) {
+                inventory.setReorderLevel(request.reorderLevel());
+            }
+            counter = stockLedger.create(inventoryRepository.save(inventory));
+            if (counter.getAvailableQuantity() <= counter.getReorderLevel()) {
+                logEvent(counter.getProductId(), InventoryEventType.LOW_STOCK_ALERT, counter.getAvailableQuantity());
+            }
         }
 
-        return mapToResponse(saved);
+        return mapToResponse(counter);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public StockReservationResponse reserveStock(StockReservationRequest request) {
-        Inventory inventory = inventoryRepository.findByProductId(request.productId())
-                .orElseThrow(() -> new InventoryNotFoundException(
-                        "Inventory not found for product ID: " + request.productId()));
-
-        int available = inventory.getAvailableQuantity();
-        if (available < request.quantity()) {
-            throw new InsufficientStockException(
-                    "Insufficient stock for product ID: " + request.productId()
-                            + ". Available: " + available + ", Requested: " + request.quantity());
+        return tryReserveStock(request).orElseThrow();
+    }
+
+    /**
+     * Reserves stock, returning a rejection instead of throwing it when the product is unknown
+     * or short.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ReservationResult tryReserveStock(StockReservationRequest request) {
+        return metrics.record(Operation.RESERVE, () -> request.idempotencyKey() == null
+                ? reserve(request)
+                : reserveOnce(request), ReservationResult::rejection);
+    }
+
+    // rejections are not remembered for the key, so they leave the store as exceptions
+    private ReservationResult reserveOnce(StockReservationRequest request) {
+        try {
+            return ReservationResult.reserved(
+                    idempotencyStore.execute(request, () -> reserve(request).orElseThrow()));
+        } catch (InsufficientStockException ex) {
+            return ReservationResult.insufficientStock(ex.getProductId(), ex.getAvailable(), ex.getRequested());
+        } catch (InventoryNotFoundException ex) {
+            return ReservationResult.notFound(ex.getProductId());
         }
+    }
 
-        inventory.setReservedQuantity(inventory.getReservedQuantity() + request.quantity());
-        inventoryRepository.save(inventory);
+    private ReservationResult reserve(StockReservationRequest request) {
+        StockCounter counter = stockLedger.find(request.productId());
+        if (counter == null) {
+            return ReservationResult.notFound(request.productId());
+        }
 
-        logEvent(inventory.getProductId(), InventoryEventType.STOCK_RESERVED, request.quantity());
+        int available = stockLedger.reserve(counter, request.quantity());
+        if (available == StockLedger.REJECTED) {
+            return ReservationResult.insufficientStock(request.productId(), counter.getAvailableQuantity(),
+                    request.quantity());
+        }
 
-        if (inventory.getAvailableQuantity() <= inventory.getReorderLevel()) {
-            logEvent(inventory.getProductId(), InventoryEventType.LOW_STOCK_ALERT, inventory.getAvailableQuantity());
+        List<LocationAllocation> locations = locationLedger.allocate(counter.getProductId(), request.quantity());
+        if (locations == null) {
+            stockLedger.release(counter, request.quantity());
+            return ReservationResult.insufficientStock(request.productId(), locationAvailable(counter),
+                    request.quantity());
         }
+        ReservationHold hold = holdManager.create(counter.getProductId(), request.quantity(), request.holdTtlSeconds());
+        locationLedger.track(hold, locations);
 
-        return new StockReservationResponse(
+        return ReservationResult.reserved(new StockReservationResponse(
                 request.productId(),
                 true,
-                inventory.getAvailableQuantity(),
-                "Stock reserved successfully"
-        );
+                available,
+                "Stock reserved successfully",
+                hold.getId(),
+                HoldManager.toDateTime(hold.getExpiresAtMillis())
+        ));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<StockReservationResponse> reserveStockBatch(BatchReservationRequest request) {
+        return metrics.record(Operation.RESERVE_BATCH, () -> reserveBatch(request));
     }
 
+    private List<StockReservationResponse> reserveBatch(BatchReservationRequest request) {
+        List<StockReservationRequest> lines = request.lines();
+        Map<Long, StockCounter> counters = stockLedger.counters(
+                lines.stream().map(StockReservationRequest::productId).collect(Collectors.toSet()));
+
+        for (StockReservationRequest line : lines) {
+            if (!counters.containsKey(line.productId())) {
+                throw new InventoryNotFoundException(line.productId());
+            }
+        }
+
+        List<StockCounter> lineCounters = new ArrayList<>(lines.size());
+        int[] amounts = new int[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            lineCounters.add(counters.get(lines.get(i).productId()));
+            amounts[i] = lines.get(i).quantity();
+        }
+        int[] available = new int[lines.size()];
+        int shortLine = stockLedger.reserveAll(lineCounters, amounts, available);
+        if (shortLine >= 0) {
+            StockReservationRequest line = lines.get(shortLine);
+            throw new InsufficientStockException(line.productId(),
+                    lineCounters.get(shortLine).getAvailableQuantity(), line.quantity());
+        }
+
+        List<ReservationHold> holds = new ArrayList<>(lines.size());
+        List<StockReservationResponse> responses = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            StockReservationRequest line = lines.get(i);
+            List<LocationAllocation> locations = locationLedger.allocate(line.productId(), line.quantity());
+            if (locations == null) {
+                stockLedger.release(lineCounters.get(i), amounts[i]);
+                int left = locationAvailable(lineCounters.get(i));
+                for (ReservationHold taken : holds) {
+                    holdManager.release(taken.getId());
+                }
+                for (int j = i + 1; j < lines.size(); j++) {
+                    stockLedger.release(lineCounters.get(j), amounts[j]);
+                }
+                throw new InsufficientStockException(line.productId(), left, line.quantity());
+            }
+            ReservationHold hold = holdManager.create(line.productId(), line.quantity(), line.holdTtlSeconds());
+            locationLedger.track(hold, locations);
+            holds.add(hold);
+            responses.add(new StockReservationResponse(line.productId(), true, available[i],
+                    "Stock reserved successfully", hold.getId(), HoldManager.toDateTime(hold.getExpiresAtMillis())));
+        }
+        return responses;
+    }
+
+    // a location-managed product can be short at its locations while its counter is not
+    private int locationAvailable(StockCounter counter) {
+        return Math.min(counter.getAvailableQuantity(), locationLedger.available(counter.getProductId()));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public StockReservationResponse releaseStock(StockReservationRequest request) {
-        Inventory inventory = inventoryRepository.findByProductId(request.productId())
-                .orElseThrow(() -> new InventoryNotFoundException(
-                        "Inventory not found for product ID: " + request.productId()));
+        return metrics.record(Operation.RELEASE, () -> release(request));
+    }
 
-        int releaseQty = Math.min(request.quantity(), inventory.getReservedQuantity());
-        inventory.setReservedQuantity(inventory.getReservedQuantity() - releaseQty);
-        inventoryRepository.save(inventory);
+    private StockReservationResponse release(StockReservationRequest request) {
+        StockCounter counter = stockLedger.counter(request.productId());
 
-        logEvent(inventory.getProductId(), InventoryEventType.STOCK_RELEASED, releaseQty);
+        int releaseQty = holdManager.releaseByProduct(counter, request.quantity());
 
         return new StockReservationResponse(
                 request.productId(),
                 true,
-                inventory.getAvailableQuantity(),
-                "Stock released successfully. Released: " + releaseQty
+                counter.getAvailableQuantity(),
+                "Stock released successfully. Released: " + releaseQty,
+                null,
+                null
         );
     }
 
-    public List<InventoryResponse> checkLowStock() {
-        return inventoryRepository.findAll().stream()
-                .filter(inv -> inv.getAvailableQuantity() <= inv.getReorderLevel())
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public HoldResponse getHold(String holdId) {
+        return metrics.record(Operation.HOLD_GET, () -> mapToResponse(holdManager.find(holdId)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public HoldResponse extendHold(String holdId, Integer ttlSeconds) {
+        return metrics.record(Operation.HOLD_EXTEND, () -> mapToResponse(holdManager.extend(holdId, ttlSeconds)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public HoldResponse confirmHold(String holdId) {
+        return metrics.record(Operation.HOLD_CONFIRM, () -> mapToResponse(holdManager.confirm(holdId)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public HoldResponse releaseHold(String holdId) {
+        return metrics.record(Operation.HOLD_RELEASE, () -> mapToResponse(holdManager.release(holdId)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public InventoryPage checkLowStock(Long after, int size) {
+        return metrics.record(Operation.LOW_STOCK, () -> lowStockPage(after, size));
+    }
+
+    private InventoryPage lowStockPage(Long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<StockCounter> counters = lowStockIndex.page(after != null ? after : Long.MIN_VALUE, pageSize);
+        List<InventoryResponse> items = counters.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+        Long nextCursor = counters.size() == pageSize ? counters.get(counters.size() - 1).getProductId() : null;
+        return new InventoryPage(items, nextCursor);
+    }
+
+    public Runnable subscribeLowStock(Consumer<LowStockAlert> subscriber, Runnable onOverflow) {
+        return lowStockIndex.subscribe(subscriber, onOverflow);
     }
 
     private void logEvent(Long productId, InventoryEventType eventType, Integer quantity) {
-        InventoryEvent event = new InventoryEvent(productId, eventType, quantity, LocalDateTime.now());
-        inventoryEventRepository.save(event);
+        eventPublisher.publish(new InventoryEvent(productId, eventType, quantity, LocalDateTime.now()));
     }
 
-    private InventoryResponse mapToResponse(Inventory inventory) {
+    InventoryResponse mapToResponse(StockCounter counter) {
+        long state = counter.state();
         return new InventoryResponse(
-                inventory.getId(),
-                inventory.getProductId(),
-                inventory.getQuantity(),
-                inventory.getReservedQuantity(),
-                inventory.getAvailableQuantity(),
-                inventory.getReorderLevel(),
-                inventory.getLastUpdated()
+                counter.getId(),
+                counter.getProductId(),
+                StockCounter.quantity(state),
+                StockCounter.reserved(state),
+                StockCounter.available(state),
+                counter.getReorderLevel(),
+                counter.getLastUpdated()
         );
     }
+
+    private HoldResponse mapToResponse(ReservationHold hold) {
+        return new HoldResponse(
+                hold.getId(),
+                hold.getProductId(),
+                hold.getQuantity(),
+                hold.getStatus(),
+                hold.getCreatedAt(),
+                HoldManager.toDateTime(hold.getExpiresAtMillis())
+        );
+    }
+
+    private InventoryResponse overlay(InventoryResponse row) {
+        StockCounter counter = stockLedger.peek(row.productId());
+        return counter != null ? mapToResponse(counter) : row;
+    }
 }
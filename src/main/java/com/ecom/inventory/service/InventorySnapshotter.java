@@ -0,0 +1,150 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.ReplayReport;
+import com.ecom.inventory.repository.EventReplayRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.SnapshotRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Periodically advances {@code inventory_snapshots} so replay only has to read a short tail
+ * of events. Snapshots are built from the written event log rather than from the live
+ * counters, stopping at the first sequence gap, so a snapshot never claims a sequence whose
+ * predecessors are still queued in {@link InventoryEventPublisher}.
+ * <p>
+ * A gap that is still there after {@code inventory.snapshots.gap-repair-after} is taken to
+ * be an event that was dead-lettered rather than one still in flight. Once the product has
+ * also had no new events for that long, its flushed {@code inventory} row is written as a
+ * corrective snapshot at the highest written sequence, so snapshots and compaction move past
+ * the gap instead of stopping there for good.
+ */
+@Component
+public class InventorySnapshotter {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotter.class);
+
+    private final InventoryReplayer inventoryReplayer;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final EventReplayRepository eventReplayRepository;
+    private final Duration gapRepairAfter;
+    private final Counter gapRepairs;
+    private final Map<Long, Gap> gaps = new ConcurrentHashMap<>();
+    private final Lock snapshotLock = new ReentrantLock();
+
+    public InventorySnapshotter(InventoryReplayer inventoryReplayer,
+                                InventoryBatchRepository inventoryBatchRepository,
+                                EventReplayRepository eventReplayRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${inventory.snapshots.gap-repair-after:10m}") Duration gapRepairAfter) {
+        this.inventoryReplayer = inventoryReplayer;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.eventReplayRepository = eventReplayRepository;
+        this.gapRepairAfter = gapRepairAfter;
+        this.gapRepairs = Counter.builder("inventory.snapshots.gap.repairs")
+                .description("Sequence gaps skipped by writing a snapshot from the flushed inventory row")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${inventory.snapshots.interval-ms:60000}",
+            fixedDelayString = "${inventory.snapshots.interval-ms:60000}")
+    public void scheduledSnapshot() {
+        try {
+            ReplayReport report = takeSnapshots();
+            if (report.snapshotsWritten() > 0) {
+                log.debug("Wrote {} snapshots in {} ms", report.snapshotsWritten(), report.durationMillis());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write inventory snapshots", ex);
+        }
+    }
+
+    public ReplayReport takeSnapshots() {
+        snapshotLock.lock();
+        try {
+            long start = System.nanoTime();
+            LocalDateTime takenAt = LocalDateTime.now();
+            ReplayReport report = inventoryReplayer.replay(true, slice -> {
+                List<SnapshotRow> rows = new ArrayList<>();
+                long events = 0;
+                long gapCount = 0;
+                for (ReplayFold fold : slice.products()) {
+                    events += fold.getEventsApplied();
+                    gapCount += fold.getGaps();
+                    SnapshotRow repaired = fold.isStopped() ? repairGap(fold, takenAt) : null;
+                    if (!fold.isStopped()) {
+                        gaps.remove(fold.getProductId());
+                    }
+                    if (repaired != null) {
+                        rows.add(repaired);
+                    } else if (fold.getSequence() > fold.getBaseSequence()) {
+                        rows.add(new SnapshotRow(fold.getProductId(), fold.getSequence(), fold.getQuantity(),
+                                fold.getReservedQuantity(), fold.getReorderLevel(), takenAt));
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    inventoryBatchRepository.upsertSnapshots(rows);
+                }
+                return new ReplayReport(slice.products().size(), events, gapCount, rows.size(), 0);
+            }, ReplayReport::plus);
+            return report.withDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return a corrective snapshot for the product, or {@code null} if its gap is too recent
+     *         or the product is still changing
+     */
+    private SnapshotRow repairGap(ReplayFold fold, LocalDateTime takenAt) {
+        long productId = fold.getProductId();
+        Gap gap = gaps.get(productId);
+        if (gap == null || gap.after() != fold.getSequence()) {
+            gap = new Gap(fold.getSequence(), takenAt);
+            gaps.put(productId, gap);
+            log.warn("Event log for product {} has a gap after sequence {}; snapshots stop there until it "
+                    + "is filled or repaired after {}", productId, gap.after(), gapRepairAfter);
+        }
+        LocalDateTime settledBefore = takenAt.minus(gapRepairAfter);
+        if (gap.seenAt().isAfter(settledBefore)) {
+            return null;
+        }
+        SnapshotRow[] baseline = new SnapshotRow[1];
+        eventReplayRepository.readBaseline(productId, rs -> {
+            if (rs.getTimestamp(5).toLocalDateTime().isBefore(settledBefore)) {
+                baseline[0] = new SnapshotRow(productId, rs.getLong(4), rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                        takenAt);
+            }
+        });
+        SnapshotRow repaired = baseline[0];
+        if (repaired == null) {
+            return null;
+        }
+        gaps.remove(productId);
+        gapRepairs.increment();
+        log.warn("Repaired event gap for product {} after sequence {}: wrote a snapshot at sequence {} from the "
+                        + "inventory row (quantity {}, reserved {}); replay had reached quantity {}, reserved {}",
+                productId, gap.after(), repaired.sequence(), repaired.quantity(), repaired.reservedQuantity(),
+                fold.getQuantity(), fold.getReservedQuantity());
+        return repaired;
+    }
+
+    private record Gap(long after, LocalDateTime seenAt) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecom.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Trims {@link StockJournal} once the database has caught up with it. Every record before the
+ * current journal position was queued with {@link InventoryEventPublisher} before it was
+ * appended, so after both write-behind paths have been flushed those records are no longer
+ * needed for recovery.
+ * <p>
+ * A failed stock write-back skips the checkpoint. So does any dead-lettered event: its
+ * journal record is then the only copy, so the journal is not trimmed again until a restart,
+ * whose recovery writes the record to {@code inventory_events}.
+ */
+@Component
+public class JournalCheckpointer {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalCheckpointer.class);
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final StockJournal stockJournal;
+    private final InventoryEventPublisher eventPublisher;
+    private final StockLedgerFlusher stockLedgerFlusher;
+
+    public JournalCheckpointer(StockJournal stockJournal, InventoryEventPublisher eventPublisher,
+                               StockLedgerFlusher stockLedgerFlusher) {
+        this.stockJournal = stockJournal;
+        this.eventPublisher = eventPublisher;
+        this.stockLedgerFlusher = stockLedgerFlusher;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.journal.checkpoint-interval-ms:5000}")
+    public void checkpoint() {
+        if (!stockJournal.isEnabled()) {
+            return;
+        }
+        long position = stockJournal.position();
+        if (!eventPublisher.flush(FLUSH_TIMEOUT)) {
+            log.warn("Inventory events were still unwritten after {}, skipping journal checkpoint", FLUSH_TIMEOUT);
+            return;
+        }
+        if (eventPublisher.deadLettered() > 0) {
+            log.warn("{} inventory events were dead-lettered, keeping the journal for recovery on restart",
+                    eventPublisher.deadLettered());
+            return;
+        }
+        if (!stockLedgerFlusher.flushPending()) {
+            log.warn("Stock write-back failed, skipping journal checkpoint");
+            return;
+        }
+        stockJournal.truncateBefore(position);
+    }
+}
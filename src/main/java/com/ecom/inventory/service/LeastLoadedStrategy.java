@@ -0,0 +1,29 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ships from the locations with the smallest share of their stock already allocated, which
+ * spreads consecutive orders for a hot product across every location that stocks it.
+ */
+@Component
+public class LeastLoadedStrategy implements AllocationStrategy {
+
+    private static final Comparator<LocationOption> LEAST_LOADED = Comparator
+            .comparingDouble(LocationOption::load)
+            .thenComparing(Comparator.comparingInt(LocationOption::available).reversed());
+
+    @Override
+    public String name() {
+        return "least-loaded";
+    }
+
+    @Override
+    public List<LocationAllocation> plan(int quantity, List<LocationOption> options) {
+        return AllocationStrategy.fill(quantity, options.stream().sorted(LEAST_LOADED).toList());
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecom.inventory.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock of one product at one fulfillment location, packed like a {@link StockCounter}
+ * with the allocated quantity in place of the reserved one.
+ */
+final class LocationCounter {
+
+    private final long productId;
+    private final String locationCode;
+    private final AtomicLong state;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    LocationCounter(long productId, String locationCode, int quantity, int allocatedQuantity) {
+        this.productId = productId;
+        this.locationCode = locationCode;
+        this.state = new AtomicLong(StockCounter.pack(quantity, allocatedQuantity));
+    }
+
+    long getProductId() {
+        return productId;
+    }
+
+    String getLocationCode() {
+        return locationCode;
+    }
+
+    int getQuantity() {
+        return StockCounter.quantity(state.get());
+    }
+
+    int getAllocatedQuantity() {
+        return StockCounter.reserved(state.get());
+    }
+
+    int getAvailableQuantity() {
+        return Math.max(0, StockCounter.available(state.get()));
+    }
+
+    boolean tryAllocate(int amount) {
+        while (true) {
+            long current = state.get();
+            if (StockCounter.available(current) < amount) {
+                return false;
+            }
+            if (state.compareAndSet(current, StockCounter.pack(StockCounter.quantity(current),
+                    StockCounter.reserved(current) + amount))) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return the units actually released
+     */
+    int release(int amount) {
+        while (true) {
+            long current = state.get();
+            int released = Math.min(amount, StockCounter.reserved(current));
+            if (state.compareAndSet(current, StockCounter.pack(StockCounter.quantity(current),
+                    StockCounter.reserved(current) - released))) {
+                return released;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Ships {@code amount} allocated units, taking them out of both quantity and allocation.
+     */
+    void commit(int amount) {
+        while (true) {
+            long current = state.get();
+            int committed = Math.min(amount, StockCounter.reserved(current));
+            if (state.compareAndSet(current, StockCounter.pack(StockCounter.quantity(current) - committed,
+                    StockCounter.reserved(current) - committed))) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Takes up to {@code amount} unallocated units out of quantity.
+     *
+     * @return the units taken
+     */
+    int deduct(int amount) {
+        while (true) {
+            long current = state.get();
+            int taken = Math.max(0, Math.min(amount, StockCounter.available(current)));
+            if (taken == 0 || state.compareAndSet(current, StockCounter.pack(StockCounter.quantity(current) - taken,
+                    StockCounter.reserved(current)))) {
+                return taken;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Moves quantity by {@code delta}, leaving the allocation alone.
+     */
+    void adjust(int delta) {
+        state.addAndGet((long) delta << 32);
+    }
+
+    /**
+     * @return the quantity replaced
+     */
+    int set(int quantity) {
+        while (true) {
+            long current = state.get();
+            if (state.compareAndSet(current, StockCounter.pack(quantity, StockCounter.reserved(current)))) {
+                return StockCounter.quantity(current);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    void clearDirty() {
+        dirty.set(false);
+    }
+}
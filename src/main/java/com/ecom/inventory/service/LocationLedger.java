@@ -0,0 +1,477 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+import com.ecom.inventory.dto.LocationStockResponse;
+import com.ecom.inventory.exception.LocationNotFoundException;
+import com.ecom.inventory.exception.StockBelowReservedException;
+import com.ecom.inventory.repository.LocationRepository;
+import com.ecom.inventory.repository.LocationRepository.AllocationRow;
+import com.ecom.inventory.repository.LocationRepository.LocationRow;
+import com.ecom.inventory.repository.LocationRepository.LocationStockRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-location stock of the products that are stocked in more than one place, and the
+ * locations each active hold was split over. The product's {@link StockCounter} stays the
+ * authority on what can be sold: a reservation is taken there first and only then placed at
+ * locations, and the product's quantity is kept equal to the sum of its locations' by moving
+ * both together. Products with no {@code location_stock} rows are not location-managed and
+ * are only ever touched here to find that out, once.
+ * <p>
+ * Location counters and splits are loaded on first use and written back by {@link #flush()}.
+ * A hold's split follows it through {@link HoldListener}: released units go back to the
+ * locations they came from, last-filled first, and confirmed units ship from them. Holds
+ * taken through {@code /reserve} are split too, over the locations with the most unallocated
+ * stock, so confirming one never takes units another hold was allocated.
+ */
+@Component
+public class LocationLedger implements HoldListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationLedger.class);
+    private static final LocationCounter[] NONE = new LocationCounter[0];
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final int SET_LOCK_STRIPES = 64;
+    // without a destination, nearest ships from the fullest locations
+    private static final AllocationStrategy FULLEST = new NearestLocationStrategy();
+
+    private final LocationRepository locationRepository;
+    private final StockLedger stockLedger;
+    private final Map<Long, LocationCounter[]> counters = new ConcurrentHashMap<>();
+    private final Map<String, HoldSplit> splits = new ConcurrentHashMap<>();
+    private final Queue<LocationCounter> dirtyCounters = new ConcurrentLinkedQueue<>();
+    private final Set<String> dirtySplits = ConcurrentHashMap.newKeySet();
+    private final Lock flushLock = new ReentrantLock();
+    private final Lock[] setLocks = new Lock[SET_LOCK_STRIPES];
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final int maxAttempts;
+    private volatile Map<String, LocationRow> locations;
+
+    public LocationLedger(LocationRepository locationRepository, StockLedger stockLedger,
+                          @Value("${inventory.locations.max-attempts:3}") int maxAttempts) {
+        this.locationRepository = locationRepository;
+        this.stockLedger = stockLedger;
+        this.maxAttempts = maxAttempts;
+        for (int i = 0; i < setLocks.length; i++) {
+            setLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public List<LocationStockResponse> getStock(Long productId) {
+        stockLedger.counter(productId);
+        return Arrays.stream(counters(productId)).map(LocationLedger::mapToResponse).toList();
+    }
+
+    /**
+     * Sets a product's stock at one location and moves the product's quantity by the same
+     * amount. The first location set on a product replaces its quantity outright, since
+     * until then it was not broken down by location. A change that would leave the product
+     * with less than it has reserved is refused and leaves both untouched.
+     * <p>
+     * Changes to the same product are serialized on a striped lock rather than the counter's
+     * monitor, because the ledger publishes the change while it is held.
+     */
+    public LocationStockResponse setStock(Long productId, String locationCode, int quantity) {
+        StockCounter counter = stockLedger.counter(productId);
+        location(locationCode);
+        LocationCounter location;
+        Lock setLock = setLocks[Long.hashCode(productId) & (SET_LOCK_STRIPES - 1)];
+        setLock.lock();
+        try {
+            boolean first = counters(productId).length == 0;
+            if (first && !stockLedger.update(counter, quantity, null)) {
+                throw new StockBelowReservedException(productId, quantity, counter.getReservedQuantity());
+            }
+            location = counter(productId, locationCode);
+            int previous = location.set(quantity);
+            if (!first && quantity != previous && !stockLedger.adjust(counter, quantity - previous)) {
+                location.adjust(previous - quantity);
+                throw new StockBelowReservedException(productId, counter.getQuantity() + quantity - previous,
+                        counter.getReservedQuantity());
+            }
+            markDirty(location);
+        } finally {
+            setLock.unlock();
+        }
+        return mapToResponse(location);
+    }
+
+    /**
+     * Places units reserved with no destination, as {@code /reserve} takes them, at the
+     * locations with the most unallocated stock.
+     *
+     * @see #allocate(long, int, AllocationStrategy, Double, Double, int)
+     */
+    List<LocationAllocation> allocate(long productId, int quantity) {
+        return allocate(productId, quantity, FULLEST, null, null, maxAttempts);
+    }
+
+    /**
+     * Places {@code quantity} units of a product, already reserved on its product counter,
+     * at the locations {@code strategy} picks. A plan that loses a race for a location is
+     * undone and replanned against fresh counts, up to {@code maxAttempts} times.
+     *
+     * @return the units taken per location, empty if the product is not location-managed,
+     * or {@code null} if its locations could not cover the quantity
+     */
+    List<LocationAllocation> allocate(long productId, int quantity, AllocationStrategy strategy,
+                                      Double latitude, Double longitude, int maxAttempts) {
+        LocationCounter[] productCounters = counters(productId);
+        if (productCounters.length == 0) {
+            return List.of();
+        }
+        Map<String, LocationRow> known = locations();
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            List<AllocationStrategy.LocationOption> options = new ArrayList<>(productCounters.length);
+            for (LocationCounter location : productCounters) {
+                LocationRow row = known.get(location.getLocationCode());
+                double distance = row == null || latitude == null || longitude == null ? Double.NaN
+                        : distanceKm(latitude, longitude, row.latitude(), row.longitude());
+                options.add(new AllocationStrategy.LocationOption(location.getLocationCode(),
+                        location.getQuantity(), location.getAllocatedQuantity(), distance));
+            }
+            List<LocationAllocation> plan = strategy.plan(quantity, options);
+            if (plan.stream().mapToInt(LocationAllocation::quantity).sum() < quantity) {
+                return null;
+            }
+            List<LocationAllocation> taken = new ArrayList<>(plan.size());
+            for (LocationAllocation part : plan) {
+                LocationCounter location = find(productCounters, part.locationCode());
+                if (location == null || !location.tryAllocate(part.quantity())) {
+                    break;
+                }
+                taken.add(part);
+            }
+            if (taken.size() == plan.size()) {
+                taken.forEach(part -> markDirty(find(productCounters, part.locationCode())));
+                return plan;
+            }
+            for (LocationAllocation part : taken) {
+                find(productCounters, part.locationCode()).release(part.quantity());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the units of a product that are neither sold nor allocated, over all locations
+     */
+    int available(long productId) {
+        int available = 0;
+        for (LocationCounter location : counters(productId)) {
+            available += location.getAvailableQuantity();
+        }
+        return available;
+    }
+
+    void track(ReservationHold hold, List<LocationAllocation> split) {
+        if (split.isEmpty()) {
+            return;
+        }
+        splits.put(hold.getId(), new HoldSplit(hold.getProductId(), split));
+        dirtySplits.add(hold.getId());
+    }
+
+    @Override
+    public void onHoldReleased(ReservationHold hold, int quantity) {
+        LocationCounter[] productCounters = counters(hold.getProductId());
+        if (productCounters.length == 0) {
+            return;
+        }
+        HoldSplit split = split(hold);
+        if (split == null) {
+            return;
+        }
+        for (LocationAllocation part : split.take(quantity)) {
+            LocationCounter location = find(productCounters, part.locationCode());
+            if (location != null) {
+                location.release(part.quantity());
+                markDirty(location);
+            }
+        }
+        settled(hold, split);
+    }
+
+    @Override
+    public void onHoldConfirmed(ReservationHold hold, int quantity) {
+        LocationCounter[] productCounters = counters(hold.getProductId());
+        if (productCounters.length == 0) {
+            return;
+        }
+        int remaining = quantity;
+        HoldSplit split = split(hold);
+        if (split != null) {
+            for (LocationAllocation part : split.take(quantity)) {
+                LocationCounter location = find(productCounters, part.locationCode());
+                if (location != null) {
+                    location.commit(part.quantity());
+                    markDirty(location);
+                    remaining -= part.quantity();
+                }
+            }
+            settled(hold, split);
+        }
+        if (remaining > 0) {
+            deduct(productCounters, remaining);
+        }
+    }
+
+    /*
+     * Ships units of a hold with no split, one stored before splits were kept for /reserve,
+     * from unallocated stock only: allocated units belong to other holds. While the locations
+     * add up to the product there is always enough, since those units were never allocated.
+     */
+    private void deduct(LocationCounter[] productCounters, int amount) {
+        LocationCounter[] fullest = productCounters.clone();
+        Arrays.sort(fullest, Comparator.comparingInt(LocationCounter::getAvailableQuantity).reversed());
+        int remaining = amount;
+        for (LocationCounter location : fullest) {
+            int taken = location.deduct(remaining);
+            if (taken > 0) {
+                markDirty(location);
+                remaining -= taken;
+            }
+            if (remaining == 0) {
+                return;
+            }
+        }
+        log.warn("Locations of product {} had {} fewer unallocated units than a confirmed hold shipped",
+                productCounters[0].getProductId(), remaining);
+    }
+
+    private void settled(ReservationHold hold, HoldSplit split) {
+        if (split.isEmpty()) {
+            splits.remove(hold.getId(), split);
+        }
+        dirtySplits.add(hold.getId());
+    }
+
+    /*
+     * Splits made since startup are all in memory; only holds older than that can have one
+     * that is stored but not loaded.
+     */
+    private HoldSplit split(ReservationHold hold) {
+        HoldSplit split = splits.get(hold.getId());
+        if (split != null || !hold.getCreatedAt().isBefore(startedAt)) {
+            return split;
+        }
+        List<AllocationRow> rows = locationRepository.findAllocations(hold.getId());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        HoldSplit stored = new HoldSplit(hold.getProductId(), rows.stream()
+                .map(row -> new LocationAllocation(row.locationCode(), row.quantity()))
+                .toList());
+        HoldSplit raced = splits.putIfAbsent(hold.getId(), stored);
+        return raced != null ? raced : stored;
+    }
+
+    LocationCounter[] counters(long productId) {
+        LocationCounter[] loaded = counters.get(productId);
+        if (loaded != null) {
+            return loaded;
+        }
+        List<LocationStockRow> rows = locationRepository.findStock(productId);
+        LocationCounter[] fresh = rows.isEmpty() ? NONE : rows.stream()
+                .map(row -> new LocationCounter(productId, row.locationCode(), row.quantity(), row.allocatedQuantity()))
+                .toArray(LocationCounter[]::new);
+        LocationCounter[] raced = counters.putIfAbsent(productId, fresh);
+        return raced != null ? raced : fresh;
+    }
+
+    private LocationCounter counter(long productId, String locationCode) {
+        LocationCounter existing = find(counters(productId), locationCode);
+        if (existing != null) {
+            return existing;
+        }
+        LocationCounter[] updated = counters.compute(productId, (id, current) -> {
+            if (find(current, locationCode) != null) {
+                return current;
+            }
+            LocationCounter[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = new LocationCounter(productId, locationCode, 0, 0);
+            return grown;
+        });
+        return find(updated, locationCode);
+    }
+
+    private static LocationCounter find(LocationCounter[] productCounters, String locationCode) {
+        for (LocationCounter location : productCounters) {
+            if (location.getLocationCode().equals(locationCode)) {
+                return location;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, LocationRow> locations() {
+        Map<String, LocationRow> loaded = locations;
+        if (loaded == null) {
+            loaded = new LinkedHashMap<>();
+            for (LocationRow row : locationRepository.findLocations()) {
+                loaded.put(row.code(), row);
+            }
+            locations = loaded;
+        }
+        return loaded;
+    }
+
+    // a location added to the table after the first lookup is picked up on first use
+    private LocationRow location(String code) {
+        LocationRow row = locations().get(code);
+        if (row == null) {
+            locations = null;
+            row = locations().get(code);
+        }
+        if (row == null) {
+            throw new LocationNotFoundException("Location not found: " + code);
+        }
+        return row;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.locations.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushCounters();
+            flushSplits();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushCounters() {
+        List<LocationCounter> dirty = new ArrayList<>();
+        LocationCounter location;
+        while ((location = dirtyCounters.poll()) != null) {
+            location.clearDirty();
+            dirty.add(location);
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<LocationStockRow> rows = new ArrayList<>(dirty.size());
+        for (LocationCounter changed : dirty) {
+            rows.add(new LocationStockRow(changed.getProductId(), changed.getLocationCode(), changed.getQuantity(),
+                    changed.getAllocatedQuantity(), now));
+        }
+        try {
+            locationRepository.upsertStock(rows);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} location stock rows, will retry", rows.size(), ex);
+            dirty.forEach(this::markDirty);
+        }
+    }
+
+    private void flushSplits() {
+        List<String> holdIds = new ArrayList<>();
+        Iterator<String> it = dirtySplits.iterator();
+        while (it.hasNext()) {
+            holdIds.add(it.next());
+            it.remove();
+        }
+        if (holdIds.isEmpty()) {
+            return;
+        }
+        List<AllocationRow> rows = new ArrayList<>();
+        for (String holdId : holdIds) {
+            HoldSplit split = splits.get(holdId);
+            if (split != null) {
+                for (LocationAllocation part : split.parts()) {
+                    rows.add(new AllocationRow(holdId, split.productId, part.locationCode(), part.quantity()));
+                }
+            }
+        }
+        try {
+            locationRepository.replaceAllocations(holdIds, rows);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush the location split of {} holds, will retry", holdIds.size(), ex);
+            dirtySplits.addAll(holdIds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void markDirty(LocationCounter location) {
+        if (location.markDirty()) {
+            dirtyCounters.add(location);
+        }
+    }
+
+    static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double dLatitude = Math.toRadians(toLatitude - fromLatitude);
+        double dLongitude = Math.toRadians(toLongitude - fromLongitude);
+        double a = Math.pow(Math.sin(dLatitude / 2), 2) + Math.cos(Math.toRadians(fromLatitude))
+                * Math.cos(Math.toRadians(toLatitude)) * Math.pow(Math.sin(dLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static LocationStockResponse mapToResponse(LocationCounter location) {
+        return new LocationStockResponse(location.getProductId(), location.getLocationCode(),
+                location.getQuantity(), location.getAllocatedQuantity(), location.getAvailableQuantity());
+    }
+
+    /**
+     * The units an active hold still has at each location, in the order they were taken.
+     */
+    private static final class HoldSplit {
+        private final long productId;
+        private final List<LocationAllocation> parts;
+
+        HoldSplit(long productId, List<LocationAllocation> parts) {
+            this.productId = productId;
+            this.parts = new ArrayList<>(parts);
+        }
+
+        synchronized List<LocationAllocation> parts() {
+            return List.copyOf(parts);
+        }
+
+        synchronized boolean isEmpty() {
+            return parts.isEmpty();
+        }
+
+        /**
+         * Takes up to {@code amount} units, from the last location filled backwards.
+         */
+        synchronized List<LocationAllocation> take(int amount) {
+            List<LocationAllocation> taken = new ArrayList<>();
+            int remaining = amount;
+            for (int i = parts.size() - 1; i >= 0 && remaining > 0; i--) {
+                LocationAllocation part = parts.get(i);
+                int units = Math.min(remaining, part.quantity());
+                taken.add(new LocationAllocation(part.locationCode(), units));
+                remaining -= units;
+                if (units == part.quantity()) {
+                    parts.remove(i);
+                } else {
+                    parts.set(i, new LocationAllocation(part.locationCode(), part.quantity() - units));
+                }
+            }
+            return taken;
+        }
+    }
+}
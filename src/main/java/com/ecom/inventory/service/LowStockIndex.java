@@ -0,0 +1,220 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.LowStockAlert;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Sorted set of products whose available quantity is at or below their reorder level,
+ * maintained incrementally from {@link StockLedger} changes. Counters that are already low
+ * when loaded join the index silently; after that only threshold crossings are
+ * acted on: a downward crossing logs one {@code LOW_STOCK_ALERT}, and both directions are
+ * pushed to subscribers so slow consumers never hold up a writer.
+ * <p>
+ * Crossings are decided and handed to subscribers under the counter's monitor, so every
+ * subscriber sees a product's crossings in the order they happened; handing over never
+ * blocks. The {@code LOW_STOCK_ALERT} event is published after leaving the monitor, since
+ * publishing can block on a full event queue. Each subscriber has its own buffer of
+ * {@code inventory.low-stock.subscriber-buffer} alerts, drained on a worker thread of its
+ * own; a subscriber that falls that far behind is dropped and told through its overflow
+ * callback, so it can neither grow memory nor delay the others.
+ */
+@Component
+public class LowStockIndex implements StockChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockIndex.class);
+
+    private final InventoryEventPublisher eventPublisher;
+    private final ConcurrentSkipListMap<Long, StockCounter> lowStock = new ConcurrentSkipListMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier;
+    private final int subscriberBuffer;
+    private final Counter alerts;
+    private final Counter droppedSubscribers;
+
+    public LowStockIndex(InventoryEventPublisher eventPublisher, WorkerThreads workerThreads,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.low-stock.subscriber-buffer:1024}") int subscriberBuffer) {
+        this.eventPublisher = eventPublisher;
+        this.subscriberBuffer = subscriberBuffer;
+        this.alerts = Counter.builder("inventory.low.stock.alerts")
+                .description("Downward crossings of a product's reorder level")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("inventory.low.stock.subscribers.dropped")
+                .description("Low-stock subscribers dropped for falling too far behind")
+                .register(meterRegistry);
+        this.notifier = Executors.newCachedThreadPool(workerThreads.factory("low-stock-notifier"));
+    }
+
+    public List<StockCounter> page(Long after, int size) {
+        List<StockCounter> page = new ArrayList<>(Math.min(size, lowStock.size()));
+        for (StockCounter counter : lowStock.tailMap(after, false).values()) {
+            if (page.size() == size) {
+                break;
+            }
+            page.add(counter);
+        }
+        return page;
+    }
+
+    public int size() {
+        return lowStock.size();
+    }
+
+    /**
+     * @param onOverflow run, instead of delivering further alerts, once the subscriber has
+     *                   fallen {@code subscriber-buffer} alerts behind
+     * @return a handle that unsubscribes
+     */
+    public Runnable subscribe(Consumer<LowStockAlert> subscriber, Runnable onOverflow) {
+        Subscription subscription = new Subscription(subscriber, onOverflow);
+        subscriptions.add(subscription);
+        return () -> subscriptions.remove(subscription);
+    }
+
+    @Override
+    public void onCounterLoaded(StockCounter counter) {
+        synchronized (counter) {
+            boolean low = isLow(counter, counter.state());
+            if (low != counter.isLowStock()) {
+                counter.setLowStock(low);
+                if (low) {
+                    lowStock.put(counter.getProductId(), counter);
+                } else {
+                    lowStock.remove(counter.getProductId());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onCounterEvicted(StockCounter counter) {
+        synchronized (counter) {
+            lowStock.remove(counter.getProductId(), counter);
+        }
+    }
+
+    @Override
+    public void onStockChanged(StockCounter counter, long previousState, long currentState) {
+        if (isLow(counter, currentState) != counter.isLowStock()) {
+            evaluate(counter);
+        }
+    }
+
+    /*
+     * The flag is only flipped under the counter's monitor, and the state is re-read after
+     * every flip, so a concurrent change that lands between the read and the flip is either
+     * seen by this loop or sees the new flag and re-evaluates itself. Subscribers are told
+     * of each crossing before the monitor is released; the events wait until after.
+     */
+    private void evaluate(StockCounter counter) {
+        List<LowStockAlert> crossings = new ArrayList<>(1);
+        synchronized (counter) {
+            long state;
+            do {
+                state = counter.state();
+                boolean low = isLow(counter, state);
+                if (low != counter.isLowStock()) {
+                    counter.setLowStock(low);
+                    if (low) {
+                        lowStock.put(counter.getProductId(), counter);
+                    } else {
+                        lowStock.remove(counter.getProductId());
+                    }
+                    LowStockAlert alert = new LowStockAlert(counter.getProductId(), low,
+                            StockCounter.available(state), counter.getReorderLevel(), counter.getSequence(),
+                            LocalDateTime.now());
+                    for (Subscription subscription : subscriptions) {
+                        subscription.offer(alert);
+                    }
+                    crossings.add(alert);
+                }
+            } while (state != counter.state());
+        }
+        for (LowStockAlert alert : crossings) {
+            if (alert.lowStock()) {
+                alerts.increment();
+                eventPublisher.publish(new InventoryEvent(alert.productId(), InventoryEventType.LOW_STOCK_ALERT,
+                        alert.availableQuantity(), alert.timestamp()));
+            }
+        }
+    }
+
+    private static boolean isLow(StockCounter counter, long state) {
+        return StockCounter.available(state) <= counter.getReorderLevel();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    /*
+     * At most one drain task per subscription is queued or running at a time; whoever
+     * offers an alert while none is starts one.
+     */
+    private final class Subscription {
+
+        private final Consumer<LowStockAlert> subscriber;
+        private final Runnable onOverflow;
+        private final BlockingQueue<LowStockAlert> pending = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(Consumer<LowStockAlert> subscriber, Runnable onOverflow) {
+            this.subscriber = subscriber;
+            this.onOverflow = onOverflow;
+        }
+
+        void offer(LowStockAlert alert) {
+            if (!pending.offer(alert)) {
+                if (subscriptions.remove(this)) {
+                    log.warn("Low-stock subscriber fell {} alerts behind, dropping it", subscriberBuffer);
+                    droppedSubscribers.increment();
+                    pending.clear();
+                    notifier.execute(onOverflow);
+                }
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                notifier.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                LowStockAlert alert;
+                while ((alert = pending.poll()) != null) {
+                    try {
+                        subscriber.accept(alert);
+                    } catch (RuntimeException ex) {
+                        log.warn("Low-stock subscriber failed, unsubscribing", ex);
+                        subscriptions.remove(this);
+                        pending.clear();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ships from the closest locations first; without a destination, from the fullest.
+ */
+@Component
+public class NearestLocationStrategy implements AllocationStrategy {
+
+    static final Comparator<LocationOption> NEAREST = Comparator
+            .comparingDouble(LocationOption::distanceKm)
+            .thenComparing(Comparator.comparingInt(LocationOption::available).reversed());
+
+    @Override
+    public String name() {
+        return "nearest";
+    }
+
+    @Override
+    public List<LocationAllocation> plan(int quantity, List<LocationOption> options) {
+        return AllocationStrategy.fill(quantity, options.stream().sorted(NEAREST).toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.exception.HoldNotFoundException;
+import com.ecom.inventory.exception.InsufficientStockException;
+import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.exception.RejectionCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Times {@link InventoryService} operations into {@code inventory.operation} timers tagged
+ * with the operation and its outcome, and counts insufficient-stock rejections and not-found
+ * lookups. Timers are kept in an array indexed by operation and outcome, so recording is a
+ * clock read and a histogram update with no registry lookup; each is registered on first use,
+ * so outcomes an operation never has export no histogram series. The histogram starts at a
+ * microsecond, because most operations are served from memory and the default millisecond
+ * floor would put all of them in the first bucket.
+ */
+@Component
+public class OperationMetrics {
+
+    public static final Duration MINIMUM_EXPECTED = Duration.ofNanos(1_000);
+    public static final Duration MAXIMUM_EXPECTED = Duration.ofSeconds(10);
+
+    public enum Operation {
+        GET, AVAILABILITY, PAGE, EXPORT, EVENTS, DAILY, UPSERT, RESERVE, RESERVE_BATCH, ALLOCATE, RELEASE,
+        HOLD_GET, HOLD_EXTEND, HOLD_CONFIRM, HOLD_RELEASE, LOW_STOCK
+    }
+
+    private enum Outcome { SUCCESS, INSUFFICIENT_STOCK, NOT_FOUND, ERROR }
+
+    private final MeterRegistry meterRegistry;
+    private final Timer[][] timers = new Timer[Operation.values().length][Outcome.values().length];
+    private final Counter insufficientStock;
+    private final Counter notFound;
+
+    public OperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.insufficientStock = Counter.builder("inventory.reservations.rejected")
+                .description("Reservations turned down for insufficient stock")
+                .register(meterRegistry);
+        this.notFound = Counter.builder("inventory.lookups.not.found")
+                .description("Requests for products or holds that do not exist")
+                .register(meterRegistry);
+    }
+
+    public <T> T record(Operation operation, Supplier<T> call) {
+        return record(operation, call, result -> null);
+    }
+
+    /**
+     * Like {@link #record(Operation, Supplier)} for calls that return their rejections
+     * instead of throwing them.
+     */
+    public <T> T record(Operation operation, Supplier<T> call, Function<? super T, RejectionCode> rejection) {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            T result = call.get();
+            outcome = outcome(rejection.apply(result));
+            return result;
+        } catch (InsufficientStockException ex) {
+            outcome = Outcome.INSUFFICIENT_STOCK;
+            insufficientStock.increment();
+            throw ex;
+        } catch (InventoryNotFoundException | HoldNotFoundException ex) {
+            outcome = Outcome.NOT_FOUND;
+            notFound.increment();
+            throw ex;
+        } finally {
+            timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Outcome outcome(RejectionCode rejection) {
+        if (rejection == null) {
+            return Outcome.SUCCESS;
+        }
+        return switch (rejection) {
+            case INSUFFICIENT_STOCK -> {
+                insufficientStock.increment();
+                yield Outcome.INSUFFICIENT_STOCK;
+            }
+            case NOT_FOUND -> {
+                notFound.increment();
+                yield Outcome.NOT_FOUND;
+            }
+        };
+    }
+
+    // a racing first use registers the same meter twice, and the registry returns the same timer
+    private Timer timer(Operation operation, Outcome outcome) {
+        Timer timer = timers[operation.ordinal()][outcome.ordinal()];
+        if (timer == null) {
+            timer = Timer.builder("inventory.operation")
+                    .description("Time spent in an inventory service operation")
+                    .tag("operation", operation.name().toLowerCase())
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MINIMUM_EXPECTED)
+                    .maximumExpectedValue(MAXIMUM_EXPECTED)
+                    .register(meterRegistry);
+            timers[operation.ordinal()][outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecom.inventory.service;
+
+/**
+ * Rebuilds one product's stock by folding its events, in sequence order, over its latest
+ * snapshot. Events at or below the current sequence are duplicates and are skipped. A jump
+ * in sequence is counted as a gap; with {@code stopAtGap} the fold stops there, so the
+ * result only ever covers an unbroken prefix of the log and is safe to store as a snapshot.
+ */
+final class ReplayFold {
+
+    private final long productId;
+    private final long baseSequence;
+    private final boolean stopAtGap;
+    private long sequence;
+    private int quantity;
+    private int reservedQuantity;
+    private int reorderLevel;
+    private int eventsApplied;
+    private int gaps;
+    private boolean stopped;
+
+    private ReplayFold(long productId, long sequence, int quantity, int reservedQuantity, int reorderLevel,
+                       boolean stopAtGap) {
+        this.productId = productId;
+        this.baseSequence = sequence;
+        this.sequence = sequence;
+        this.quantity = quantity;
+        this.reservedQuantity = reservedQuantity;
+        this.reorderLevel = reorderLevel;
+        this.stopAtGap = stopAtGap;
+    }
+
+    static ReplayFold fromSnapshot(long productId, long sequence, int quantity, int reservedQuantity,
+                                   int reorderLevel, boolean stopAtGap) {
+        return new ReplayFold(productId, sequence, quantity, reservedQuantity, reorderLevel, stopAtGap);
+    }
+
+    static ReplayFold empty(long productId, boolean stopAtGap) {
+        return new ReplayFold(productId, 0L, 0, 0, 0, stopAtGap);
+    }
+
+    /**
+     * @return whether the event was applied
+     */
+    boolean apply(long eventSequence, int quantityDelta, int reservedDelta, Integer eventReorderLevel) {
+        if (stopped || eventSequence <= sequence) {
+            return false;
+        }
+        if (eventSequence != sequence + 1) {
+            gaps++;
+            if (stopAtGap) {
+                stopped = true;
+                return false;
+            }
+        }
+        sequence = eventSequence;
+        quantity += quantityDelta;
+        reservedQuantity += reservedDelta;
+        if (eventReorderLevel != null) {
+            reorderLevel = eventReorderLevel;
+        }
+        eventsApplied++;
+        return true;
+    }
+
+    long getProductId() {
+        return productId;
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+
+    int getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    int getEventsApplied() {
+        return eventsApplied;
+    }
+
+    int getGaps() {
+        return gaps;
+    }
+
+    /**
+     * @return whether the fold stopped at a gap after {@link #getSequence()}
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+}
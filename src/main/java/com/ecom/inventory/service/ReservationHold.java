@@ -0,0 +1,114 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.model.HoldStatus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory state of one reservation hold. Every transition out of {@link HoldStatus#ACTIVE}
+ * and every quantity change happens under the hold's monitor, so release, confirm and
+ * expiry of the same hold can race without double-releasing stock.
+ */
+public final class ReservationHold {
+
+    private static final AtomicLong INSTANCES = new AtomicLong();
+
+    private final String id;
+    private final Long productId;
+    private final LocalDateTime createdAt;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    // breaks ties between holds created within the same clock tick
+    private final long instance = INSTANCES.incrementAndGet();
+    private volatile HoldStatus status;
+    private volatile int quantity;
+    private volatile long expiresAtMillis;
+
+    ReservationHold(String id, Long productId, int quantity, HoldStatus status, LocalDateTime createdAt,
+                    long expiresAtMillis) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    long getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the quantity that was held, or 0 if the hold was no longer active
+     */
+    synchronized int close(HoldStatus target) {
+        if (status != HoldStatus.ACTIVE) {
+            return 0;
+        }
+        status = target;
+        return quantity;
+    }
+
+    /**
+     * Takes up to {@code amount} units out of an active hold, closing it as released once
+     * nothing is left.
+     *
+     * @return the units taken
+     */
+    synchronized int shrink(int amount) {
+        if (status != HoldStatus.ACTIVE) {
+            return 0;
+        }
+        int taken = Math.min(amount, quantity);
+        quantity -= taken;
+        if (quantity == 0) {
+            status = HoldStatus.RELEASED;
+        }
+        return taken;
+    }
+
+    synchronized boolean extend(long expiresAtMillis) {
+        if (status != HoldStatus.ACTIVE) {
+            return false;
+        }
+        this.expiresAtMillis = expiresAtMillis;
+        return true;
+    }
+
+    boolean isDirty() {
+        return dirty.get();
+    }
+
+    boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    void clearDirty() {
+        dirty.set(false);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.StockReservationResponse;
+import com.ecom.inventory.exception.InsufficientStockException;
+import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.exception.RejectionCode;
+
+/**
+ * The outcome of a single reservation: either the response for the units reserved, or a
+ * {@link RejectionCode} with the numbers needed to explain it. Rejections are returned
+ * rather than thrown, because during a sell-out they are most of the traffic.
+ */
+public record ReservationResult(
+        StockReservationResponse response,
+        RejectionCode rejection,
+        long productId,
+        int available,
+        int requested
+) {
+
+    public static ReservationResult reserved(StockReservationResponse response) {
+        return new ReservationResult(response, null, response.productId(), response.availableQuantity(), 0);
+    }
+
+    public static ReservationResult insufficientStock(long productId, int available, int requested) {
+        return new ReservationResult(null, RejectionCode.INSUFFICIENT_STOCK, productId, available, requested);
+    }
+
+    public static ReservationResult notFound(long productId) {
+        return new ReservationResult(null, RejectionCode.NOT_FOUND, productId, 0, 0);
+    }
+
+    public boolean isReserved() {
+        return rejection == null;
+    }
+
+    /**
+     * @return the response, or the rejection as the exception the rest of the API throws
+     */
+    public StockReservationResponse orElseThrow() {
+        if (rejection == null) {
+            return response;
+        }
+        throw switch (rejection) {
+            case INSUFFICIENT_STOCK -> new InsufficientStockException(productId, available, requested);
+            case NOT_FOUND -> new InventoryNotFoundException(productId);
+        };
+    }
+}
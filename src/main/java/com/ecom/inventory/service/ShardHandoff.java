@@ -0,0 +1,66 @@
+package com.ecom.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongPredicate;
+
+/**
+ * Moves in-memory state between instances when {@link ShardRouter} changes the ring.
+ * Products this instance lost are written out and dropped: their holds first, so no expiry
+ * runs here afterwards, then their counters and any pending events. Their new owner loads
+ * the counters lazily from the table and adopts the holds that are still active. The old
+ * owner's writes can land after that, so {@link ShardRouter} also sweeps for active holds
+ * of owned products periodically, and the flusher merges stock rows written by another
+ * instance instead of overwriting them.
+ */
+@Component
+public class ShardHandoff {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardHandoff.class);
+
+    private final StockLedger stockLedger;
+    private final StockLedgerFlusher stockLedgerFlusher;
+    private final InventoryEventPublisher eventPublisher;
+    private final HoldManager holdManager;
+    private final Duration flushTimeout;
+
+    public ShardHandoff(StockLedger stockLedger,
+                        StockLedgerFlusher stockLedgerFlusher,
+                        InventoryEventPublisher eventPublisher,
+                        HoldManager holdManager,
+                        @Value("${inventory.sharding.handoff-timeout:5s}") Duration flushTimeout) {
+        this.stockLedger = stockLedger;
+        this.stockLedgerFlusher = stockLedgerFlusher;
+        this.eventPublisher = eventPublisher;
+        this.holdManager = holdManager;
+        this.flushTimeout = flushTimeout;
+    }
+
+    public void rebalance(LongPredicate lost, LongPredicate acquired) {
+        int holdsHandedOff = holdManager.handOff(lost);
+        // a counter for an acquired product can only be left over from before it was lost
+        int countersEvicted = stockLedger.evict(productId -> lost.test(productId) || acquired.test(productId));
+        stockLedgerFlusher.flush();
+        if (!eventPublisher.flush(flushTimeout)) {
+            log.warn("Events for handed-off products were not all written within {}", flushTimeout);
+        }
+        int holdsAdopted = holdManager.adopt(acquired);
+        log.info("Shard rebalance: evicted {} counters, handed off {} holds, adopted {} holds",
+                countersEvicted, holdsHandedOff, holdsAdopted);
+    }
+
+    /**
+     * Adopts the active holds of owned products that are stored but not tracked here, such as
+     * holds the previous owner wrote after the last rebalance had already swept the table.
+     */
+    public void adoptStrays(LongPredicate owned) {
+        int adopted = holdManager.adopt(owned);
+        if (adopted > 0) {
+            log.info("Adopted {} active holds of owned products that were not tracked yet", adopted);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecom.inventory.service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Immutable consistent-hash ring over the instances of the service. Every member is placed
+ * at {@code virtualNodes} points on a 64-bit ring and owns the productIds that hash to the
+ * arc ending at each of its points, so adding or removing one member only moves the
+ * products on its own arcs. Members are identified by base URI; every instance builds the
+ * same ring from the same member set.
+ */
+final class ShardRing {
+
+    private final List<URI> members;
+    private final long[] points;
+    private final int[] owners;
+
+    private ShardRing(List<URI> members, long[] points, int[] owners) {
+        this.members = members;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    static ShardRing of(SortedSet<URI> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A shard ring needs at least one member");
+        }
+        List<URI> ordered = List.copyOf(members);
+        long[] hashes = new long[ordered.size() * virtualNodes];
+        for (int m = 0; m < ordered.size(); m++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                // the low bits carry the member, so equal hashes still sort deterministically
+                hashes[m * virtualNodes + v] = (hash(ordered.get(m) + "#" + v) & ~0xFFFFL) | m;
+            }
+        }
+        Arrays.sort(hashes);
+        int[] owners = new int[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            owners[i] = (int) (hashes[i] & 0xFFFF);
+        }
+        return new ShardRing(ordered, hashes, owners);
+    }
+
+    URI owner(long productId) {
+        int i = Arrays.binarySearch(points, mix(productId));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return members.get(owners[i == points.length ? 0 : i]);
+    }
+
+    List<URI> members() {
+        return members;
+    }
+
+    private static long hash(String member) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : member.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // murmur3 finalizer; sequential productIds land all over the ring
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,186 @@
+package com.ecom.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Assigns every productId to one instance of the service with a {@link ShardRing} built from
+ * the instances the {@link DiscoveryClient} reports, so that each product's counter and holds
+ * live on a single instance. Membership is re-read every
+ * {@code inventory.sharding.refresh-interval-ms}; when it changes, the ring is swapped and
+ * {@link ShardHandoff} moves the affected state.
+ * <p>
+ * Any discovery client works: Eureka in production, or the simple discovery client's
+ * {@code spring.cloud.discovery.client.simple.instances} list as a local stand-in. This
+ * instance is always a member of its own ring, identified by
+ * {@code inventory.sharding.self-uri}, or else by its service registration. The ring
+ * is in place before the web server accepts requests; until then, and with sharding
+ * disabled, this instance owns every product.
+ */
+@Component
+public class ShardRouter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final ShardHandoff shardHandoff;
+    private final boolean enabled;
+    private final String serviceId;
+    private final String configuredSelf;
+    private final int serverPort;
+    private final int virtualNodes;
+    private final Lock refreshLock = new ReentrantLock();
+
+    private volatile URI self;
+    private volatile ShardRing ring;
+    private volatile boolean running;
+
+    public ShardRouter(DiscoveryClient discoveryClient,
+                       ObjectProvider<Registration> registration,
+                       ShardHandoff shardHandoff,
+                       @Value("${inventory.sharding.enabled:false}") boolean enabled,
+                       @Value("${spring.application.name}") String serviceId,
+                       @Value("${inventory.sharding.self-uri:}") String configuredSelf,
+                       @Value("${server.port:8080}") int serverPort,
+                       @Value("${inventory.sharding.virtual-nodes:128}") int virtualNodes) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.shardHandoff = shardHandoff;
+        this.enabled = enabled;
+        this.serviceId = serviceId;
+        this.configuredSelf = configuredSelf;
+        this.serverPort = serverPort;
+        this.virtualNodes = virtualNodes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean owns(long productId) {
+        ShardRing current = ring;
+        return current == null || current.owner(productId).equals(self);
+    }
+
+    /**
+     * @return the base URI of the instance that owns {@code productId}
+     */
+    public URI owner(long productId) {
+        ShardRing current = ring;
+        return current == null ? self : current.owner(productId);
+    }
+
+    public List<URI> members() {
+        ShardRing current = ring;
+        return current == null ? List.of() : current.members();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.sharding.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!running) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            SortedSet<URI> members = new TreeSet<>();
+            members.add(self);
+            try {
+                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                    members.add(baseUri(instance.getUri()));
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Could not read {} instances from discovery, keeping the current shard ring", serviceId, ex);
+                return;
+            }
+            ShardRing previous = ring;
+            if (previous.members().equals(List.copyOf(members))) {
+                return;
+            }
+            ShardRing next = ShardRing.of(members, virtualNodes);
+            ring = next;
+            log.info("Shard ring changed to {} members: {}", members.size(), members);
+            URI me = self;
+            LongPredicate lost = productId -> me.equals(previous.owner(productId)) && !me.equals(next.owner(productId));
+            LongPredicate acquired = productId -> !me.equals(previous.owner(productId)) && me.equals(next.owner(productId));
+            shardHandoff.rebalance(lost, acquired);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${inventory.sharding.adopt-interval-ms:30000}",
+            fixedDelayString = "${inventory.sharding.adopt-interval-ms:30000}")
+    public void adoptHolds() {
+        if (!running) {
+            return;
+        }
+        try {
+            shardHandoff.adoptStrays(this::owns);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to sweep for untracked holds of owned products", ex);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        self = resolveSelf();
+        ring = ShardRing.of(new TreeSet<>(List.of(self)), virtualNodes);
+        running = true;
+        refresh();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /*
+     * After the event publisher and the producers, whose holds and events the first rebalance
+     * flushes, and before the web server; so on shutdown it hands off before they stop.
+     */
+    @Override
+    public int getPhase() {
+        return InventoryEventPublisher.PRODUCER_PHASE + 1;
+    }
+
+    private URI resolveSelf() {
+        if (!configuredSelf.isBlank()) {
+            return baseUri(URI.create(configuredSelf));
+        }
+        Registration own = registration.getIfAvailable();
+        if (own != null) {
+            return baseUri(own.getUri());
+        }
+        return URI.create("http://localhost:" + serverPort);
+    }
+
+    private static URI baseUri(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+        return URI.create(uri.getScheme() + "://" + uri.getHost() + ":" + port);
+    }
+}
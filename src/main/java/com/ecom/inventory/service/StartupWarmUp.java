@@ -0,0 +1,192 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the hot paths before the instance reports itself ready, so that the first real
+ * requests do not pay for class loading, interpretation and connection pool growth.
+ * Application runners run before Spring Boot moves readiness to {@code ACCEPTING_TRAFFIC},
+ * so until this finishes the health endpoint reports {@code OUT_OF_SERVICE} and Eureka
+ * keeps the instance out of rotation.
+ * <p>
+ * The warm-up changes nothing. Counter compare-and-set loops run against a private
+ * {@link StockTable} of synthetic products; over HTTP it reads real products one at a time
+ * and in bulk, and posts reservations for zero units, which go through body parsing and
+ * validation and are rejected before they reach the ledger.
+ * <p>
+ * {@code /reserve} is therefore not warmed past validation. A real reserve and release, even
+ * on a synthetic product, would leave its row, its events and its holds in the database, so
+ * the first real reservations still run the ledger, hold and event publishing code cold;
+ * only the counter compare-and-set loops underneath them have been exercised.
+ */
+@Component
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+    private static final int SYNTHETIC_PRODUCTS = 64;
+    private static final int SAMPLED_PRODUCTS = 256;
+    private static final int AVAILABILITY_BATCH = 50;
+
+    private final ApplicationContext context;
+    private final StockLedger stockLedger;
+    private final ShardRouter shardRouter;
+    private final WorkerThreads workerThreads;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int requests;
+    private final int threads;
+    private final Duration maxDuration;
+
+    public StartupWarmUp(ApplicationContext context,
+                         StockLedger stockLedger,
+                         ShardRouter shardRouter,
+                         WorkerThreads workerThreads,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.warmup.enabled:true}") boolean enabled,
+                         @Value("${inventory.warmup.requests:5000}") int requests,
+                         @Value("${inventory.warmup.threads:2}") int threads,
+                         @Value("${inventory.warmup.max-duration:10s}") Duration maxDuration) {
+        this.context = context;
+        this.stockLedger = stockLedger;
+        this.shardRouter = shardRouter;
+        this.workerThreads = workerThreads;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.requests = requests;
+        this.threads = threads;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        exerciseCounters(deadline);
+        int served = 0;
+        if (context instanceof WebServerApplicationContext web && web.getWebServer() != null
+                && web.getWebServer().getPort() > 0) {
+            served = exerciseEndpoints(web.getWebServer().getPort(), deadline);
+        }
+        long elapsed = System.nanoTime() - start;
+        TimeGauge.builder("inventory.startup.duration", () -> elapsed, TimeUnit.NANOSECONDS)
+                .description("Time spent in each startup phase before accepting traffic")
+                .tag("phase", "warm-up")
+                .register(meterRegistry);
+        log.info("Warmed up with {} requests in {} ms", served, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private void exerciseCounters(long deadline) {
+        StockTable table = new StockTable(SYNTHETIC_PRODUCTS);
+        for (int i = 0; i < SYNTHETIC_PRODUCTS; i++) {
+            table.putIfAbsent(i + 1, i + 1, Integer.MAX_VALUE / 2, 0, 0, StockCounter.NO_TIMESTAMP, 0);
+        }
+        int iterations = requests * 10;
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            StockCounter counter = table.get((long) (i % SYNTHETIC_PRODUCTS) + 1);
+            if (counter.tryReserve(1) != StockCounter.REJECTED) {
+                counter.release(1);
+            }
+            counter.touch();
+        }
+    }
+
+    private int exerciseEndpoints(int port, long deadline) {
+        List<Long> productIds = sampleProducts();
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        String base = "http://localhost:" + port + "/api/inventory";
+        String availability = availabilityBody(productIds);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger served = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, workerThreads.factory("warm-up"));
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build()) {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests && System.nanoTime() < deadline) {
+                        long productId = productIds.get(i % productIds.size());
+                        HttpRequest request = switch (i % 4) {
+                            case 0, 1 -> HttpRequest.newBuilder(URI.create(base + "/" + productId)).GET().build();
+                            case 2 -> post(base + "/availability", availability);
+                            default -> post(base + "/reserve", "{\"productId\":" + productId + ",\"quantity\":0}");
+                        };
+                        try {
+                            client.send(request, HttpResponse.BodyHandlers.discarding());
+                            served.incrementAndGet();
+                        } catch (IOException ex) {
+                            log.warn("Stopping warm-up after a failed request", ex);
+                            return;
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.warn("Warm-up failed", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return served.get();
+    }
+
+    private List<Long> sampleProducts() {
+        List<Long> productIds = new ArrayList<>(SAMPLED_PRODUCTS);
+        stockLedger.forEach(counter -> {
+            if (productIds.size() < SAMPLED_PRODUCTS && shardRouter.owns(counter.getProductId())) {
+                productIds.add(counter.getProductId());
+            }
+        });
+        return productIds;
+    }
+
+    private static String availabilityBody(List<Long> productIds) {
+        StringBuilder body = new StringBuilder("{\"productIds\":[");
+        for (int i = 0; i < Math.min(AVAILABILITY_BATCH, productIds.size()); i++) {
+            body.append(i > 0 ? "," : "").append(productIds.get(i));
+        }
+        return body.append("]}").toString();
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
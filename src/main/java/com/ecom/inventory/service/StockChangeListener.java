@@ -0,0 +1,23 @@
+package com.ecom.inventory.service;
+
+/**
+ * Notified synchronously after every mutation applied through {@link StockLedger}. The
+ * states are packed {@link StockCounter} words; {@code currentState} may already include
+ * later concurrent changes, {@code previousState} is exactly the value replaced.
+ */
+public interface StockChangeListener {
+
+    void onStockChanged(StockCounter counter, long previousState, long currentState);
+
+    default void onCounterLoaded(StockCounter counter) {
+    }
+
+    default void onCounterEvicted(StockCounter counter) {
+    }
+
+    /**
+     * Called when a reservation is turned down for lack of stock; nothing changed.
+     */
+    default void onReservationRejected(StockCounter counter) {
+    }
+}
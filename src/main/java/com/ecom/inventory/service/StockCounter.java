@@ -0,0 +1,358 @@
+package com.ecom.inventory.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+
+/**
+ * In-memory stock counters for a single product. Quantity and reserved quantity are packed
+ * into one word so that every reservation is a single compare-and-set and the available
+ * quantity can never be observed or driven below zero: reservations check it in the same
+ * compare-and-set, and quantity changes that would leave it negative are refused.
+ * <p>
+ * A counter is a handle onto one slot of a {@link StockTable} page and holds no stock
+ * itself; the table creates exactly one per product, so it can still be used as the
+ * product's monitor. When the product is removed from the table the handle is retired: its
+ * last state is kept for readers, and every later change through it is refused or becomes a
+ * no-op, so a request still holding it cannot change stock the table no longer tracks.
+ */
+public final class StockCounter {
+
+    static final long REJECTED = -1L;
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    static final long NO_ID = 0L;
+    // quantity Integer.MIN_VALUE with nothing reserved; a live slot never holds it
+    static final long RETIRED = Long.MIN_VALUE;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int DIRTY = 1;
+    private static final int LOW_STOCK = 2;
+
+    private final StockTable.Page page;
+    private final int offset;
+    private final long id;
+    private final long productId;
+    private volatile Retired retired;
+    // the product's row as this instance last read or wrote it; only the flusher changes these
+    private volatile long flushedState;
+    private volatile long flushedVersion;
+
+    StockCounter(StockTable.Page page, int offset) {
+        this.page = page;
+        this.offset = offset;
+        this.id = page.ids[offset];
+        this.productId = page.productIds[offset];
+        this.flushedState = (long) LONGS.getVolatile(page.states, offset);
+    }
+
+    public Long getId() {
+        return id == NO_ID ? null : id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long state() {
+        long state = (long) LONGS.getVolatile(page.states, offset);
+        Retired last = retired;
+        return last != null ? last.state() : state;
+    }
+
+    boolean isRetired() {
+        return retired != null;
+    }
+
+    public int getQuantity() {
+        return quantity(state());
+    }
+
+    public int getReservedQuantity() {
+        return reserved(state());
+    }
+
+    public int getAvailableQuantity() {
+        return available(state());
+    }
+
+    public int getReorderLevel() {
+        int reorderLevel = (int) INTS.getVolatile(page.reorderLevels, offset);
+        Retired last = retired;
+        return last != null ? last.reorderLevel() : reorderLevel;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        long lastUpdated = lastUpdatedMillis();
+        return lastUpdated == NO_TIMESTAMP ? null : HoldManager.toDateTime(lastUpdated);
+    }
+
+    long lastUpdatedMillis() {
+        long lastUpdated = (long) LONGS.getVolatile(page.lastUpdated, offset);
+        Retired last = retired;
+        return last != null ? last.lastUpdatedMillis() : lastUpdated;
+    }
+
+    public long getSequence() {
+        long sequence = (long) LONGS.getVolatile(page.sequences, offset);
+        Retired last = retired;
+        return last != null ? last.sequence() : sequence;
+    }
+
+    /**
+     * @return how many compare-and-sets on this counter have lost a race so far; wraps around
+     */
+    public int getCasRetries() {
+        return (int) INTS.getOpaque(page.casRetries, offset);
+    }
+
+    /**
+     * Reserves {@code amount} units if enough stock is available.
+     *
+     * @return the state before the reservation, or {@link #REJECTED} if stock was short
+     */
+    long tryReserve(int amount) {
+        while (true) {
+            long current = slotState();
+            if (current == RETIRED || available(current) < amount) {
+                return REJECTED;
+            }
+            if (compareAndSet(current, pack(quantity(current), reserved(current) + amount))) {
+                return current;
+            }
+            contended();
+        }
+    }
+
+    /**
+     * Releases up to {@code amount} reserved units.
+     *
+     * @return the state before the release, or {@link #RETIRED}, which has nothing reserved
+     */
+    long release(int amount) {
+        while (true) {
+            long current = slotState();
+            if (current == RETIRED) {
+                return current;
+            }
+            int released = Math.min(amount, reserved(current));
+            if (compareAndSet(current, pack(quantity(current), reserved(current) - released))) {
+                return current;
+            }
+            contended();
+        }
+    }
+
+    /**
+     * Turns {@code amount} reserved units into a sale, removing them from both quantity and
+     * reserved quantity.
+     *
+     * @return the state before the change, or {@link #RETIRED}, which has nothing reserved
+     */
+    long commit(int amount) {
+        while (true) {
+            long current = slotState();
+            if (current == RETIRED) {
+                return current;
+            }
+            int committed = Math.min(amount, reserved(current));
+            if (compareAndSet(current, pack(quantity(current) - committed, reserved(current) - committed))) {
+                return current;
+            }
+            contended();
+        }
+    }
+
+    /**
+     * Sets quantity, and the reorder level if given, unless fewer than the units already
+     * reserved would be left.
+     *
+     * @return the state before the change, or {@link #REJECTED} if quantity was below reserved
+     *         or the counter is retired
+     */
+    long update(int quantity, Integer reorderLevel) {
+        long previous;
+        while (true) {
+            previous = slotState();
+            if (previous == RETIRED || quantity < reserved(previous)) {
+                return REJECTED;
+            }
+            if (compareAndSet(previous, pack(quantity, reserved(previous)))) {
+                break;
+            }
+            contended();
+        }
+        if (reorderLevel != null) {
+            INTS.setVolatile(page.reorderLevels, offset, (int) reorderLevel);
+        }
+        return previous;
+    }
+
+    /**
+     * Moves quantity by {@code delta}, leaving reserved quantity alone, unless fewer than the
+     * units already reserved would be left.
+     *
+     * @return the state before the change, or {@link #REJECTED} if quantity would drop below reserved
+     *         or the counter is retired
+     */
+    long adjust(int delta) {
+        while (true) {
+            long current = slotState();
+            if (current == RETIRED || quantity(current) + delta < reserved(current)) {
+                return REJECTED;
+            }
+            if (compareAndSet(current, pack(quantity(current) + delta, reserved(current)))) {
+                return current;
+            }
+            contended();
+        }
+    }
+
+    /**
+     * Adds a change another instance made to the product's row, bypassing the check that
+     * quantity stays at or above reserved: the change has already happened.
+     *
+     * @return the state before the change
+     */
+    long absorb(int quantityDelta, int reservedDelta) {
+        Retired last = retired;
+        if (last != null) {
+            retired = new Retired(pack(quantity(last.state()) + quantityDelta, reserved(last.state()) + reservedDelta),
+                    last.reorderLevel(), last.lastUpdatedMillis(), last.sequence());
+            return last.state();
+        }
+        while (true) {
+            long current = slotState();
+            if (current == RETIRED) {
+                return absorb(quantityDelta, reservedDelta);
+            }
+            if (compareAndSet(current, pack(quantity(current) + quantityDelta, reserved(current) + reservedDelta))) {
+                return current;
+            }
+            contended();
+        }
+    }
+
+    long flushedState() {
+        return flushedState;
+    }
+
+    long flushedVersion() {
+        return flushedVersion;
+    }
+
+    /**
+     * Records that the product's row holds {@code state} at change-feed {@code version}.
+     */
+    void flushed(long state, long version) {
+        flushedState = state;
+        flushedVersion = version;
+    }
+
+    long nextSequence() {
+        return (long) LONGS.getAndAdd(page.sequences, offset, 1L) + 1;
+    }
+
+    boolean isLowStock() {
+        int flags = (int) INTS.getVolatile(page.flags, offset);
+        return retired == null && (flags & LOW_STOCK) != 0;
+    }
+
+    void setLowStock(boolean lowStock) {
+        setFlag(LOW_STOCK, lowStock);
+    }
+
+    void touch() {
+        LONGS.setVolatile(page.lastUpdated, offset, System.currentTimeMillis());
+    }
+
+    /**
+     * @return whether the counter should be queued for the flusher; always for a retired one,
+     *         whose flag lives in a slot it no longer owns
+     */
+    boolean markDirty() {
+        return retired != null || setFlag(DIRTY, true);
+    }
+
+    void clearDirty() {
+        setFlag(DIRTY, false);
+    }
+
+    /**
+     * Freezes the counter at its current state. Called by {@link StockTable} under its write
+     * lock when the product is removed, before the slot can be handed to another product.
+     * The slot is set to {@link #RETIRED} so that a change racing with this one fails its
+     * compare-and-set and, on its retry, sees the counter retired.
+     */
+    void retire() {
+        while (true) {
+            long current = (long) LONGS.getVolatile(page.states, offset);
+            if (current == RETIRED) {
+                return;
+            }
+            retired = new Retired(current, (int) INTS.getVolatile(page.reorderLevels, offset),
+                    (long) LONGS.getVolatile(page.lastUpdated, offset),
+                    (long) LONGS.getVolatile(page.sequences, offset));
+            if (compareAndSet(current, RETIRED)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /*
+     * The slot is read before the retired marker: a reused slot's state is published after
+     * the marker was set, so a reader that sees the next product's stock also sees the marker.
+     */
+    private long slotState() {
+        long state = (long) LONGS.getVolatile(page.states, offset);
+        return retired != null ? RETIRED : state;
+    }
+
+    private void contended() {
+        INTS.getAndAdd(page.casRetries, offset, 1);
+        Thread.onSpinWait();
+    }
+
+    private boolean compareAndSet(long expected, long state) {
+        return LONGS.compareAndSet(page.states, offset, expected, state);
+    }
+
+    /**
+     * @return whether the flag changed
+     */
+    private boolean setFlag(int flag, boolean set) {
+        if (retired != null) {
+            return false;
+        }
+        while (true) {
+            int current = (int) INTS.getVolatile(page.flags, offset);
+            int next = set ? current | flag : current & ~flag;
+            if (next == current) {
+                return false;
+            }
+            if (INTS.compareAndSet(page.flags, offset, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    static long pack(int quantity, int reservedQuantity) {
+        return ((long) quantity << 32) | (reservedQuantity & 0xFFFFFFFFL);
+    }
+
+    static int quantity(long state) {
+        return (int) (state >>> 32);
+    }
+
+    static int reserved(long state) {
+        return (int) state;
+    }
+
+    static int available(long state) {
+        return quantity(state) - reserved(state);
+    }
+
+    private record Retired(long state, int reorderLevel, long lastUpdatedMillis, long sequence) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.IngestError;
+import com.ecom.inventory.dto.IngestReport;
+import com.ecom.inventory.dto.InventoryRequest;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies full stock counts from warehouse feeds. The feed is read line by line and applied
+ * in batches of {@code inventory.ingest.batch-size}: products the ledger already knows are
+ * updated through it like any other change, and unknown products are inserted with one
+ * insert-only {@code MERGE} batch and then registered with their opening balance. Lines that
+ * would not change anything publish no event.
+ * <p>
+ * CSV lines are {@code productId,quantity[,reorderLevel]}, with an optional header line;
+ * NDJSON lines are {@link InventoryRequest} objects. Invalid lines are skipped and reported,
+ * up to {@code inventory.ingest.max-errors} of them. With sharding enabled, only the lines
+ * for products this instance owns are applied; the rest are counted as skipped, so a feed
+ * is sent to every instance.
+ */
+@Component
+public class StockIngestor {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final Logger log = LoggerFactory.getLogger(StockIngestor.class);
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final StockLedger stockLedger;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final ChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxErrors;
+    private final Counter createdLines;
+    private final Counter updatedLines;
+    private final Counter unchangedLines;
+    private final Counter rejectedLines;
+
+    public StockIngestor(StockLedger stockLedger,
+                         InventoryBatchRepository inventoryBatchRepository,
+                         InventoryEventPublisher eventPublisher,
+                         ShardRouter shardRouter,
+                         ChangeFeed changeFeed,
+                         ObjectMapper objectMapper,
+                         Validator validator,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.ingest.batch-size:10000}") int batchSize,
+                         @Value("${inventory.ingest.max-errors:1000}") int maxErrors) {
+        this.stockLedger = stockLedger;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.createdLines = lineCounter(meterRegistry, "created");
+        this.updatedLines = lineCounter(meterRegistry, "updated");
+        this.unchangedLines = lineCounter(meterRegistry, "unchanged");
+        this.rejectedLines = lineCounter(meterRegistry, "rejected");
+    }
+
+    public IngestReport ingest(Reader feed, Format format) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        long nextProgressLog = start + PROGRESS_INTERVAL_NANOS;
+        List<Line> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = feed instanceof BufferedReader buffered ? buffered : new BufferedReader(feed);
+        String text;
+        long lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank() || (format == Format.CSV && lineNumber == 1 && isHeader(text))) {
+                continue;
+            }
+            progress.linesRead++;
+            Line line = parse(lineNumber, text, format, progress);
+            if (line != null && shardRouter.isEnabled() && !shardRouter.owns(line.productId())) {
+                progress.skipped++;
+            } else if (line != null) {
+                batch.add(line);
+            }
+            if (batch.size() == batchSize) {
+                apply(batch, progress);
+                batch.clear();
+                if (System.nanoTime() - nextProgressLog > 0) {
+                    log.info("Ingest progress: {} lines read, {} created, {} updated, {} unchanged, {} skipped, "
+                                    + "{} rejected", progress.linesRead, progress.created, progress.updated,
+                            progress.unchanged, progress.skipped, progress.rejected);
+                    nextProgressLog = System.nanoTime() + PROGRESS_INTERVAL_NANOS;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(batch, progress);
+        }
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Ingested {} lines in {} ms: {} created, {} updated, {} unchanged, {} skipped, {} rejected",
+                progress.linesRead, durationMillis, progress.created, progress.updated, progress.unchanged,
+                progress.skipped, progress.rejected);
+        return new IngestReport(progress.linesRead, progress.created, progress.updated, progress.unchanged,
+                progress.skipped, progress.rejected, progress.errors, durationMillis);
+    }
+
+    private Line parse(long lineNumber, String text, Format format, Progress progress) {
+        InventoryRequest request;
+        try {
+            request = format == Format.CSV ? parseCsv(text) : objectMapper.readValue(text, InventoryRequest.class);
+        } catch (JsonProcessingException ex) {
+            reject(progress, lineNumber, ex.getOriginalMessage());
+            return null;
+        } catch (IllegalArgumentException ex) {
+            reject(progress, lineNumber, ex.getMessage());
+            return null;
+        }
+        Set<ConstraintViolation<InventoryRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            reject(progress, lineNumber, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return new Line(lineNumber, request.productId(), request.quantity(), request.reorderLevel());
+    }
+
+    private static InventoryRequest parseCsv(String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            throw new IllegalArgumentException("Expected productId,quantity[,reorderLevel] but got "
+                    + fields.length + " fields");
+        }
+        return new InventoryRequest(
+                parseField(fields[0], Long::valueOf),
+                parseField(fields[1], Integer::valueOf),
+                fields.length == 3 ? parseField(fields[2], Integer::valueOf) : null);
+    }
+
+    private static <T> T parseField(String field, Function<String, T> parser) {
+        String value = field.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Not a number: '" + value + "'");
+        }
+    }
+
+    private static boolean isHeader(String text) {
+        char first = text.strip().charAt(0);
+        return first != '-' && !Character.isDigit(first);
+    }
+
+    private void apply(List<Line> batch, Progress progress) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Line line : batch) {
+            productIds.add(line.productId());
+        }
+        Map<Long, StockCounter> counters = stockLedger.counters(productIds);
+        Map<Long, Line> inserts = new LinkedHashMap<>();
+        for (Line line : batch) {
+            if (!counters.containsKey(line.productId())) {
+                inserts.putIfAbsent(line.productId(), line);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            insert(inserts.values(), counters);
+        }
+        for (Line line : batch) {
+            StockCounter counter = counters.get(line.productId());
+            if (counter == null) {
+                reject(progress, line.number(), "Product " + line.productId() + " could not be created");
+                continue;
+            }
+            boolean unchanged = counter.getQuantity() == line.quantity()
+                    && (line.reorderLevel() == null || counter.getReorderLevel() == line.reorderLevel());
+            if (!unchanged && !stockLedger.update(counter, line.quantity(), line.reorderLevel())) {
+                reject(progress, line.number(), "Quantity " + line.quantity() + " for product " + line.productId()
+                        + " is below the " + counter.getReservedQuantity() + " units reserved");
+                continue;
+            }
+            if (inserts.get(line.productId()) == line) {
+                progress.created++;
+                createdLines.increment();
+            } else if (unchanged) {
+                progress.unchanged++;
+                unchangedLines.increment();
+            } else {
+                progress.updated++;
+                updatedLines.increment();
+            }
+        }
+    }
+
+    private void insert(Iterable<Line> lines, Map<Long, StockCounter> counters) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockRow> rows = new ArrayList<>();
+        for (Line line : lines) {
+            rows.add(new StockRow(line.productId(), line.quantity(), 0,
+                    line.reorderLevel() != null ? line.reorderLevel() : Inventory.DEFAULT_REORDER_LEVEL, now));
+        }
+        long version = inventoryBatchRepository.insertMissingStock(rows);
+        for (Inventory inventory : inventoryBatchRepository.findStock(rows.stream().map(StockRow::productId).toList())) {
+            StockCounter counter = stockLedger.create(inventory);
+            counters.put(counter.getProductId(), counter);
+            if (counter.getAvailableQuantity() <= counter.getReorderLevel()) {
+                eventPublisher.publish(new InventoryEvent(counter.getProductId(), InventoryEventType.LOW_STOCK_ALERT,
+                        counter.getAvailableQuantity(), now));
+            }
+        }
+        changeFeed.published(version);
+    }
+
+    private void reject(Progress progress, long lineNumber, String message) {
+        progress.rejected++;
+        rejectedLines.increment();
+        if (progress.errors.size() < maxErrors) {
+            progress.errors.add(new IngestError(lineNumber, message));
+        }
+    }
+
+    private static Counter lineCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.ingest.lines")
+                .description("Stock feed lines ingested, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Line(long number, long productId, int quantity, Integer reorderLevel) {
+    }
+
+    private static final class Progress {
+        long linesRead;
+        long created;
+        long updated;
+        long unchanged;
+        long skipped;
+        long rejected;
+        final List<IngestError> errors = new ArrayList<>();
+    }
+}
@@ -0,0 +1,348 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockRow;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Optional write-ahead journal for stock events, enabled with {@code inventory.journal.enabled}.
+ * <p>
+ * Each sequenced event is appended as a fixed-size record to a memory-mapped segment file and
+ * {@link #append} returns once the record has been forced to disk. A single committer thread
+ * forces whatever has accumulated since its last pass, waiting up to
+ * {@code group-commit-micros} for more writers to join, so concurrent reservations share one
+ * {@code msync}. The database is still written behind by {@link InventoryEventPublisher} and
+ * {@link StockLedgerFlusher}; {@link JournalCheckpointer} deletes segments once both have
+ * caught up with them.
+ * <p>
+ * On startup, before any counter is loaded, records left in the journal are merged into
+ * {@code inventory_events} and the affected {@code inventory} rows are rebuilt from the event
+ * log. Only the records in the durable prefix of each segment are trusted: scanning stops at
+ * the first record whose checksum does not match.
+ */
+@Component
+public class StockJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournal.class);
+
+    static final int RECORD_SIZE = 48;
+    private static final int CHECKSUM_OFFSET = 44;
+    private static final int NO_REORDER_LEVEL = Integer.MIN_VALUE;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final InventoryEventType[] EVENT_TYPES = InventoryEventType.values();
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long recordsPerSegment;
+    private final long groupCommitNanos;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryReplayer inventoryReplayer;
+    private final WorkerThreads workerThreads;
+    private final Timer commitTimer;
+    private final DistributionSummary groupSize;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+
+    private volatile long nextPosition;
+    private volatile long durablePosition;
+    private volatile boolean running;
+    private Thread committer;
+
+    public StockJournal(InventoryBatchRepository inventoryBatchRepository,
+                        InventoryReplayer inventoryReplayer,
+                        WorkerThreads workerThreads,
+                        MeterRegistry meterRegistry,
+                        @Value("${inventory.journal.enabled:false}") boolean enabled,
+                        @Value("${inventory.journal.directory:data/journal}") Path directory,
+                        @Value("${inventory.journal.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${inventory.journal.group-commit-micros:200}") long groupCommitMicros) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.inventoryReplayer = inventoryReplayer;
+        this.workerThreads = workerThreads;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.recordsPerSegment = Math.max(1, Math.min(segmentSize.toBytes(), Integer.MAX_VALUE) / RECORD_SIZE);
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.commitTimer = Timer.builder("inventory.journal.commit")
+                .description("Time to force one group of journal records to disk")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder("inventory.journal.group.size")
+                .description("Journal records made durable by one force")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> files = segmentFiles();
+        if (!files.isEmpty()) {
+            List<InventoryEvent> events = new ArrayList<>();
+            for (Path file : files) {
+                read(file, events);
+            }
+            recover(events);
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        running = true;
+        committer = workerThreads.factory("journal-committer").newThread(this::commitLoop);
+        committer.start();
+    }
+
+    /**
+     * Appends a sequenced event and waits for it to become durable. Events without a
+     * sequence, such as low-stock alerts, carry no state and are not journaled.
+     */
+    public void append(InventoryEvent event) {
+        if (!enabled || event.getSequence() == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            long position = nextPosition;
+            Segment segment = segmentFor(position);
+            segment.write((int) (position - segment.firstPosition) * RECORD_SIZE, event);
+            nextPosition = position + 1;
+            appended.signal();
+            while (durablePosition <= position) {
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the position the next record will be written at; every earlier record has
+     * been appended
+     */
+    public long position() {
+        return nextPosition;
+    }
+
+    /**
+     * Deletes the segments that only hold durable records before {@code position}.
+     */
+    public void truncateBefore(long position) {
+        long limit = Math.min(position, durablePosition) / recordsPerSegment;
+        for (Map.Entry<Long, Segment> entry : segments.headMap(limit).entrySet()) {
+            if (segments.remove(entry.getKey(), entry.getValue())) {
+                try {
+                    Files.deleteIfExists(entry.getValue().path());
+                } catch (IOException ex) {
+                    log.warn("Failed to delete journal segment {}", entry.getValue().path(), ex);
+                }
+            }
+        }
+    }
+
+    private void commitLoop() {
+        while (running || durablePosition < nextPosition) {
+            lock.lock();
+            try {
+                while (running && durablePosition == nextPosition) {
+                    appended.await();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+            long from = durablePosition;
+            long to = nextPosition;
+            try {
+                commitTimer.record(() -> force(from, to));
+            } catch (UncheckedIOException ex) {
+                log.error("Failed to force journal records {} to {}, retrying", from, to, ex);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            groupSize.record(to - from);
+            lock.lock();
+            try {
+                durablePosition = to;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void force(long from, long to) {
+        for (long position = from; position < to; ) {
+            Segment segment = segments.get(position / recordsPerSegment);
+            long end = Math.min(to, segment.firstPosition + recordsPerSegment);
+            segment.buffer.force((int) (position - segment.firstPosition) * RECORD_SIZE,
+                    (int) (end - position) * RECORD_SIZE);
+            position = end;
+        }
+    }
+
+    private Segment segmentFor(long position) {
+        long index = position / recordsPerSegment;
+        Segment segment = segments.get(index);
+        if (segment == null) {
+            segment = Segment.create(directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX)),
+                    index * recordsPerSegment, recordsPerSegment * RECORD_SIZE);
+            segments.put(index, segment);
+        }
+        return segment;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static void read(Path file, List<InventoryEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+                if (buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(buffer, offset)) {
+                    break;
+                }
+                events.add(decode(buffer, offset));
+            }
+        }
+    }
+
+    private void recover(List<InventoryEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        inventoryBatchRepository.insertBaselineSnapshots(now);
+        inventoryBatchRepository.mergeEvents(events);
+        TreeSet<Long> productIds = new TreeSet<>();
+        events.forEach(event -> productIds.add(event.getProductId()));
+        List<StockRow> rows = new ArrayList<>(productIds.size());
+        for (ReplayFold fold : inventoryReplayer.fold(productIds.first(), productIds.last(), false).products()) {
+            if (productIds.contains(fold.getProductId())) {
+                rows.add(new StockRow(fold.getProductId(), fold.getQuantity(), fold.getReservedQuantity(),
+                        fold.getReorderLevel(), now));
+            }
+        }
+        inventoryBatchRepository.updateStock(rows);
+        log.info("Recovered {} journal records for {} products", events.size(), productIds.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static InventoryEvent decode(ByteBuffer buffer, int offset) {
+        int reorderLevel = buffer.getInt(offset + 36);
+        long epochNanos = buffer.getLong(offset + 16);
+        return new InventoryEvent(
+                buffer.getLong(offset),
+                EVENT_TYPES[buffer.getInt(offset + 40)],
+                buffer.getInt(offset + 24),
+                buffer.getLong(offset + 8),
+                buffer.getInt(offset + 28),
+                buffer.getInt(offset + 32),
+                reorderLevel == NO_REORDER_LEVEL ? null : reorderLevel,
+                LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                        (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private record Segment(Path path, long firstPosition, MappedByteBuffer buffer) {
+
+        static Segment create(Path path, long firstPosition, long size) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, firstPosition, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /*
+         * Layout: productId(8) sequence(8) timestamp as UTC epoch nanos(8) quantity(4)
+         * quantityDelta(4) reservedDelta(4) reorderLevel(4) eventType ordinal(4) crc32c(4).
+         */
+        void write(int offset, InventoryEvent event) {
+            LocalDateTime timestamp = event.getTimestamp();
+            Integer reorderLevel = event.getReorderLevel();
+            buffer.putLong(offset, event.getProductId());
+            buffer.putLong(offset + 8, event.getSequence());
+            buffer.putLong(offset + 16, timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano());
+            buffer.putInt(offset + 24, event.getQuantity());
+            buffer.putInt(offset + 28, event.getQuantityDelta());
+            buffer.putInt(offset + 32, event.getReservedDelta());
+            buffer.putInt(offset + 36, reorderLevel != null ? reorderLevel : NO_REORDER_LEVEL);
+            buffer.putInt(offset + 40, event.getEventType().ordinal());
+            buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset));
+        }
+    }
+}
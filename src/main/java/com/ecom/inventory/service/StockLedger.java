@@ -0,0 +1,462 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryEventRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Authoritative in-memory view of stock levels, held in a {@link StockTable}. Counters are
+ * preloaded on startup from the {@code inventory} table, a {@link StockSnapshotFile} or the
+ * replayed event log, or loaded on first use, and are mutated lock-free; changed counters
+ * are queued for {@link StockLedgerFlusher} to write back asynchronously.
+ * <p>
+ * The ledger is also the only writer of stock events. Every change is published with the
+ * next per-product sequence number and the exact quantity and reserved deltas it applied, so
+ * folding a product's events in sequence order over its latest snapshot reproduces the
+ * counter. Sequence numbers are taken after the compare-and-set, so two concurrent changes
+ * may be numbered in the opposite order to the one they were applied in; their deltas
+ * commute, and the only absolute value, the reorder level, is numbered under the counter's
+ * monitor.
+ */
+@Component
+public class StockLedger {
+
+    public static final int REJECTED = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryEventRepository inventoryEventRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryEventPublisher eventPublisher;
+    private final StockTable table;
+    private final Queue<StockCounter> dirtyCounters = new ConcurrentLinkedQueue<>();
+    private final List<StockChangeListener> listeners;
+
+    public StockLedger(InventoryRepository inventoryRepository,
+                       InventoryEventRepository inventoryEventRepository,
+                       InventoryBatchRepository inventoryBatchRepository,
+                       InventoryEventPublisher eventPublisher,
+                       List<StockChangeListener> listeners,
+                       @Value("${inventory.ledger.initial-capacity:65536}") int initialCapacity) {
+        this.table = new StockTable(initialCapacity);
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryEventRepository = inventoryEventRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.eventPublisher = eventPublisher;
+        this.listeners = listeners;
+    }
+
+    /*
+     * Rows that predate the event log get a sequence-zero snapshot of their current state
+     * before any counter can be loaded and changed, so replay has a starting point for them.
+     */
+    @PostConstruct
+    void snapshotBaselines() {
+        int inserted = inventoryBatchRepository.insertBaselineSnapshots(LocalDateTime.now());
+        if (inserted > 0) {
+            log.info("Wrote baseline snapshots for {} products without event history", inserted);
+        }
+    }
+
+    public StockCounter counter(Long productId) {
+        StockCounter counter = find(productId);
+        if (counter == null) {
+            throw new InventoryNotFoundException(productId);
+        }
+        return counter;
+    }
+
+    public StockCounter find(Long productId) {
+        StockCounter counter = table.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        return inventoryRepository.findByProductId(productId)
+                .map(inventory -> register(inventory, lastSequences(List.of(productId)).getOrDefault(productId, 0L)))
+                .orElse(null);
+    }
+
+    public Map<Long, StockCounter> counters(Collection<Long> productIds) {
+        Map<Long, StockCounter> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            StockCounter counter = table.get(productId);
+            if (counter != null) {
+                found.put(productId, counter);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Inventory> loaded = inventoryRepository.findByProductIdIn(missing);
+            if (!loaded.isEmpty()) {
+                Map<Long, Long> sequences = lastSequences(loaded.stream().map(Inventory::getProductId).toList());
+                for (Inventory inventory : loaded) {
+                    found.put(inventory.getProductId(),
+                            register(inventory, sequences.getOrDefault(inventory.getProductId(), 0L)));
+                }
+            }
+        }
+        return found;
+    }
+
+    public StockCounter peek(Long productId) {
+        return table.get(productId);
+    }
+
+    /**
+     * Loads every inventory row in one streaming pass, with its last event sequence, so that
+     * the serving path never has to fall back to the database for a known product.
+     *
+     * @return the number of products loaded
+     */
+    public int preload() {
+        inventoryBatchRepository.loadStock(this::add);
+        return table.size();
+    }
+
+    /**
+     * Loads every inventory row like {@link #preload()}, but takes the stock, reorder level
+     * and sequence of each product in {@code replayed} from its replayed events rather than
+     * from the flushed row, so the event log is the source of truth. Rows that disagree are
+     * queued for the flusher, which overwrites them with the replayed stock.
+     *
+     * @return the number of products whose flushed row disagreed with their replayed stock
+     */
+    int preload(Map<Long, ReplayFold> replayed) {
+        int[] differing = new int[1];
+        inventoryBatchRepository.loadStock(rs -> {
+            ReplayFold fold = replayed.get(rs.getLong(2));
+            if (fold == null) {
+                add(rs);
+                return;
+            }
+            Timestamp lastUpdated = rs.getTimestamp(6);
+            StockCounter counter = add(rs.getLong(1), fold.getProductId(), fold.getQuantity(),
+                    fold.getReservedQuantity(), fold.getReorderLevel(),
+                    lastUpdated != null ? HoldManager.toMillis(lastUpdated.toLocalDateTime()) : StockCounter.NO_TIMESTAMP,
+                    fold.getSequence(), rs.getLong(8));
+            if (counter != null && (fold.getQuantity() != rs.getInt(3)
+                    || fold.getReservedQuantity() != rs.getInt(4) || fold.getReorderLevel() != rs.getInt(5))) {
+                counter.flushed(StockCounter.pack(rs.getInt(3), rs.getInt(4)), rs.getLong(8));
+                differing[0]++;
+                markDirty(counter);
+            }
+        });
+        return differing[0];
+    }
+
+    /**
+     * Loads a snapshot taken when the change feed stood at {@code snapshot.version()}. Rows
+     * stamped with a later version have changed since and are loaded from the database;
+     * every other product is loaded from the snapshot.
+     *
+     * @return the number of products loaded from the snapshot
+     */
+    int restore(StockSnapshotFile.Snapshot snapshot) {
+        inventoryBatchRepository.loadStockChangedSince(snapshot.version(), this::add);
+        int changed = table.size();
+        snapshot.forEach((id, productId, quantity, reservedQuantity, reorderLevel, lastUpdatedMillis, sequence,
+                          flushedState, flushedVersion) -> {
+            StockCounter counter = add(id, productId, quantity, reservedQuantity, reorderLevel, lastUpdatedMillis,
+                    sequence, flushedVersion);
+            if (counter != null) {
+                counter.flushed(flushedState, flushedVersion);
+            }
+        });
+        return table.size() - changed;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    void forEach(Consumer<StockCounter> action) {
+        table.forEach(action);
+    }
+
+    /**
+     * Registers a counter for a newly inserted inventory row and publishes its opening
+     * balance as the product's first event. A row inserted without a change-feed version is
+     * queued for the flusher, which stamps one.
+     */
+    public StockCounter create(Inventory inventory) {
+        StockCounter counter = add(inventory, 0L);
+        if (counter == null) {
+            return table.get(inventory.getProductId());
+        }
+        if (inventory.getVersion() == null || inventory.getVersion() == 0L) {
+            markDirty(counter);
+        }
+        publish(counter, InventoryEventType.STOCK_UPDATED, counter.nextSequence(), inventory.getQuantity(),
+                inventory.getQuantity(), inventory.getReservedQuantity(), inventory.getReorderLevel());
+        return counter;
+    }
+
+    /**
+     * Drops the counters of every product matching {@code productIds}, so that their next use
+     * reloads them from the database. Changes already queued for the flusher are still
+     * written; an evicted counter is retired, so a request still holding it has its change
+     * refused rather than applied to stock nobody tracks any more.
+     *
+     * @return the number of counters evicted
+     */
+    public int evict(LongPredicate productIds) {
+        List<StockCounter> matching = new ArrayList<>();
+        table.forEach(counter -> {
+            if (productIds.test(counter.getProductId())) {
+                matching.add(counter);
+            }
+        });
+        int evicted = 0;
+        for (StockCounter counter : matching) {
+            if (table.remove(counter.getProductId()) != null) {
+                evicted++;
+                for (StockChangeListener listener : listeners) {
+                    listener.onCounterEvicted(counter);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private void add(ResultSet rs) throws SQLException {
+        Timestamp lastUpdated = rs.getTimestamp(6);
+        add(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5),
+                lastUpdated != null ? HoldManager.toMillis(lastUpdated.toLocalDateTime()) : StockCounter.NO_TIMESTAMP,
+                rs.getLong(7), rs.getLong(8));
+    }
+
+    private StockCounter register(Inventory inventory, long sequence) {
+        StockCounter counter = add(inventory, sequence);
+        return counter != null ? counter : table.get(inventory.getProductId());
+    }
+
+    private StockCounter add(Inventory inventory, long sequence) {
+        LocalDateTime lastUpdated = inventory.getLastUpdated();
+        long id = inventory.getId() != null ? inventory.getId() : StockCounter.NO_ID;
+        return add(id, inventory.getProductId(), inventory.getQuantity(), inventory.getReservedQuantity(),
+                inventory.getReorderLevel(),
+                lastUpdated != null ? HoldManager.toMillis(lastUpdated) : StockCounter.NO_TIMESTAMP, sequence,
+                inventory.getVersion() != null ? inventory.getVersion() : 0L);
+    }
+
+    /**
+     * @param version the change-feed version of the row the stock was read from, which the
+     *                flusher expects to find when it writes the counter back
+     * @return the new counter, or {@code null} if the product was already loaded
+     */
+    private StockCounter add(long id, long productId, int quantity, int reservedQuantity, int reorderLevel,
+                             long lastUpdatedMillis, long sequence, long version) {
+        if (table.putIfAbsent(id, productId, quantity, reservedQuantity, reorderLevel, lastUpdatedMillis,
+                sequence) != null) {
+            return null;
+        }
+        StockCounter counter = table.get(productId);
+        counter.flushed(StockCounter.pack(quantity, reservedQuantity), version);
+        for (StockChangeListener listener : listeners) {
+            listener.onCounterLoaded(counter);
+        }
+        return counter;
+    }
+
+    private Map<Long, Long> lastSequences(Collection<Long> productIds) {
+        Map<Long, Long> sequences = new HashMap<>();
+        for (Object[] row : inventoryEventRepository.findLastSequences(productIds)) {
+            sequences.merge((Long) row[0], (Long) row[1], Math::max);
+        }
+        return sequences;
+    }
+
+    /**
+     * @return the available quantity after the reservation, or {@link #REJECTED}
+     */
+    public int reserve(StockCounter counter, int amount) {
+        long previous = counter.tryReserve(amount);
+        if (previous == StockCounter.REJECTED) {
+            for (StockChangeListener listener : listeners) {
+                listener.onReservationRejected(counter);
+            }
+            return REJECTED;
+        }
+        changed(counter, previous);
+        publish(counter, InventoryEventType.STOCK_RESERVED, counter.nextSequence(), amount, 0, amount, null);
+        return StockCounter.available(previous) - amount;
+    }
+
+    /**
+     * Reserves {@code amounts[i]} units on {@code counters.get(i)} for every line, or none.
+     * Every line is taken before any of them is published, and a short line silently undoes
+     * the ones before it, so a rejected batch leaves no events or listener calls behind
+     * beyond the rejection itself. Until then the taken units are briefly unavailable to
+     * other writers.
+     *
+     * @param available receives the available quantity after each line's reservation
+     * @return the index of the line that was short, or -1 if every line was reserved
+     */
+    public int reserveAll(List<StockCounter> counters, int[] amounts, int[] available) {
+        long[] previous = new long[counters.size()];
+        for (int i = 0; i < counters.size(); i++) {
+            previous[i] = counters.get(i).tryReserve(amounts[i]);
+            if (previous[i] == StockCounter.REJECTED) {
+                for (int j = i - 1; j >= 0; j--) {
+                    counters.get(j).release(amounts[j]);
+                }
+                for (StockChangeListener listener : listeners) {
+                    listener.onReservationRejected(counters.get(i));
+                }
+                return i;
+            }
+        }
+        for (int i = 0; i < counters.size(); i++) {
+            StockCounter counter = counters.get(i);
+            changed(counter, previous[i]);
+            publish(counter, InventoryEventType.STOCK_RESERVED, counter.nextSequence(), amounts[i], 0, amounts[i],
+                    null);
+            available[i] = StockCounter.available(previous[i]) - amounts[i];
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of units actually released
+     */
+    public int release(StockCounter counter, int amount) {
+        long previous = counter.release(amount);
+        int released = Math.min(amount, StockCounter.reserved(previous));
+        if (released > 0) {
+            changed(counter, previous);
+            publish(counter, InventoryEventType.STOCK_RELEASED, counter.nextSequence(), released, 0, -released, null);
+        }
+        return released;
+    }
+
+    /**
+     * @return the number of reserved units committed
+     */
+    public int commit(StockCounter counter, int amount) {
+        long previous = counter.commit(amount);
+        int committed = Math.min(amount, StockCounter.reserved(previous));
+        if (committed > 0) {
+            changed(counter, previous);
+            publish(counter, InventoryEventType.STOCK_CONFIRMED, counter.nextSequence(), committed,
+                    -committed, -committed, null);
+        }
+        return committed;
+    }
+
+    /**
+     * Sets the product's quantity, and its reorder level if given.
+     *
+     * @return {@code false}, leaving the counter unchanged, if {@code quantity} is below the
+     * units already reserved
+     */
+    public boolean update(StockCounter counter, int quantity, Integer reorderLevel) {
+        long previous;
+        long sequence;
+        synchronized (counter) {
+            previous = counter.update(quantity, reorderLevel);
+            if (previous == StockCounter.REJECTED) {
+                return false;
+            }
+            sequence = counter.nextSequence();
+        }
+        changed(counter, previous);
+        publish(counter, InventoryEventType.STOCK_UPDATED, sequence, quantity,
+                quantity - StockCounter.quantity(previous), 0, reorderLevel);
+        return true;
+    }
+
+    /**
+     * Moves quantity by {@code delta}. Unlike {@link #update} it never writes back a quantity
+     * it read, so it cannot undo a concurrent {@link #commit}.
+     *
+     * @return {@code false}, leaving the counter unchanged, if the quantity would drop below
+     * the units already reserved
+     */
+    public boolean adjust(StockCounter counter, int delta) {
+        long previous = counter.adjust(delta);
+        if (previous == StockCounter.REJECTED) {
+            return false;
+        }
+        long sequence = counter.nextSequence();
+        changed(counter, previous);
+        publish(counter, InventoryEventType.STOCK_UPDATED, sequence, StockCounter.quantity(previous) + delta,
+                delta, 0, null);
+        return true;
+    }
+
+    /**
+     * Adds a change another instance wrote to the product's row. No event is published: the
+     * instance that made the change published its own.
+     */
+    void absorb(StockCounter counter, int quantityDelta, int reservedDelta) {
+        if (quantityDelta == 0 && reservedDelta == 0) {
+            return;
+        }
+        long previous = counter.absorb(quantityDelta, reservedDelta);
+        long currentState = counter.state();
+        for (StockChangeListener listener : listeners) {
+            listener.onStockChanged(counter, previous, currentState);
+        }
+    }
+
+    List<StockCounter> drainDirty() {
+        List<StockCounter> drained = new ArrayList<>();
+        StockCounter counter;
+        while ((counter = dirtyCounters.poll()) != null) {
+            counter.clearDirty();
+            drained.add(counter);
+        }
+        return drained;
+    }
+
+    void requeue(List<StockCounter> failed) {
+        failed.forEach(this::markDirty);
+    }
+
+    private void changed(StockCounter counter, long previousState) {
+        counter.touch();
+        markDirty(counter);
+        long currentState = counter.state();
+        for (StockChangeListener listener : listeners) {
+            listener.onStockChanged(counter, previousState, currentState);
+        }
+    }
+
+    private void publish(StockCounter counter, InventoryEventType eventType, long sequence, int quantity,
+                         int quantityDelta, int reservedDelta, Integer reorderLevel) {
+        eventPublisher.publish(new InventoryEvent(counter.getProductId(), eventType, quantity, sequence,
+                quantityDelta, reservedDelta, reorderLevel, counter.getLastUpdated()));
+    }
+
+    private void markDirty(StockCounter counter) {
+        if (counter.markDirty()) {
+            dirtyCounters.add(counter);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockRow;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes changed {@link StockCounter}s back to the {@code inventory} table in JDBC batches.
+ * Counters whose write fails are re-queued, so a change is only dropped from the ledger's
+ * dirty queue once it has been committed.
+ * <p>
+ * A row is only overwritten at the change-feed version this instance last read or wrote.
+ * If another instance wrote it since, as the old and new owner of a product can while a
+ * shard moves, the row is reloaded, the other writer's change is added to the counter, and
+ * the counter is queued again to be written on top of the reloaded version.
+ * <p>
+ * A change is acknowledged to the client before it is written here, so a crash loses
+ * whatever changed since the last flush, up to {@code inventory.ledger.flush-interval-ms}.
+ * Enable the {@link StockJournal} to close that window.
+ */
+@Component
+public class StockLedgerFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerFlusher.class);
+
+    private final StockLedger stockLedger;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final ChangeFeed changeFeed;
+    private final Timer flushTimer;
+    private final Counter conflicts;
+    private final Lock flushLock = new ReentrantLock();
+
+    public StockLedgerFlusher(StockLedger stockLedger, InventoryBatchRepository inventoryBatchRepository,
+                              ChangeFeed changeFeed, MeterRegistry meterRegistry) {
+        this.stockLedger = stockLedger;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.changeFeed = changeFeed;
+        this.flushTimer = Timer.builder("inventory.ledger.flush")
+                .description("Time to write one batch of changed stock counters back")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("inventory.ledger.flush.conflicts")
+                .description("Stock rows found written by another instance and merged before being written back")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushPending();
+    }
+
+    /**
+     * Writes back every counter changed before the call.
+     *
+     * @return whether the write succeeded; if not, the counters stay queued
+     */
+    boolean flushPending() {
+        // a lock rather than a monitor: the write blocks on JDBC and must not pin a carrier thread
+        flushLock.lock();
+        try {
+            return flushDirtyCounters();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean flushDirtyCounters() {
+        List<StockCounter> dirty = stockLedger.drainDirty();
+        if (dirty.isEmpty()) {
+            return true;
+        }
+        List<StockRow> rows = new ArrayList<>(dirty.size());
+        long[] expectedVersions = new long[dirty.size()];
+        for (int i = 0; i < dirty.size(); i++) {
+            StockCounter counter = dirty.get(i);
+            long state = counter.state();
+            LocalDateTime lastUpdated = counter.getLastUpdated();
+            rows.add(new StockRow(
+                    counter.getProductId(),
+                    StockCounter.quantity(state),
+                    StockCounter.reserved(state),
+                    counter.getReorderLevel(),
+                    lastUpdated != null ? lastUpdated : LocalDateTime.now()));
+            expectedVersions[i] = counter.flushedVersion();
+        }
+        StockUpdate update;
+        Timer.Sample sample = Timer.start();
+        try {
+            update = inventoryBatchRepository.updateStockIfUnchanged(rows, expectedVersions);
+            sample.stop(flushTimer);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} stock counters, will retry", rows.size(), ex);
+            stockLedger.requeue(dirty);
+            return false;
+        }
+        List<StockCounter> conflicting = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i++) {
+            StockRow row = rows.get(i);
+            if (update.written(i)) {
+                dirty.get(i).flushed(StockCounter.pack(row.quantity(), row.reservedQuantity()), update.version(i));
+            } else {
+                conflicting.add(dirty.get(i));
+            }
+        }
+        changeFeed.published(update.lastVersion());
+        return conflicting.isEmpty() || reconcile(conflicting);
+    }
+
+    /*
+     * Adds what the other writer changed since this instance's last write, the difference
+     * between the reloaded row and the row as last flushed, to each counter, and queues the
+     * counters to be written over the reloaded version.
+     */
+    private boolean reconcile(List<StockCounter> conflicting) {
+        Map<Long, Inventory> current;
+        try {
+            current = inventoryBatchRepository.findStock(conflicting.stream().map(StockCounter::getProductId).toList())
+                    .stream().collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to reload {} stock rows written by another instance, will retry", conflicting.size(), ex);
+            stockLedger.requeue(conflicting);
+            return false;
+        }
+        List<StockCounter> merged = new ArrayList<>(conflicting.size());
+        for (StockCounter counter : conflicting) {
+            Inventory row = current.get(counter.getProductId());
+            if (row == null) {
+                log.warn("Dropping the write-back of product {}: its inventory row is gone", counter.getProductId());
+                continue;
+            }
+            long flushed = counter.flushedState();
+            stockLedger.absorb(counter, row.getQuantity() - StockCounter.quantity(flushed),
+                    row.getReservedQuantity() - StockCounter.reserved(flushed));
+            counter.flushed(StockCounter.pack(row.getQuantity(), row.getReservedQuantity()),
+                    row.getVersion() != null ? row.getVersion() : 0L);
+            merged.add(counter);
+        }
+        conflicts.increment(conflicting.size());
+        log.info("Merged {} stock rows written by another instance; writing them back on the next flush",
+                merged.size());
+        stockLedger.requeue(merged);
+        return true;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
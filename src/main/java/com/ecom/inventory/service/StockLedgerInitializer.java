@@ -0,0 +1,137 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the {@link StockLedger} before the web server starts. With
+ * {@code inventory.ledger.preload} every product is loaded in one pass, from the
+ * {@link StockSnapshotStore}'s snapshot when there is a usable one and from the
+ * {@code inventory} table otherwise. With {@code inventory.ledger.replay-events} as well, the
+ * snapshot file is skipped and every product with event history takes its stock from
+ * {@link InventoryReplayer} instead of its flushed row. Without preloading, only the
+ * products the database reports as low are loaded, which is enough to seed
+ * {@link LowStockIndex}. From then on the index is kept current by ledger notifications alone.
+ */
+@Component
+public class StockLedgerInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerInitializer.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final StockLedger stockLedger;
+    private final LowStockIndex lowStockIndex;
+    private final StockSnapshotStore snapshotStore;
+    private final InventoryReplayer inventoryReplayer;
+    private final MeterRegistry meterRegistry;
+    private final boolean preload;
+    private final boolean replayEvents;
+
+    public StockLedgerInitializer(InventoryRepository inventoryRepository, StockLedger stockLedger,
+                                  LowStockIndex lowStockIndex, StockSnapshotStore snapshotStore,
+                                  InventoryReplayer inventoryReplayer, MeterRegistry meterRegistry,
+                                  @Value("${inventory.ledger.preload:true}") boolean preload,
+                                  @Value("${inventory.ledger.replay-events:false}") boolean replayEvents) {
+        this.inventoryRepository = inventoryRepository;
+        this.stockLedger = stockLedger;
+        this.lowStockIndex = lowStockIndex;
+        this.snapshotStore = snapshotStore;
+        this.inventoryReplayer = inventoryReplayer;
+        this.meterRegistry = meterRegistry;
+        this.preload = preload;
+        this.replayEvents = replayEvents;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        if (preload && replayEvents) {
+            replayLedger();
+        } else if (preload) {
+            preloadLedger();
+        } else {
+            seedLowStock();
+        }
+        long elapsed = System.nanoTime() - start;
+        TimeGauge.builder("inventory.startup.duration", () -> elapsed, TimeUnit.NANOSECONDS)
+                .description("Time spent in each startup phase before accepting traffic")
+                .tag("phase", "stock-load")
+                .register(meterRegistry);
+        log.info("Low-stock index seeded with {} products", lowStockIndex.size());
+    }
+
+    private void preloadLedger() {
+        long start = System.nanoTime();
+        StockSnapshotFile.Snapshot snapshot = snapshotStore.load();
+        int fromSnapshot = 0;
+        if (snapshot != null) {
+            fromSnapshot = stockLedger.restore(snapshot);
+        }
+        int loaded = snapshot != null ? stockLedger.size() : stockLedger.preload();
+        registerLoaded("snapshot", fromSnapshot);
+        registerLoaded("database", loaded - fromSnapshot);
+        log.info("Stock ledger preloaded with {} products ({} from snapshot) in {} ms", loaded, fromSnapshot,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void replayLedger() {
+        long start = System.nanoTime();
+        Map<Long, ReplayFold> replayed = inventoryReplayer.replay(false, slice -> {
+            Map<Long, ReplayFold> folds = new HashMap<>();
+            for (ReplayFold fold : slice.products()) {
+                folds.put(fold.getProductId(), fold);
+            }
+            return folds;
+        }, (left, right) -> {
+            left.putAll(right);
+            return left;
+        });
+        long gaps = replayed.values().stream().mapToLong(ReplayFold::getGaps).sum();
+        int differing = stockLedger.preload(replayed);
+        int loaded = stockLedger.size();
+        int fromEvents = (int) replayed.keySet().stream().filter(id -> stockLedger.peek(id) != null).count();
+        registerLoaded("events", fromEvents);
+        registerLoaded("database", loaded - fromEvents);
+        if (differing > 0 || gaps > 0) {
+            log.warn("Replayed stock differs from the inventory row for {} products; {} sequence gaps in the "
+                    + "event log", differing, gaps);
+        }
+        log.info("Stock ledger replayed {} products ({} from events) in {} ms", loaded, fromEvents,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void registerLoaded(String source, int products) {
+        Gauge.builder("inventory.startup.products", () -> products)
+                .description("Products loaded into the stock ledger at startup")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private void seedLowStock() {
+        long after = Long.MIN_VALUE;
+        List<InventoryResponse> page;
+        do {
+            page = inventoryRepository.findLowStockPageAfter(after, Limit.of(PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            stockLedger.counters(page.stream().map(InventoryResponse::productId).toList());
+            after = page.get(page.size() - 1).productId();
+        } while (page.size() == PAGE_SIZE);
+    }
+}
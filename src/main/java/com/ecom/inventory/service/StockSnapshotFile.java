@@ -0,0 +1,186 @@
+package com.ecom.inventory.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A point-in-time copy of {@link StockCounter}s in a flat file that a starting instance can
+ * map and load without touching the database. The layout is a header (magic, format, the
+ * database's clock epoch, the change-feed version the copy is current to, record count),
+ * fixed-size big-endian records, and a CRC32 of everything before it. A file is prepared
+ * beside the target and renamed over it, so readers see either the old copy or the new one.
+ */
+final class StockSnapshotFile {
+
+    static final int MAGIC = 0x53544b53; // "STKS"
+    static final int FORMAT = 2;
+    static final int EPOCH_LENGTH = 36;
+    static final int HEADER_SIZE = 4 + 4 + EPOCH_LENGTH + 8 + 4;
+    // id, product id, quantity, reserved, reorder level, last updated, sequence, flushed state, flushed version
+    static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 4 + 8 + 8 + 8 + 8;
+    static final int TRAILER_SIZE = 4;
+
+    private static final int WRITE_BUFFER_RECORDS = 4096;
+
+    private StockSnapshotFile() {
+    }
+
+    /**
+     * Writes {@code counters} to a temporary file beside {@code path} and forces it to disk.
+     *
+     * @return the file, for {@link #publish}
+     */
+    static Path prepare(Path path, String epoch, long version, List<StockCounter> counters) throws IOException {
+        byte[] epochBytes = epoch.getBytes(StandardCharsets.US_ASCII);
+        if (epochBytes.length != EPOCH_LENGTH) {
+            throw new IllegalArgumentException("Clock epoch must be " + EPOCH_LENGTH + " characters: " + epoch);
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        boolean prepared = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                CRC32 crc = new CRC32();
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE, RECORD_SIZE * WRITE_BUFFER_RECORDS));
+                buffer.putInt(MAGIC).putInt(FORMAT).put(epochBytes).putLong(version).putInt(counters.size());
+                for (StockCounter counter : counters) {
+                    if (buffer.remaining() < RECORD_SIZE) {
+                        drain(channel, buffer, crc);
+                    }
+                    Long id = counter.getId();
+                    long state = counter.state();
+                    buffer.putLong(id != null ? id : StockCounter.NO_ID)
+                            .putLong(counter.getProductId())
+                            .putInt(StockCounter.quantity(state))
+                            .putInt(StockCounter.reserved(state))
+                            .putInt(counter.getReorderLevel())
+                            .putLong(counter.lastUpdatedMillis())
+                            .putLong(counter.getSequence())
+                            .putLong(counter.flushedState())
+                            .putLong(counter.flushedVersion());
+                }
+                drain(channel, buffer, crc);
+                buffer.putInt((int) crc.getValue()).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            prepared = true;
+            return temp;
+        } finally {
+            if (!prepared) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    static void publish(Path prepared, Path path) throws IOException {
+        Files.move(prepared, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Maps {@code path} and checks it end to end before any record is handed out.
+     *
+     * @return the snapshot, or {@code null} if there is no file
+     * @throws IOException if the file cannot be read or is not an intact snapshot
+     */
+    static Snapshot read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a stock snapshot: " + path + " is " + size + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a stock snapshot: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported stock snapshot format " + buffer.getInt(4) + " in " + path);
+        }
+        byte[] epoch = new byte[EPOCH_LENGTH];
+        buffer.get(8, epoch);
+        long version = buffer.getLong(8 + EPOCH_LENGTH);
+        int count = buffer.getInt(8 + EPOCH_LENGTH + 8);
+        long expected = HEADER_SIZE + (long) count * RECORD_SIZE + TRAILER_SIZE;
+        if (count < 0 || expected != buffer.capacity()) {
+            throw new IOException("Truncated stock snapshot " + path + ": " + count + " records in "
+                    + buffer.capacity() + " bytes");
+        }
+        int body = buffer.capacity() - TRAILER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, body));
+        if ((int) crc.getValue() != buffer.getInt(body)) {
+            throw new IOException("Checksum mismatch in stock snapshot " + path);
+        }
+        return new Snapshot(new String(epoch, StandardCharsets.US_ASCII), version, count,
+                buffer.slice(HEADER_SIZE, count * RECORD_SIZE));
+    }
+
+    @FunctionalInterface
+    interface RecordHandler {
+
+        void accept(long id, long productId, int quantity, int reservedQuantity, int reorderLevel,
+                    long lastUpdatedMillis, long sequence, long flushedState, long flushedVersion);
+    }
+
+    static final class Snapshot {
+
+        private final String epoch;
+        private final long version;
+        private final int size;
+        private final ByteBuffer records;
+
+        private Snapshot(String epoch, long version, int size, ByteBuffer records) {
+            this.epoch = epoch;
+            this.version = version;
+            this.size = size;
+            this.records = records;
+        }
+
+        String epoch() {
+            return epoch;
+        }
+
+        long version() {
+            return version;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(RecordHandler handler) {
+            ByteBuffer in = records.duplicate();
+            for (int i = 0; i < size; i++) {
+                handler.accept(in.getLong(), in.getLong(), in.getInt(), in.getInt(), in.getInt(),
+                        in.getLong(), in.getLong(), in.getLong(), in.getLong());
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.ClockRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a {@link StockSnapshotFile} of the counters this instance owns at
+ * {@code inventory.ledger.snapshot.file}, for the next instance on the host to start from.
+ * <p>
+ * A snapshot is labelled with the change-feed version read after flushing the ledger, and
+ * only published once a second flush has succeeded: any counter that changed while it was
+ * copied has by then been written back with a later version. Loading the snapshot and then
+ * every row stamped after its version therefore reproduces the database. A snapshot whose
+ * clock epoch differs from the database's, or whose version is ahead of it, was taken from
+ * some other database and is ignored.
+ */
+@Component
+public class StockSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StockSnapshotStore.class);
+
+    private final StockLedger stockLedger;
+    private final StockLedgerFlusher flusher;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final Path path;
+    private final Timer writeTimer;
+    private final Lock writeLock = new ReentrantLock();
+
+    public StockSnapshotStore(StockLedger stockLedger,
+                              StockLedgerFlusher flusher,
+                              InventoryBatchRepository inventoryBatchRepository,
+                              ShardRouter shardRouter,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.ledger.snapshot.enabled:true}") boolean enabled,
+                              @Value("${inventory.ledger.snapshot.file:data/stock.snapshot}") Path path) {
+        this.stockLedger = stockLedger;
+        this.flusher = flusher;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.path = path;
+        this.writeTimer = Timer.builder("inventory.ledger.snapshot.write")
+                .description("Time to write a warm-start snapshot of the stock ledger")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return a snapshot of this database, or {@code null} if there is no usable one
+     */
+    StockSnapshotFile.Snapshot load() {
+        if (!enabled) {
+            return null;
+        }
+        StockSnapshotFile.Snapshot snapshot;
+        try {
+            snapshot = StockSnapshotFile.read(path);
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable stock snapshot {}", path, ex);
+            return null;
+        }
+        if (snapshot == null) {
+            return null;
+        }
+        ClockRow clock = inventoryBatchRepository.readClock();
+        if (clock == null || !snapshot.epoch().equals(clock.epoch()) || snapshot.version() > clock.version()) {
+            log.info("Ignoring stock snapshot {} taken from another database", path);
+            return null;
+        }
+        return snapshot;
+    }
+
+    @Scheduled(initialDelayString = "${inventory.ledger.snapshot.interval-ms:60000}",
+            fixedDelayString = "${inventory.ledger.snapshot.interval-ms:60000}")
+    public void scheduledWrite() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to write stock snapshot {}", path, ex);
+        }
+    }
+
+    /**
+     * @return whether a snapshot was published
+     */
+    public boolean write() throws IOException {
+        writeLock.lock();
+        try {
+            Timer.Sample sample = Timer.start();
+            if (!flusher.flushPending()) {
+                return false;
+            }
+            ClockRow clock = inventoryBatchRepository.readClock();
+            if (clock == null || clock.epoch() == null) {
+                return false;
+            }
+            List<StockCounter> counters = new ArrayList<>();
+            stockLedger.forEach(counter -> {
+                if (shardRouter.owns(counter.getProductId())) {
+                    counters.add(counter);
+                }
+            });
+            Path prepared = StockSnapshotFile.prepare(path, clock.epoch(), clock.version(), counters);
+            try {
+                if (!flusher.flushPending()) {
+                    return false;
+                }
+                StockSnapshotFile.publish(prepared, path);
+            } finally {
+                Files.deleteIfExists(prepared);
+            }
+            sample.stop(writeTimer);
+            log.debug("Wrote stock snapshot of {} products at version {}", counters.size(), clock.version());
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        scheduledWrite();
+    }
+}
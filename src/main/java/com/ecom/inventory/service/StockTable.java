@@ -0,0 +1,272 @@
+package com.ecom.inventory.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Compact storage behind {@link StockLedger}. Stock is kept column-wise in pages of primitive
+ * arrays, one slot per product, and found through an open-addressing {@code long -> slot}
+ * index with linear probing.
+ * <p>
+ * Lookups take no lock and allocate nothing: the index publishes each key with release
+ * semantics after its slot, and pages are never moved once created, so a reader holding an
+ * older index or page array still sees valid slots. Inserts are serialized by a lock; when
+ * the index passes half full it is rebuilt at twice the size and swapped in. A reader that
+ * misses a key inserted during the swap falls through to the ledger's load path, which
+ * re-checks under the lock.
+ * <p>
+ * Removal leaves a tombstone in the index that readers probe past and the next insert
+ * that probes over it fills; tombstones also count towards the resize threshold and are
+ * dropped when the index is rebuilt. The removed product's {@link StockCounter} is retired
+ * and its slot handed to a later product, with a fresh handle, once it has been free for
+ * {@code slotReuseDelay}. The delay is what keeps a stale handle that read the slot just
+ * before it was retired from landing a compare-and-set on the next product's stock; in that
+ * time the flusher has also written the retired counter's final state.
+ */
+final class StockTable {
+
+    static final int PAGE_SHIFT = 12;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long TOMBSTONE = Long.MIN_VALUE + 1;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long DEFAULT_SLOT_REUSE_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ArrayDeque<FreeSlot> freeSlots = new ArrayDeque<>();
+    private final long slotReuseDelayNanos;
+    private volatile Index index;
+    private volatile Page[] pages = new Page[0];
+    private int nextSlot;
+    private volatile int size;
+    private int used;
+
+    StockTable(int expectedSize) {
+        this(expectedSize, DEFAULT_SLOT_REUSE_DELAY_NANOS);
+    }
+
+    StockTable(int expectedSize, long slotReuseDelayNanos) {
+        this.index = new Index(Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1);
+        this.slotReuseDelayNanos = slotReuseDelayNanos;
+    }
+
+    StockCounter get(long productId) {
+        int slot = index.find(productId);
+        return slot < 0 ? null : pages[slot >>> PAGE_SHIFT].handles[slot & PAGE_MASK];
+    }
+
+    /**
+     * @return the existing counter for {@code productId}, or {@code null} if a new one was added
+     */
+    StockCounter putIfAbsent(long id, long productId, int quantity, int reservedQuantity, int reorderLevel,
+                             long lastUpdatedMillis, long sequence) {
+        if (productId == EMPTY || productId == TOMBSTONE) {
+            throw new IllegalArgumentException("Unsupported productId: " + productId);
+        }
+        writeLock.lock();
+        try {
+            StockCounter existing = get(productId);
+            if (existing != null) {
+                return existing;
+            }
+            int slot = takeFreeSlot();
+            Page page = page(slot);
+            int offset = slot & PAGE_MASK;
+            page.ids[offset] = id;
+            page.productIds[offset] = productId;
+            page.reorderLevels[offset] = reorderLevel;
+            page.lastUpdated[offset] = lastUpdatedMillis;
+            page.sequences[offset] = sequence;
+            page.flags[offset] = 0;
+            page.casRetries[offset] = 0;
+            // released last, so a retired handle that reads the new stock also sees it is retired
+            STATES.setRelease(page.states, offset, StockCounter.pack(quantity, reservedQuantity));
+            page.handles[offset] = new StockCounter(page, offset);
+            Index current = index;
+            if ((used + 1) * 2L > current.capacity()) {
+                current = current.rebuild((size + 1) * 4L > current.capacity());
+                used = size;
+            }
+            if (current.insert(productId, slot)) {
+                used++;
+            }
+            index = current;
+            size++;
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the removed counter, or {@code null} if the product was not in the table
+     */
+    StockCounter remove(long productId) {
+        writeLock.lock();
+        try {
+            int slot = index.find(productId);
+            if (slot < 0) {
+                return null;
+            }
+            StockCounter counter = pages[slot >>> PAGE_SHIFT].handles[slot & PAGE_MASK];
+            counter.retire();
+            index.remove(productId);
+            freeSlots.addLast(new FreeSlot(slot, System.nanoTime()));
+            size--;
+            return counter;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Visits every counter in the table. Counters added or removed while the walk is in
+     * progress may or may not be visited.
+     */
+    void forEach(Consumer<StockCounter> action) {
+        Index current = index;
+        Page[] currentPages = pages;
+        current.forEachSlot(slot -> action.accept(currentPages[slot >>> PAGE_SHIFT].handles[slot & PAGE_MASK]));
+    }
+
+    int size() {
+        return size;
+    }
+
+    // slots are freed in time order, so only the oldest one can be due
+    private int takeFreeSlot() {
+        FreeSlot oldest = freeSlots.peekFirst();
+        if (oldest != null && System.nanoTime() - oldest.freedAtNanos() >= slotReuseDelayNanos) {
+            freeSlots.pollFirst();
+            return oldest.slot();
+        }
+        return nextSlot++;
+    }
+
+    private Page page(int slot) {
+        int pageIndex = slot >>> PAGE_SHIFT;
+        Page[] current = pages;
+        if (pageIndex < current.length) {
+            return current[pageIndex];
+        }
+        Page[] grown = Arrays.copyOf(current, pageIndex + 1);
+        grown[pageIndex] = new Page();
+        pages = grown;
+        return grown[pageIndex];
+    }
+
+    /*
+     * A fixed page of PAGE_SIZE slots. StockCounter handles read and update these arrays
+     * through VarHandles; the id and productId columns are written once before the slot is
+     * published and never change.
+     */
+    static final class Page {
+        final long[] ids = new long[PAGE_SIZE];
+        final long[] productIds = new long[PAGE_SIZE];
+        final long[] states = new long[PAGE_SIZE];
+        final long[] sequences = new long[PAGE_SIZE];
+        final long[] lastUpdated = new long[PAGE_SIZE];
+        final int[] reorderLevels = new int[PAGE_SIZE];
+        final int[] flags = new int[PAGE_SIZE];
+        final int[] casRetries = new int[PAGE_SIZE];
+        final StockCounter[] handles = new StockCounter[PAGE_SIZE];
+    }
+
+    private record FreeSlot(int slot, long freedAtNanos) {
+    }
+
+    private static final class Index {
+
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        Index(int capacity) {
+            this.keys = new long[capacity];
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        int find(long key) {
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                long k = (long) KEYS.getAcquire(keys, i);
+                if (k == key) {
+                    // the position may have been tombstoned and refilled since the key was read
+                    int slot = (int) SLOTS.getAcquire(slots, i);
+                    if ((long) KEYS.getAcquire(keys, i) == key) {
+                        return slot;
+                    }
+                    return find(key);
+                }
+                if (k == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Puts {@code key}, which must not be present, in the first empty or tombstoned
+         * position on its probe path.
+         *
+         * @return whether an empty position was used up
+         */
+        boolean insert(long key, int slot) {
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != TOMBSTONE) {
+                i = (i + 1) & mask;
+            }
+            boolean empty = keys[i] == EMPTY;
+            SLOTS.setRelease(slots, i, slot);
+            KEYS.setRelease(keys, i, key);
+            return empty;
+        }
+
+        void remove(long key) {
+            for (int i = mix(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    KEYS.setRelease(keys, i, TOMBSTONE);
+                    return;
+                }
+            }
+        }
+
+        void forEachSlot(IntConsumer action) {
+            for (int i = 0; i < keys.length; i++) {
+                long key = (long) KEYS.getAcquire(keys, i);
+                if (key != EMPTY && key != TOMBSTONE) {
+                    action.accept(slots[i]);
+                }
+            }
+        }
+
+        Index rebuild(boolean grow) {
+            Index rebuilt = new Index(grow ? keys.length << 1 : keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && keys[i] != TOMBSTONE) {
+                    rebuilt.insert(keys[i], slots[i]);
+                }
+            }
+            return rebuilt;
+        }
+
+        // product ids are usually dense and sequential; spread them before masking
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecom.inventory.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel. {@link #schedule} is O(1) and safe from any thread: it only appends
+ * to a lock-free inbox. The wheel itself is touched by the single thread calling
+ * {@link #advance}, which moves the inbox into buckets and returns everything due, visiting
+ * only the buckets for the ticks that elapsed. Deadlines further out than one rotation stay
+ * in their bucket until their round comes up.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private final int mask;
+    private final Queue<Timeout<T>> inbox = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = wheelSize - 1;
+    }
+
+    public void schedule(T item, long deadlineMillis) {
+        inbox.add(new Timeout<>(item, Math.max(0, (deadlineMillis - startMillis + tickMillis - 1) / tickMillis)));
+    }
+
+    public List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+        transferInbox(due);
+        while (currentTick <= targetTick) {
+            Iterator<Timeout<T>> bucket = buckets[(int) (currentTick & mask)].iterator();
+            while (bucket.hasNext()) {
+                Timeout<T> timeout = bucket.next();
+                if (timeout.deadlineTick() <= currentTick) {
+                    due.add(timeout.item());
+                    bucket.remove();
+                }
+            }
+            currentTick++;
+        }
+        return due;
+    }
+
+    private void transferInbox(List<T> due) {
+        Timeout<T> timeout;
+        while ((timeout = inbox.poll()) != null) {
+            if (timeout.deadlineTick() < currentTick) {
+                due.add(timeout.item());
+            } else {
+                buckets[(int) (timeout.deadlineTick() & mask)].add(timeout);
+            }
+        }
+    }
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+}
@@ -48,3 +48,9 @@ INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, l
 INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, last_updated) VALUES (48, 142, 0, 10, CURRENT_TIMESTAMP);
 INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, last_updated) VALUES (49, 33, 0, 10, CURRENT_TIMESTAMP);
 INSERT INTO inventory (product_id, quantity, reserved_quantity, reorder_level, last_updated) VALUES (50, 98, 0, 10, CURRENT_TIMESTAMP);
+INSERT INTO fulfillment_locations (code, name, latitude, longitude) VALUES ('EWR1', 'Newark', 40.7357, -74.1724);
+INSERT INTO fulfillment_locations (code, name, latitude, longitude) VALUES ('ORD1', 'Chicago', 41.8781, -87.6298);
+INSERT INTO fulfillment_locations (code, name, latitude, longitude) VALUES ('SEA1', 'Seattle', 47.6062, -122.3321);
+INSERT INTO location_stock (product_id, location_code, quantity, allocated_quantity, last_updated) VALUES (1, 'EWR1', 50, 0, CURRENT_TIMESTAMP);
+INSERT INTO location_stock (product_id, location_code, quantity, allocated_quantity, last_updated) VALUES (1, 'ORD1', 60, 0, CURRENT_TIMESTAMP);
+INSERT INTO location_stock (product_id, location_code, quantity, allocated_quantity, last_updated) VALUES (1, 'SEA1', 40, 0, CURRENT_TIMESTAMP);
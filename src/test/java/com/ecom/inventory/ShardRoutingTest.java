@@ -0,0 +1,145 @@
+package com.ecom.inventory;
+
+import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.StockReservationResponse;
+import com.ecom.inventory.service.HoldManager;
+import com.ecom.inventory.service.ShardRouter;
+import com.ecom.inventory.service.StockLedger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two sharded instances in one JVM, sharing an in-memory database and finding each other
+ * through the simple discovery client instead of Eureka.
+ */
+class ShardRoutingTest {
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static String firstUrl;
+    private static String secondUrl;
+    private static final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @BeforeAll
+    static void startInstances() throws IOException {
+        int firstPort = freePort();
+        int secondPort = freePort();
+        firstUrl = "http://localhost:" + firstPort;
+        secondUrl = "http://localhost:" + secondPort;
+        first = start(firstPort, secondPort, firstPort, "always");
+        second = start(secondPort, firstPort, secondPort, "never");
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void requestsForAnotherInstancesProduct_shouldBeServedByItsOwner() {
+        long productId = productOwnedBy(secondUrl);
+
+        ResponseEntity<InventoryResponse> read = restTemplate.getForEntity(
+                firstUrl + "/api/inventory/" + productId, InventoryResponse.class);
+        assertEquals(HttpStatus.OK, read.getStatusCode());
+        assertEquals(secondUrl, read.getHeaders().getFirst("X-Inventory-Shard-Owner"));
+
+        ResponseEntity<StockReservationResponse> reserved = restTemplate.postForEntity(
+                firstUrl + "/api/inventory/reserve", json(Map.of("productId", productId, "quantity", 2)),
+                StockReservationResponse.class);
+        assertEquals(HttpStatus.OK, reserved.getStatusCode());
+        assertEquals(2, second.getBean(StockLedger.class).peek(productId).getReservedQuantity());
+        assertNull(first.getBean(StockLedger.class).peek(productId));
+
+        // holds reach the table on the next flush; only then can another instance route them
+        second.getBean(HoldManager.class).flush();
+        ResponseEntity<String> released = restTemplate.postForEntity(
+                firstUrl + "/api/inventory/holds/" + reserved.getBody().holdId() + "/release", null, String.class);
+        assertEquals(HttpStatus.OK, released.getStatusCode());
+        assertEquals(0, second.getBean(StockLedger.class).peek(productId).getReservedQuantity());
+    }
+
+    @Test
+    void requestsThatWereAlreadyForwarded_shouldGetARoutingHint() {
+        long productId = productOwnedBy(secondUrl);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Inventory-Forwarded", "true");
+
+        ResponseEntity<Map> hint = restTemplate.exchange(firstUrl + "/api/inventory/" + productId,
+                HttpMethod.GET, new HttpEntity<>(headers), Map.class);
+
+        assertEquals(421, hint.getStatusCode().value());
+        assertEquals(secondUrl, hint.getHeaders().getFirst("X-Inventory-Shard-Owner"));
+        assertEquals(secondUrl, hint.getBody().get("owner"));
+    }
+
+    @Test
+    void reservationBatchesSpanningShards_shouldBeRejected() {
+        Map<String, Object> batch = Map.of("lines", List.of(
+                Map.of("productId", productOwnedBy(firstUrl), "quantity", 1),
+                Map.of("productId", productOwnedBy(secondUrl), "quantity", 1)));
+
+        ResponseEntity<Map> response = restTemplate.postForEntity(
+                firstUrl + "/api/inventory/reserve/batch", json(batch), Map.class);
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("BATCH_SPANS_SHARDS", response.getBody().get("code"));
+        assertNull(response.getHeaders().getFirst("X-Inventory-Shard-Owner"));
+    }
+
+    private static long productOwnedBy(String url) {
+        ShardRouter router = first.getBean(ShardRouter.class);
+        return LongStream.rangeClosed(1, 50)
+                .filter(productId -> router.owner(productId).equals(URI.create(url)))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static HttpEntity<Object> json(Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+
+    private static ConfigurableApplicationContext start(int port, int peerPort, int selfPort, String sqlInit) {
+        return new SpringApplicationBuilder(InventoryServiceApplication.class).run(
+                "--server.port=" + port,
+                "--eureka.client.enabled=false",
+                "--management.tracing.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:sharded;DB_CLOSE_DELAY=-1",
+                "--spring.sql.init.mode=" + sqlInit,
+                "--inventory.sharding.enabled=true",
+                "--inventory.warmup.enabled=false",
+                "--inventory.sharding.self-uri=http://localhost:" + selfPort,
+                "--spring.cloud.discovery.client.simple.instances.inventory-service[0].uri=http://localhost:" + port,
+                "--spring.cloud.discovery.client.simple.instances.inventory-service[1].uri=http://localhost:" + peerPort);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecom.inventory;
+
+import com.ecom.inventory.dto.InventoryResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "inventory.warmup.requests=40",
+        "inventory.warmup.threads=2",
+        "inventory.warmup.max-duration=5s"
+})
+class StartupWarmUpTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void warmUp_shouldServeItsRequestsBeforeStartupEndsAndChangeNoStock() {
+        TimeGauge warmUp = meterRegistry.find("inventory.startup.duration").tag("phase", "warm-up").timeGauge();
+        assertNotNull(warmUp);
+        assertTrue(warmUp.value(TimeUnit.SECONDS) < 5);
+
+        Timer reads = meterRegistry.find("http.server.requests").tag("uri", "/api/inventory/{productId}").timer();
+        assertNotNull(reads);
+        assertTrue(reads.count() > 0);
+
+        InventoryResponse product = restTemplate.getForObject("/api/inventory/1", InventoryResponse.class);
+        assertEquals(0, product.reservedQuantity());
+    }
+}
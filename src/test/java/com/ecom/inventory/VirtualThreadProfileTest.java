@@ -0,0 +1,57 @@
+package com.ecom.inventory;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.InventoryResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "inventory.warmup.enabled=false"
+})
+@ActiveProfiles("virtual")
+class VirtualThreadProfileTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void virtualProfile_shouldServeRequestsOnVirtualThreads() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        assertTrue(workerThreads.isVirtual());
+        assertTrue(workerThreads.factory("test").newThread(() -> { }).isVirtual());
+        assertEquals(32, ((HikariDataSource) dataSource).getMaximumPoolSize());
+
+        ResponseEntity<InventoryResponse> response = restTemplate.getForEntity("/api/inventory/1", InventoryResponse.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1L, response.getBody().productId());
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecom.inventory.config;
+
+import com.ecom.inventory.dto.InventoryChange;
+import com.ecom.inventory.dto.InventoryChangePage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryChangesConverterTest {
+
+    private final InventoryChangesConverter converter = new InventoryChangesConverter();
+
+    @Test
+    void write_shouldRoundTripADeltaEncodedPage() throws Exception {
+        InventoryChangePage page = new InventoryChangePage(List.of(
+                new InventoryChange(1_000_042L, 5_000_001L, 150, 3, 147, 10),
+                new InventoryChange(17L, 5_000_002L, 0, 0, 0, 10),
+                new InventoryChange(1_000_043L, 5_000_010L, -2, 1, -3, 0)), 5_000_010L, true);
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, InventoryChangesConverter.MEDIA_TYPE, output);
+        byte[] body = output.getBodyAsBytes();
+
+        assertEquals(page, converter.read(InventoryChangePage.class, new MockHttpInputMessage(body)));
+        assertTrue(body.length < 40, "encoded in " + body.length + " bytes");
+    }
+}
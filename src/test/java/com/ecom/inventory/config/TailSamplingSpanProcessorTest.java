@@ -0,0 +1,138 @@
+package com.ecom.inventory.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TailSamplingSpanProcessorTest {
+
+    private final List<ReadableSpan> exported = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void close() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void onEnd_shouldKeepFailedAndSlowTracesWhenNothingElseFitsTheBudget() {
+        TailSamplingSpanProcessor processor = processor(0, 100);
+        Tracer tracer = tracer(processor);
+        // one window of ordinary traffic drives the rate to half, the next to a quarter
+        for (int window = 0; window < 2; window++) {
+            trace(tracer, false, 0);
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        trace(tracer, false, 0);
+        assertTrue(processor.sampleRate() < 0.5);
+        exported.clear();
+
+        Span failed = trace(tracer, true, 0);
+        Span slow = trace(tracer, false, 2_000);
+
+        assertEquals(List.of(failed.getSpanContext().getTraceId(), slow.getSpanContext().getTraceId()),
+                exported.stream().map(span -> span.getSpanContext().getTraceId()).distinct().toList());
+        assertEquals(4, exported.size(), "the whole trace is exported with its root");
+        assertEquals(1.0, registry.get("inventory.tracing.traces").tag("decision", "error").counter().count());
+        assertEquals(1.0, registry.get("inventory.tracing.traces").tag("decision", "slow").counter().count());
+    }
+
+    @Test
+    void adjust_shouldConvergeOnTheSpanBudget() {
+        TailSamplingSpanProcessor processor = processor(100, 100);
+        Tracer tracer = tracer(processor);
+
+        for (int window = 0; window < 12; window++) {
+            for (int i = 0; i < 500; i++) {
+                trace(tracer, false, 0);
+            }
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        exported.clear();
+        for (int i = 0; i < 500; i++) {
+            trace(tracer, false, 0);
+        }
+
+        // 1000 spans offered per second against a budget of 100
+        assertEquals(0.1, processor.sampleRate(), 0.01);
+        assertTrue(exported.size() > 40 && exported.size() < 180, "exported " + exported.size() + " spans");
+    }
+
+    @Test
+    void onEnd_shouldDropSpansBeyondTheBufferCap() {
+        TailSamplingSpanProcessor processor = processor(1000, 2);
+        Tracer tracer = tracer(processor);
+
+        Span root = tracer.spanBuilder("root").startSpan();
+        Context context = Context.current().with(root);
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("child").setParent(context).startSpan().end();
+        }
+        root.end();
+
+        assertEquals(3, exported.size());
+        assertEquals(1.0, registry.get("inventory.tracing.spans.overflow").counter().count());
+        assertEquals(0.0, registry.get("inventory.tracing.spans.buffered").gauge().value());
+    }
+
+    private TailSamplingSpanProcessor processor(double spansPerSecond, int maxBufferedSpans) {
+        SpanProcessor recorder = new SpanProcessor() {
+            @Override
+            public void onStart(Context parentContext, ReadWriteSpan span) {
+            }
+
+            @Override
+            public boolean isStartRequired() {
+                return false;
+            }
+
+            @Override
+            public void onEnd(ReadableSpan span) {
+                exported.add(span);
+            }
+
+            @Override
+            public boolean isEndRequired() {
+                return true;
+            }
+        };
+        return new TailSamplingSpanProcessor(recorder, Duration.ofSeconds(1), spansPerSecond, maxBufferedSpans,
+                Duration.ofSeconds(30), registry, clock::get);
+    }
+
+    private Tracer tracer(SpanProcessor processor) {
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        return tracerProvider.get("test");
+    }
+
+    // a root with one child, failing in the child or taking rootMillis
+    private Span trace(Tracer tracer, boolean fail, long rootMillis) {
+        Span root = tracer.spanBuilder("root").setStartTimestamp(1, TimeUnit.MILLISECONDS).startSpan();
+        Span child = tracer.spanBuilder("child").setParent(Context.current().with(root)).startSpan();
+        if (fail) {
+            child.setStatus(StatusCode.ERROR);
+        }
+        child.end();
+        root.end(1 + rootMillis, TimeUnit.MILLISECONDS);
+        return root;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecom.inventory.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchReservationRequestTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void validate_shouldAcceptUnkeyedLines() {
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new StockReservationRequest(1L, 2), new StockReservationRequest(2L, 3, 60)));
+
+        assertTrue(validator.validate(request).isEmpty());
+    }
+
+    @Test
+    void validate_shouldRejectKeyedLines() {
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new StockReservationRequest(1L, 2), new StockReservationRequest(2L, 3, null, "order-42")));
+
+        Set<ConstraintViolation<BatchReservationRequest>> violations = validator.validate(request);
+
+        assertEquals(1, violations.size());
+        assertEquals("unkeyed", violations.iterator().next().getPropertyPath().toString());
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecom.inventory.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ErrorBodiesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void render_shouldWriteTheSameFieldsAsTheExceptionMessage() throws IOException {
+        InsufficientStockException ex = new InsufficientStockException(-12L, 0, 1_000_000);
+
+        JsonNode body = objectMapper.readTree(
+                ErrorBodies.render(RejectionCode.INSUFFICIENT_STOCK, ex.getProductId(), ex.getAvailable(),
+                        ex.getRequested()));
+
+        assertEquals(400, body.get("status").asInt());
+        assertEquals("Bad Request", body.get("error").asText());
+        assertEquals("INSUFFICIENT_STOCK", body.get("code").asText());
+        assertEquals(ex.getMessage(), body.get("message").asText());
+        assertEquals(-12L, body.get("productId").asLong());
+        assertEquals(0, body.get("availableQuantity").asInt());
+        assertEquals(1_000_000, body.get("requestedQuantity").asInt());
+        LocalDateTime.parse(body.get("timestamp").asText());
+    }
+
+    @Test
+    void render_shouldWriteNotFoundBody() throws IOException {
+        JsonNode body = objectMapper.readTree(ErrorBodies.render(RejectionCode.NOT_FOUND, 999L, 0, 0));
+
+        assertEquals(404, body.get("status").asInt());
+        assertEquals("NOT_FOUND", body.get("code").asText());
+        assertEquals(new InventoryNotFoundException(999L).getMessage(), body.get("message").asText());
+        assertEquals(999L, body.get("productId").asLong());
+        assertEquals(6, body.size());
+    }
+}
@@ -0,0 +1,175 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.AllocationRequest;
+import com.ecom.inventory.dto.AllocationResponse;
+import com.ecom.inventory.dto.LineAllocation;
+import com.ecom.inventory.dto.LocationAllocation;
+import com.ecom.inventory.dto.LocationStockResponse;
+import com.ecom.inventory.dto.StockReservationRequest;
+import com.ecom.inventory.exception.AllocationStrategyNotFoundException;
+import com.ecom.inventory.exception.InsufficientStockException;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryEventRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import com.ecom.inventory.repository.LocationRepository;
+import com.ecom.inventory.repository.LocationRepository.LocationRow;
+import com.ecom.inventory.repository.LocationRepository.LocationStockRow;
+import com.ecom.inventory.repository.StockHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AllocationEngineTest {
+
+    // a little west of Newark
+    private static final double LATITUDE = 40.7;
+    private static final double LONGITUDE = -74.5;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryEventRepository inventoryEventRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    @Mock
+    private StockHoldRepository stockHoldRepository;
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    private StockLedger stockLedger;
+    private LocationLedger locationLedger;
+    private HoldManager holdManager;
+    private AllocationEngine allocationEngine;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(inventoryRepository, inventoryEventRepository, inventoryBatchRepository,
+                eventPublisher, List.of(), 16);
+        locationLedger = new LocationLedger(locationRepository, stockLedger, 3);
+        holdManager = new HoldManager(stockLedger, stockHoldRepository, inventoryBatchRepository,
+                new WorkerThreads(false), List.of(locationLedger),
+                Duration.ofMinutes(15), Duration.ofHours(1), 1000, 64);
+        allocationEngine = new AllocationEngine(stockLedger, locationLedger, holdManager,
+                new OperationMetrics(new SimpleMeterRegistry()),
+                List.of(new NearestLocationStrategy(), new LeastLoadedStrategy(), new FewestSplitsStrategy()),
+                "nearest", 2, 2, 3);
+
+        Inventory stocked = new Inventory(1L, 150, 0, 10);
+        stocked.setId(1L);
+        Inventory unlocated = new Inventory(2L, 5, 0, 10);
+        unlocated.setId(2L);
+        when(inventoryRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(stocked, unlocated));
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(stocked));
+        when(locationRepository.findLocations()).thenReturn(List.of(
+                new LocationRow("EWR1", "Newark", 40.7357, -74.1724),
+                new LocationRow("ORD1", "Chicago", 41.8781, -87.6298),
+                new LocationRow("SEA1", "Seattle", 47.6062, -122.3321)));
+        LocalDateTime now = LocalDateTime.now();
+        when(locationRepository.findStock(1L)).thenReturn(List.of(
+                new LocationStockRow(1L, "EWR1", 50, 0, now),
+                new LocationStockRow(1L, "ORD1", 60, 0, now),
+                new LocationStockRow(1L, "SEA1", 40, 0, now)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocationEngine.shutdown();
+    }
+
+    @Test
+    void allocate_shouldSplitOverNearestLocationsAndReturnUnitsOnRelease() {
+        AllocationResponse response = allocationEngine.allocate(request(null, new StockReservationRequest(1L, 70)));
+
+        LineAllocation line = response.lines().get(0);
+        assertEquals("nearest", response.strategy());
+        assertEquals(80, line.availableQuantity());
+        assertEquals(List.of(new LocationAllocation("EWR1", 50), new LocationAllocation("ORD1", 20)),
+                line.locations());
+        assertEquals(70, stockLedger.counter(1L).getReservedQuantity());
+
+        holdManager.release(line.holdId());
+
+        assertEquals(0, stockLedger.counter(1L).getReservedQuantity());
+        assertEquals(List.of(0, 0, 0), locationLedger.getStock(1L).stream()
+                .map(LocationStockResponse::allocatedQuantity).toList());
+    }
+
+    @Test
+    void allocate_shouldSpreadAHotProductAndShipConfirmedUnitsFromTheirLocations() {
+        LineAllocation first = allocationEngine.allocate(
+                request("least-loaded", new StockReservationRequest(1L, 20))).lines().get(0);
+        LineAllocation second = allocationEngine.allocate(
+                request("least-loaded", new StockReservationRequest(1L, 20))).lines().get(0);
+
+        assertNotEquals(first.locations(), second.locations());
+
+        holdManager.confirm(first.holdId());
+
+        List<LocationStockResponse> stock = locationLedger.getStock(1L);
+        assertEquals(130, stockLedger.counter(1L).getQuantity());
+        assertEquals(130, stock.stream().mapToInt(LocationStockResponse::quantity).sum());
+        assertEquals(20, stock.stream().mapToInt(LocationStockResponse::allocatedQuantity).sum());
+    }
+
+    @Test
+    void allocate_shouldReleaseEveryLineWhenOneCannotBePlaced() {
+        AllocationRequest request = request("fewest-splits",
+                new StockReservationRequest(1L, 10), new StockReservationRequest(2L, 6));
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> allocationEngine.allocate(request));
+
+        assertEquals(2L, ex.getProductId());
+        assertEquals(5, ex.getAvailable());
+        assertEquals(0, stockLedger.counter(1L).getReservedQuantity());
+        assertEquals(0, stockLedger.counter(2L).getReservedQuantity());
+        assertEquals(0, locationLedger.getStock(1L).stream()
+                .mapToInt(LocationStockResponse::allocatedQuantity).sum());
+        assertEquals(0, holdManager.activeHolds());
+    }
+
+    @Test
+    void allocate_shouldRejectUnknownStrategies() {
+        assertThrows(AllocationStrategyNotFoundException.class,
+                () -> allocationEngine.allocate(request("cheapest", new StockReservationRequest(1L, 1))));
+    }
+
+    @Test
+    void setStock_shouldMoveTheProductQuantityWithTheLocation() {
+        locationLedger.setStock(1L, "SEA1", 55);
+
+        assertEquals(165, stockLedger.counter(1L).getQuantity());
+    }
+
+    private static AllocationRequest request(String strategy, StockReservationRequest... lines) {
+        return new AllocationRequest(List.of(lines), LATITUDE, LONGITUDE, strategy);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.LocationAllocation;
+import com.ecom.inventory.service.AllocationStrategy.LocationOption;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AllocationStrategyTest {
+
+    private static final List<LocationOption> OPTIONS = List.of(
+            new LocationOption("NEAR", 10, 0, 5.0),
+            new LocationOption("MID", 100, 10, 500.0),
+            new LocationOption("FAR", 40, 0, 4000.0));
+
+    @Test
+    void nearest_shouldFillFromTheClosestLocationOutwards() {
+        assertEquals(List.of(new LocationAllocation("NEAR", 10), new LocationAllocation("MID", 15)),
+                new NearestLocationStrategy().plan(25, OPTIONS));
+    }
+
+    @Test
+    void leastLoaded_shouldPreferLocationsWithLittleAllocated() {
+        assertEquals(List.of(new LocationAllocation("FAR", 40), new LocationAllocation("NEAR", 10),
+                        new LocationAllocation("MID", 10)),
+                new LeastLoadedStrategy().plan(60, OPTIONS));
+    }
+
+    @Test
+    void fewestSplits_shouldUseOneLocationWhenOneCanCoverTheLine() {
+        FewestSplitsStrategy strategy = new FewestSplitsStrategy();
+
+        assertEquals(List.of(new LocationAllocation("MID", 25)), strategy.plan(25, OPTIONS));
+        assertEquals(List.of(new LocationAllocation("MID", 90), new LocationAllocation("FAR", 5)),
+                strategy.plan(95, OPTIONS));
+    }
+
+    @Test
+    void plan_shouldComeUpShortWhenLocationsCannotCoverTheLine() {
+        assertEquals(140, new NearestLocationStrategy().plan(200, OPTIONS).stream()
+                .mapToInt(LocationAllocation::quantity).sum());
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.InventoryChange;
+import com.ecom.inventory.dto.InventoryChangePage;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    private ChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = new ChangeFeed(inventoryRepository, inventoryBatchRepository, new WorkerThreads(false),
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.shutdown();
+    }
+
+    @Test
+    void changes_shouldOnlyMoveTheCursorPastCommittedVersions() {
+        changeFeed.published(7);
+        when(inventoryRepository.findChangesSince(3L, Limit.of(2))).thenReturn(List.of(change(1L, 5L)));
+        when(inventoryRepository.findChangesSince(3L, Limit.of(1))).thenReturn(List.of(change(1L, 5L)));
+
+        InventoryChangePage partial = changeFeed.changes(3, 2);
+        InventoryChangePage full = changeFeed.changes(3, 1);
+
+        assertEquals(7, partial.cursor());
+        assertFalse(partial.hasMore());
+        assertEquals(5, full.cursor());
+        assertTrue(full.hasMore());
+    }
+
+    @Test
+    void poll_shouldAnswerOnceTheNextVersionIsPublished() throws Exception {
+        changeFeed.published(7);
+        when(inventoryRepository.findChangesSince(7L, Limit.of(10)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(change(2L, 8L)));
+
+        CompletableFuture<InventoryChangePage> poll = changeFeed.poll(7, 10, Duration.ofSeconds(5));
+        assertFalse(poll.isDone());
+        changeFeed.published(8);
+
+        InventoryChangePage page = poll.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(change(2L, 8L)), page.changes());
+        assertEquals(8, page.cursor());
+    }
+
+    @Test
+    void subscribe_shouldShareOneQueryBetweenSubscribersAtTheSameCursor() throws Exception {
+        changeFeed.published(7);
+        when(inventoryRepository.findChangesSince(7L, Limit.of(100))).thenReturn(List.of(change(3L, 9L)));
+        CountDownLatch delivered = new CountDownLatch(2);
+        changeFeed.subscribe(7, 100, page -> delivered.countDown());
+        changeFeed.subscribe(7, 100, page -> delivered.countDown());
+
+        changeFeed.published(9);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        verify(inventoryRepository, times(1)).findChangesSince(eq(7L), any());
+    }
+
+    private static InventoryChange change(long productId, long version) {
+        return new InventoryChange(productId, version, 10, 2, 8, 5);
+    }
+}
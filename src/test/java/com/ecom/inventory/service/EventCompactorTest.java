@@ -0,0 +1,107 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.CompactionReport;
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.dto.InventoryEventResponse;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.EventHistoryRepository;
+import com.ecom.inventory.repository.EventHistoryRepository.EventPosition;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventCompactorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+
+    @Mock
+    private EventHistoryRepository eventHistoryRepository;
+
+    @Mock
+    private InventorySnapshotter inventorySnapshotter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path archiveDirectory;
+
+    @Test
+    void summarize_shouldFoldEventsIntoOneRowPerProductAndDay() {
+        List<InventoryDailySummary> summaries = EventCompactor.summarize(List.of(
+                event(1, 1L, InventoryEventType.STOCK_RESERVED, 0, 5, 3L, DAY.atTime(9, 0)),
+                event(2, 1L, InventoryEventType.STOCK_RELEASED, 0, -2, 4L, DAY.atTime(10, 0)),
+                event(3, 1L, InventoryEventType.STOCK_UPDATED, 40, 0, 5L, DAY.plusDays(1).atTime(8, 0)),
+                event(4, 2L, InventoryEventType.STOCK_CONFIRMED, -5, -5, 9L, DAY.atTime(11, 0)),
+                event(5, 1L, InventoryEventType.LOW_STOCK_ALERT, 0, 0, null, DAY.atTime(12, 0))));
+
+        assertEquals(List.of(
+                new InventoryDailySummary(1L, DAY, 3, 1, 0, 0, 5, 2, 3L, 4L),
+                new InventoryDailySummary(1L, DAY.plusDays(1), 1, 0, 40, 0, 0, 0, 5L, 5L),
+                new InventoryDailySummary(2L, DAY, 1, 0, 0, 5, 0, 5, 9L, 9L)), summaries);
+    }
+
+    @Test
+    void compact_shouldArchiveAndAggregateOnlyTheEventsThisRunDeleted() {
+        JsonMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        EventArchive archive = new EventArchive(objectMapper, archiveDirectory);
+        EventCompactor compactor = new EventCompactor(eventHistoryRepository, archive, inventorySnapshotter,
+                new TransactionTemplate(transactionManager), new SimpleMeterRegistry(), Duration.ofDays(7), 2);
+        LocalDateTime cutoff = DAY.plusDays(1).atStartOfDay();
+        // ids 10..13 are before the cutoff, 14 onwards after it
+        when(eventHistoryRepository.findFirstId()).thenReturn(10L);
+        when(eventHistoryRepository.findLastId()).thenReturn(20L);
+        when(eventHistoryRepository.findPositionAtOrAfter(anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(0);
+            return new EventPosition(id, id < 14 ? DAY.atTime((int) id, 0) : cutoff.plusHours(id));
+        });
+        InventoryEvent first = event(10, 1L, InventoryEventType.STOCK_RESERVED, 0, 2, 1L, DAY.atTime(10, 0));
+        InventoryEvent second = event(11, 1L, InventoryEventType.STOCK_RELEASED, 0, -1, 2L, DAY.atTime(11, 0));
+        InventoryEvent third = event(13, 2L, InventoryEventType.STOCK_UPDATED, 7, 0, 1L, DAY.atTime(13, 0));
+        when(eventHistoryRepository.findCompactable(9L, 14L, cutoff, 2)).thenReturn(List.of(first, second));
+        when(eventHistoryRepository.findCompactable(11L, 14L, cutoff, 2)).thenReturn(List.of(third));
+        // another instance deleted the second event first
+        when(eventHistoryRepository.deleteEvents(List.of(first, second))).thenReturn(List.of(first));
+        when(eventHistoryRepository.deleteEvents(List.of(third))).thenReturn(List.of(third));
+
+        CompactionReport report = compactor.compact(cutoff);
+
+        assertEquals(2, report.eventsArchived());
+        assertEquals(2, report.summariesWritten());
+        var order = inOrder(inventorySnapshotter, eventHistoryRepository);
+        order.verify(inventorySnapshotter).takeSnapshots();
+        order.verify(eventHistoryRepository).mergeSummaries(List.of(
+                new InventoryDailySummary(1L, DAY, 1, 1, 0, 0, 2, 0, 1L, 1L)));
+        order.verify(eventHistoryRepository).mergeSummaries(List.of(
+                new InventoryDailySummary(2L, DAY, 1, 0, 7, 0, 0, 0, 1L, 1L)));
+        assertEquals(List.of(10L, 13L), archive.read(DAY).stream().map(InventoryEventResponse::id).toList());
+        assertEquals(first.getTimestamp(), archive.read(DAY).get(0).timestamp());
+    }
+
+    private static InventoryEvent event(long id, Long productId, InventoryEventType type, int quantityDelta,
+                                        int reservedDelta, Long sequence, LocalDateTime timestamp) {
+        InventoryEvent event = new InventoryEvent(productId, type, null, sequence, quantityDelta, reservedDelta,
+                null, timestamp);
+        event.setId(id);
+        return event;
+    }
+}
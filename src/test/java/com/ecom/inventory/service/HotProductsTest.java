@@ -0,0 +1,98 @@
+package com.ecom.inventory.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotProductsTest {
+
+    @Test
+    void rotate_shouldRankProductsByRequestsAndPublishThemByRank() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HotProducts hotProducts = new HotProducts(registry, 2, 4, 1);
+        StockTable table = new StockTable(16);
+        for (long productId = 1; productId <= 3; productId++) {
+            table.putIfAbsent(productId, productId, 100, 0, 0, 0L, 0L);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            hotProducts.onStockChanged(table.get(2L), 0L, 0L);
+        }
+        for (int i = 0; i < 3; i++) {
+            hotProducts.onReservationRejected(table.get(3L));
+        }
+        hotProducts.onStockChanged(table.get(1L), 0L, 0L);
+        hotProducts.rotate();
+
+        assertEquals(List.of(2L, 3L), hotProducts.top());
+        assertEquals(2.0, registry.get("inventory.hot.products.id").tag("rank", "1").gauge().value());
+        assertEquals(3.0, registry.get("inventory.hot.products.id").tag("rank", "2").gauge().value());
+        assertTrue(registry.get("inventory.hot.products.rate").tag("rank", "1").gauge().value() > 0);
+    }
+
+    @Test
+    void sample_shouldKeepMemoryFixedAndStillSurfaceTheHottestProduct() {
+        HotProducts hotProducts = new HotProducts(new SimpleMeterRegistry(), 1, 8, 1);
+        StockTable table = new StockTable(16);
+        for (long productId = 0; productId < 100; productId++) {
+            table.putIfAbsent(productId, productId, 100, 0, 0, 0L, 0L);
+        }
+
+        for (long productId = 0; productId < 100; productId++) {
+            hotProducts.onStockChanged(table.get(productId), 0L, 0L);
+            if (productId % 2 == 0) {
+                hotProducts.onStockChanged(table.get(42L), 0L, 0L);
+            }
+        }
+        hotProducts.rotate();
+
+        assertEquals(List.of(42L), hotProducts.top());
+
+        hotProducts.rotate();
+
+        assertTrue(hotProducts.top().isEmpty());
+    }
+
+    @Test
+    void sample_shouldMergeWhatConcurrentThreadsRecordedOnDifferentStripes() throws Exception {
+        HotProducts hotProducts = new HotProducts(new SimpleMeterRegistry(), 2, 16, 1);
+        StockTable table = new StockTable(16);
+        for (long productId = 1; productId <= 3; productId++) {
+            table.putIfAbsent(productId, productId, 100, 0, 0, 0L, 0L);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        hotProducts.onStockChanged(table.get(2L), 0L, 0L);
+                        if (i % 2 == 0) {
+                            hotProducts.onReservationRejected(table.get(3L));
+                        }
+                        if (i % 100 == 0) {
+                            hotProducts.onStockChanged(table.get(1L), 0L, 0L);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        hotProducts.rotate();
+
+        assertEquals(List.of(2L, 3L), hotProducts.top());
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryEventPublisherTest {
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private StockJournal stockJournal;
+
+    @Test
+    void stop_shouldFlushEveryPendingEvent() {
+        InventoryEventPublisher publisher = newPublisher(1024, 100);
+        for (int i = 0; i < 250; i++) {
+            publisher.publish(event(i));
+        }
+
+        publisher.stop();
+
+        assertEquals(0, publisher.pending());
+        assertEquals(250, writtenEvents());
+    }
+
+    @Test
+    void publish_shouldDrainOnCallerThreadWhenQueueIsFull() {
+        InventoryEventPublisher publisher = newPublisher(4, 4);
+        for (int i = 0; i < 10; i++) {
+            publisher.publish(event(i));
+        }
+
+        assertEquals(2, publisher.pending());
+        assertEquals(8, writtenEvents());
+    }
+
+    @Test
+    void stop_shouldRetryFailedBatches() {
+        doThrow(new IllegalStateException("db down")).doNothing()
+                .when(inventoryBatchRepository).insertEvents(anyList());
+        InventoryEventPublisher publisher = newPublisher(16, 16);
+        publisher.publish(event(1));
+
+        publisher.stop();
+
+        assertEquals(0, publisher.pending());
+        verify(inventoryBatchRepository, times(2)).insertEvents(anyList());
+    }
+
+    @Test
+    void stop_shouldSplitOffAnEventThatCannotBeWritten() {
+        doAnswer(invocation -> {
+            List<InventoryEvent> events = invocation.getArgument(0);
+            if (events.stream().anyMatch(event -> event.getProductId() == 3L)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return null;
+        }).when(inventoryBatchRepository).insertEvents(anyList());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InventoryEventPublisher publisher = new InventoryEventPublisher(inventoryBatchRepository, stockJournal,
+                meterRegistry, new WorkerThreads(false), 16, 8, 5, 1, 2);
+        for (int i = 0; i < 8; i++) {
+            publisher.publish(event(i));
+        }
+
+        publisher.stop();
+
+        assertEquals(0, publisher.pending());
+        assertEquals(1.0, meterRegistry.counter("inventory.events.dead.letters").count());
+        assertEquals(1, publisher.deadLettered());
+        assertEquals(7, writtenEvents() - attemptedEvents(3L));
+    }
+
+    @Test
+    void flush_shouldWriteEverythingPublishedBeforeTheCall() {
+        InventoryEventPublisher publisher = newPublisher(1024, 100);
+        for (int i = 0; i < 250; i++) {
+            publisher.publish(event(i));
+        }
+
+        assertTrue(publisher.flush(Duration.ofSeconds(1)));
+
+        assertEquals(0, publisher.pending());
+        assertEquals(250, writtenEvents());
+        verify(stockJournal, times(250)).append(any(InventoryEvent.class));
+    }
+
+    private InventoryEventPublisher newPublisher(int capacity, int batchSize) {
+        return new InventoryEventPublisher(inventoryBatchRepository, stockJournal, new SimpleMeterRegistry(),
+                new WorkerThreads(false), capacity, batchSize, 5, 1, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int writtenEvents() {
+        ArgumentCaptor<List<InventoryEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryBatchRepository, atLeastOnce()).insertEvents(captor.capture());
+        return captor.getAllValues().stream().mapToInt(List::size).sum();
+    }
+
+    // events that were in a batch containing productId, which was therefore not written
+    @SuppressWarnings("unchecked")
+    private int attemptedEvents(long productId) {
+        ArgumentCaptor<List<InventoryEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryBatchRepository, atLeastOnce()).insertEvents(captor.capture());
+        return captor.getAllValues().stream()
+                .filter(events -> events.stream().anyMatch(event -> event.getProductId() == productId))
+                .mapToInt(List::size).sum();
+    }
+
+    private static InventoryEvent event(long productId) {
+        return new InventoryEvent(productId, InventoryEventType.STOCK_RESERVED, 1, LocalDateTime.now());
+    }
+}
@@ -1,32 +1,63 @@
 package com.ecom.inventory.service;
 
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.dto.AvailabilityResponse;
+import com.ecom.inventory.dto.BatchReservationRequest;
+import com.ecom.inventory.dto.HoldResponse;
+import com.ecom.inventory.dto.InventoryDailySummary;
+import com.ecom.inventory.dto.InventoryPage;
 import com.ecom.inventory.dto.InventoryRequest;
 import com.ecom.inventory.dto.InventoryResponse;
+import com.ecom.inventory.dto.LocationStockResponse;
+import com.ecom.inventory.dto.LowStockAlert;
+import com.ecom.inventory.dto.ProductAvailability;
 import com.ecom.inventory.dto.StockReservationRequest;
 import com.ecom.inventory.dto.StockReservationResponse;
+import com.ecom.inventory.exception.HoldNotActiveException;
+import com.ecom.inventory.exception.HoldNotFoundException;
+import com.ecom.inventory.exception.IdempotencyKeyReusedException;
 import com.ecom.inventory.exception.InsufficientStockException;
 import com.ecom.inventory.exception.InventoryNotFoundException;
+import com.ecom.inventory.model.HoldStatus;
 import com.ecom.inventory.model.Inventory;
 import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.EventHistoryRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository;
 import com.ecom.inventory.repository.InventoryEventRepository;
 import com.ecom.inventory.repository.InventoryRepository;
+import com.ecom.inventory.repository.LocationRepository;
+import com.ecom.inventory.repository.LocationRepository.LocationStockRow;
+import com.ecom.inventory.repository.ReservationRecordRepository;
+import com.ecom.inventory.repository.StockHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,13 +71,48 @@ class InventoryServiceTest {
     @Mock
     private InventoryEventRepository inventoryEventRepository;
 
-    @InjectMocks
+    @Mock
+    private EventHistoryRepository eventHistoryRepository;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    @Mock
+    private StockHoldRepository stockHoldRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private ReservationRecordRepository reservationRecordRepository;
+
+    @Mock
+    private LocationRepository locationRepository;
+
     private InventoryService inventoryService;
 
+    private LocationLedger locationLedger;
+
     private Inventory inventory;
 
     @BeforeEach
     void setUp() {
+        InventoryResponseCache responseCache =
+                new InventoryResponseCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1));
+        LowStockIndex lowStockIndex = new LowStockIndex(eventPublisher, new WorkerThreads(false),
+                new SimpleMeterRegistry(), 4);
+        StockLedger stockLedger = new StockLedger(inventoryRepository, inventoryEventRepository,
+                inventoryBatchRepository, eventPublisher, List.of(responseCache, lowStockIndex), 16);
+        locationLedger = new LocationLedger(locationRepository, stockLedger, 3);
+        HoldManager holdManager = new HoldManager(stockLedger, stockHoldRepository,
+                inventoryBatchRepository, new WorkerThreads(false), List.of(locationLedger),
+                Duration.ofMinutes(15), Duration.ofHours(1), 1000, 64);
+        IdempotencyStore idempotencyStore = new IdempotencyStore(reservationRecordRepository,
+                inventoryBatchRepository, new SimpleMeterRegistry(), Duration.ofHours(24), 1000);
+        inventoryService = new InventoryService(inventoryRepository, inventoryEventRepository,
+                eventHistoryRepository, stockLedger,
+                eventPublisher, responseCache, lowStockIndex, holdManager, locationLedger, idempotencyStore,
+                new OperationMetrics(new SimpleMeterRegistry()));
         inventory = new Inventory(1L, 100, 10, 10);
         inventory.setId(1L);
         inventory.setLastUpdated(LocalDateTime.now());
@@ -65,6 +131,21 @@ class InventoryServiceTest {
         assertEquals(90, response.availableQuantity());
     }
 
+    @Test
+    void getInventoryByProductId_shouldServeCachedSnapshotUntilNextWrite() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+
+        InventoryResponse first = inventoryService.getInventoryByProductId(1L);
+        assertSame(first, inventoryService.getInventoryByProductId(1L));
+
+        inventoryService.reserveStock(new StockReservationRequest(1L, 5));
+
+        InventoryResponse afterReserve = inventoryService.getInventoryByProductId(1L);
+        assertEquals(15, afterReserve.reservedQuantity());
+        assertEquals(85, afterReserve.availableQuantity());
+        verify(inventoryRepository, times(1)).findByProductId(1L);
+    }
+
     @Test
     void getInventoryByProductId_shouldThrowWhenNotFound() {
         when(inventoryRepository.findByProductId(999L)).thenReturn(Optional.empty());
@@ -74,16 +155,63 @@ class InventoryServiceTest {
     }
 
     @Test
-    void getAllInventory_shouldReturnAllItems() {
-        Inventory inventory2 = new Inventory(2L, 50, 5, 10);
-        inventory2.setId(2L);
-        inventory2.setLastUpdated(LocalDateTime.now());
+    void getAvailability_shouldReadLoadedCountersAndQueryTheRestOnce() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 30));
+        when(inventoryRepository.findAvailabilityByProductIdIn(List.of(2L, 999L)))
+                .thenReturn(List.of(new ProductAvailability(2L, 45)));
 
-        when(inventoryRepository.findAll()).thenReturn(Arrays.asList(inventory, inventory2));
+        AvailabilityResponse response = inventoryService.getAvailability(List.of(2L, 1L, 999L, 1L));
 
-        List<InventoryResponse> responses = inventoryService.getAllInventory();
+        assertEquals(List.of(2L, 1L), List.copyOf(response.available().keySet()));
+        assertEquals(45, response.available().get(2L));
+        assertEquals(60, response.available().get(1L));
+        assertEquals(List.of(999L), response.notFound());
+        verify(inventoryRepository, never()).findByProductIdIn(any());
+    }
 
-        assertEquals(2, responses.size());
+    @Test
+    void getDailySummaries_shouldAddLiveEventsToTheCompactedPartOfADay() {
+        LocalDate day = LocalDate.of(2026, 10, 1);
+        when(eventHistoryRepository.findStoredSummaries(1L, day, day.plusDays(2))).thenReturn(List.of(
+                new InventoryDailySummary(1L, day, 3, 2, 0, 0, 2, 0, 4L, 6L)));
+        when(eventHistoryRepository.summarizeEvents(1L, day.atStartOfDay(), day.plusDays(2).atStartOfDay()))
+                .thenReturn(List.of(
+                        new InventoryDailySummary(1L, day.plusDays(1), 1, 0, 5, 0, 0, 0, null, null),
+                        new InventoryDailySummary(1L, day, 1, 0, 0, 0, 0, 1, 7L, 7L)));
+
+        List<InventoryDailySummary> summaries = inventoryService.getDailySummaries(1L, day, day.plusDays(2));
+
+        assertEquals(List.of(
+                new InventoryDailySummary(1L, day, 4, 2, 0, 0, 2, 1, 4L, 7L),
+                new InventoryDailySummary(1L, day.plusDays(1), 1, 0, 5, 0, 0, 0, null, null)), summaries);
+    }
+
+    @Test
+    void getInventoryPage_shouldReturnCursorWhenPageIsFull() {
+        InventoryResponse row1 = new InventoryResponse(1L, 1L, 100, 10, 90, 10, LocalDateTime.now());
+        InventoryResponse row2 = new InventoryResponse(2L, 2L, 50, 5, 45, 10, LocalDateTime.now());
+
+        when(inventoryRepository.findPageAfter(eq(Long.MIN_VALUE), any(Limit.class))).thenReturn(List.of(row1, row2));
+
+        InventoryPage page = inventoryService.getInventoryPage(null, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test
+    void getInventoryPage_shouldOverlayLedgerStateAndEndOnShortPage() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 30));
+        InventoryResponse staleRow = new InventoryResponse(1L, 1L, 100, 10, 90, 10, LocalDateTime.now());
+
+        when(inventoryRepository.findPageAfter(eq(0L), any(Limit.class))).thenReturn(List.of(staleRow));
+
+        InventoryPage page = inventoryService.getInventoryPage(0L, 100);
+
+        assertEquals(40, page.items().get(0).reservedQuantity());
+        assertNull(page.nextCursor());
     }
 
     @Test
@@ -97,7 +225,6 @@ class InventoryServiceTest {
             saved.setLastUpdated(LocalDateTime.now());
             return saved;
         });
-        when(inventoryEventRepository.save(any(InventoryEvent.class))).thenReturn(new InventoryEvent());
 
         InventoryResponse response = inventoryService.addOrUpdateInventory(request);
 
@@ -112,17 +239,13 @@ class InventoryServiceTest {
         InventoryRequest request = new InventoryRequest(1L, 200, 20);
 
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
-        when(inventoryRepository.save(any(Inventory.class))).thenAnswer(invocation -> {
-            Inventory saved = invocation.getArgument(0);
-            saved.setLastUpdated(LocalDateTime.now());
-            return saved;
-        });
-        when(inventoryEventRepository.save(any(InventoryEvent.class))).thenReturn(new InventoryEvent());
 
         InventoryResponse response = inventoryService.addOrUpdateInventory(request);
 
         assertEquals(200, response.quantity());
         assertEquals(20, response.reorderLevel());
+        assertEquals(10, response.reservedQuantity());
+        verify(inventoryRepository, never()).save(any(Inventory.class));
     }
 
     @Test
@@ -130,14 +253,13 @@ class InventoryServiceTest {
         StockReservationRequest request = new StockReservationRequest(1L, 20);
 
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(inventory);
-        when(inventoryEventRepository.save(any(InventoryEvent.class))).thenReturn(new InventoryEvent());
 
         StockReservationResponse response = inventoryService.reserveStock(request);
 
         assertTrue(response.reserved());
         assertEquals(1L, response.productId());
-        verify(inventoryRepository).save(any(Inventory.class));
+        assertEquals(70, response.availableQuantity());
+        assertEquals(30, inventoryService.getInventoryByProductId(1L).reservedQuantity());
     }
 
     @Test
@@ -160,13 +282,207 @@ class InventoryServiceTest {
                 () -> inventoryService.reserveStock(request));
     }
 
+    @Test
+    void tryReserveStock_shouldReturnRejectionsInsteadOfThrowing() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.findByProductId(999L)).thenReturn(Optional.empty());
+
+        ReservationResult shortOfStock = inventoryService.tryReserveStock(new StockReservationRequest(1L, 200));
+        ReservationResult unknown = inventoryService.tryReserveStock(new StockReservationRequest(999L, 1));
+        ReservationResult keyed = inventoryService.tryReserveStock(
+                new StockReservationRequest(1L, 200, null, "order-7"));
+
+        assertEquals(ReservationResult.insufficientStock(1L, 90, 200), shortOfStock);
+        assertEquals(ReservationResult.notFound(999L), unknown);
+        assertEquals(ReservationResult.insufficientStock(1L, 90, 200), keyed);
+        assertTrue(inventoryService.tryReserveStock(new StockReservationRequest(1L, 5, null, "order-7")).isReserved());
+    }
+
+    @Test
+    void reserveStockBatch_shouldReserveAllLinesWithOneLookup() {
+        Inventory inventory2 = new Inventory(2L, 50, 0, 10);
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new StockReservationRequest(1L, 20),
+                new StockReservationRequest(2L, 5)));
+
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(inventory, inventory2));
+
+        List<StockReservationResponse> responses = inventoryService.reserveStockBatch(request);
+
+        assertEquals(2, responses.size());
+        assertEquals(70, responses.get(0).availableQuantity());
+        assertEquals(45, responses.get(1).availableQuantity());
+        verify(inventoryRepository, never()).findByProductId(any());
+        verify(eventPublisher, times(2)).publish(any(InventoryEvent.class));
+    }
+
+    @Test
+    void reserveStockBatch_shouldRollBackEarlierLinesWithoutEventsWhenOneIsShort() {
+        Inventory inventory2 = new Inventory(2L, 3, 0, 10);
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new StockReservationRequest(1L, 20),
+                new StockReservationRequest(2L, 5)));
+
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(inventory, inventory2));
+
+        assertThrows(InsufficientStockException.class, () -> inventoryService.reserveStockBatch(request));
+
+        assertEquals(10, inventoryService.getInventoryByProductId(1L).reservedQuantity());
+        verify(eventPublisher, never()).publish(any(InventoryEvent.class));
+    }
+
+    @Test
+    void reserveStock_shouldSplitLocationManagedProductsSoConfirmingLeavesOtherHoldsAllocated() {
+        LocalDateTime now = LocalDateTime.now();
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        when(locationRepository.findStock(1L)).thenReturn(List.of(
+                new LocationStockRow(1L, "EWR1", 60, 0, now),
+                new LocationStockRow(1L, "ORD1", 40, 0, now)));
+
+        String first = inventoryService.reserveStock(new StockReservationRequest(1L, 50)).holdId();
+        inventoryService.reserveStock(new StockReservationRequest(1L, 30));
+        inventoryService.confirmHold(first);
+
+        List<LocationStockResponse> stock = locationLedger.getStock(1L);
+        assertEquals(List.of(10, 40), stock.stream().map(LocationStockResponse::quantity).toList());
+        assertEquals(List.of(0, 30), stock.stream().map(LocationStockResponse::allocatedQuantity).toList());
+        assertEquals(50, inventoryService.getInventoryByProductId(1L).quantity());
+    }
+
+    @Test
+    void reserveStockBatch_shouldReleaseEveryLineWhenTheLocationsAreShort() {
+        LocalDateTime now = LocalDateTime.now();
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(inventory));
+        when(locationRepository.findStock(1L)).thenReturn(List.of(
+                new LocationStockRow(1L, "EWR1", 60, 0, now),
+                new LocationStockRow(1L, "ORD1", 20, 0, now)));
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new StockReservationRequest(1L, 50),
+                new StockReservationRequest(1L, 40)));
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> inventoryService.reserveStockBatch(request));
+
+        assertEquals(30, ex.getAvailable());
+        assertEquals(10, inventoryService.getInventoryByProductId(1L).reservedQuantity());
+        assertEquals(0, locationLedger.getStock(1L).stream().mapToInt(LocationStockResponse::allocatedQuantity).sum());
+    }
+
+    @Test
+    void reserveStock_shouldCreateHold() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+
+        StockReservationResponse response = inventoryService.reserveStock(new StockReservationRequest(1L, 5, 60));
+
+        HoldResponse hold = inventoryService.getHold(response.holdId());
+        assertEquals(HoldStatus.ACTIVE, hold.status());
+        assertEquals(5, hold.quantity());
+        assertEquals(response.expiresAt(), hold.expiresAt());
+    }
+
+    @Test
+    void reserveStock_shouldReplayOriginalResponseForRepeatedKey() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        StockReservationRequest request = new StockReservationRequest(1L, 5, null, "order-42");
+
+        StockReservationResponse first = inventoryService.reserveStock(request);
+        StockReservationResponse retry = inventoryService.reserveStock(request);
+
+        assertSame(first, retry);
+        assertEquals(85, inventoryService.getInventoryByProductId(1L).availableQuantity());
+        verify(eventPublisher, times(1)).publish(any(InventoryEvent.class));
+    }
+
+    @Test
+    void reserveStock_shouldRejectKeyReusedForDifferentReservation() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 5, null, "order-42"));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> inventoryService.reserveStock(new StockReservationRequest(1L, 6, null, "order-42")));
+        assertEquals(85, inventoryService.getInventoryByProductId(1L).availableQuantity());
+    }
+
+    @Test
+    void reserveStock_shouldNotRememberFailedReservation() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+
+        assertThrows(InsufficientStockException.class,
+                () -> inventoryService.reserveStock(new StockReservationRequest(1L, 200, null, "order-42")));
+        StockReservationResponse response =
+                inventoryService.reserveStock(new StockReservationRequest(1L, 5, null, "order-42"));
+
+        assertTrue(response.reserved());
+        assertEquals(85, response.availableQuantity());
+    }
+
+    @Test
+    void confirmHold_shouldRemoveHeldUnitsFromStock() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        String holdId = inventoryService.reserveStock(new StockReservationRequest(1L, 5)).holdId();
+
+        HoldResponse hold = inventoryService.confirmHold(holdId);
+
+        InventoryResponse response = inventoryService.getInventoryByProductId(1L);
+        assertEquals(HoldStatus.CONFIRMED, hold.status());
+        assertEquals(95, response.quantity());
+        assertEquals(10, response.reservedQuantity());
+        assertThrows(HoldNotActiveException.class, () -> inventoryService.releaseHold(holdId));
+    }
+
+    @Test
+    void releaseHold_shouldReturnHeldUnits() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        String holdId = inventoryService.reserveStock(new StockReservationRequest(1L, 5)).holdId();
+
+        HoldResponse hold = inventoryService.releaseHold(holdId);
+
+        assertEquals(HoldStatus.RELEASED, hold.status());
+        assertEquals(10, inventoryService.getInventoryByProductId(1L).reservedQuantity());
+    }
+
+    @Test
+    void releaseStock_shouldDrawDownHoldsBeforeUntrackedReservations() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        String holdId = inventoryService.reserveStock(new StockReservationRequest(1L, 5)).holdId();
+
+        StockReservationResponse response = inventoryService.releaseStock(new StockReservationRequest(1L, 8));
+
+        assertEquals(93, response.availableQuantity());
+        assertEquals(HoldStatus.RELEASED, inventoryService.getHold(holdId).status());
+    }
+
+    @Test
+    void releaseStock_shouldDrawDownOldestHoldsFirst() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        List<String> holdIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            holdIds.add(inventoryService.reserveStock(new StockReservationRequest(1L, 4)).holdId());
+        }
+
+        inventoryService.releaseStock(new StockReservationRequest(1L, 10));
+        assertEquals(2, inventoryService.getHold(holdIds.get(2)).quantity());
+        assertEquals(4, inventoryService.getHold(holdIds.get(3)).quantity());
+        StockReservationResponse response = inventoryService.releaseStock(new StockReservationRequest(1L, 30));
+
+        for (String holdId : holdIds) {
+            assertEquals(HoldStatus.RELEASED, inventoryService.getHold(holdId).status());
+        }
+        assertEquals(100, response.availableQuantity());
+    }
+
+    @Test
+    void getHold_shouldThrowWhenUnknown() {
+        when(stockHoldRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(HoldNotFoundException.class, () -> inventoryService.getHold("missing"));
+    }
+
     @Test
     void releaseStock_shouldReleaseSuccessfully() {
         StockReservationRequest request = new StockReservationRequest(1L, 5);
 
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(inventory);
-        when(inventoryEventRepository.save(any(InventoryEvent.class))).thenReturn(new InventoryEvent());
 
         StockReservationResponse response = inventoryService.releaseStock(request);
 
@@ -187,15 +503,107 @@ class InventoryServiceTest {
     @Test
     void checkLowStock_shouldReturnLowStockItems() {
         Inventory lowStock = new Inventory(3L, 5, 0, 10);
-        lowStock.setId(3L);
-        lowStock.setLastUpdated(LocalDateTime.now());
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.findByProductId(3L)).thenReturn(Optional.of(lowStock));
+        inventoryService.getInventoryByProductId(1L);
+        inventoryService.getInventoryByProductId(3L);
+
+        InventoryPage page = inventoryService.checkLowStock(null, 100);
+
+        assertEquals(1, page.items().size());
+        assertEquals(3L, page.items().get(0).productId());
+        verify(inventoryRepository, never()).findAll();
+    }
+
+    @Test
+    void checkLowStock_shouldDropItemsOnceReplenished() {
+        Inventory lowStock = new Inventory(3L, 5, 0, 10);
+        when(inventoryRepository.findByProductId(3L)).thenReturn(Optional.of(lowStock));
+        inventoryService.getInventoryByProductId(3L);
+
+        inventoryService.addOrUpdateInventory(new InventoryRequest(3L, 500, 10));
+
+        assertTrue(inventoryService.checkLowStock(null, 100).items().isEmpty());
+    }
+
+    @Test
+    void reserveStock_shouldAlertOnlyWhenCrossingReorderLevel() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
 
-        when(inventoryRepository.findAll()).thenReturn(Arrays.asList(inventory, lowStock));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 70));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 10));
+        inventoryService.reserveStock(new StockReservationRequest(1L, 5));
 
-        List<InventoryResponse> responses = inventoryService.checkLowStock();
+        ArgumentCaptor<InventoryEvent> events = ArgumentCaptor.forClass(InventoryEvent.class);
+        verify(eventPublisher, times(4)).publish(events.capture());
+        assertEquals(1, events.getAllValues().stream()
+                .filter(event -> event.getEventType() == InventoryEventType.LOW_STOCK_ALERT)
+                .count());
+        assertEquals(1, inventoryService.checkLowStock(null, 100).items().size());
+    }
 
-        assertEquals(1, responses.size());
-        assertEquals(3L, responses.get(0).productId());
+    @Test
+    void subscribeLowStock_shouldDropASubscriberThatFallsBehind() throws InterruptedException {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch overflowed = new CountDownLatch(1);
+        List<LowStockAlert> received = new CopyOnWriteArrayList<>();
+        inventoryService.subscribeLowStock(alert -> {
+            received.add(alert);
+            try {
+                stuck.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, overflowed::countDown);
+
+        for (int i = 0; i < 4; i++) {
+            inventoryService.reserveStock(new StockReservationRequest(1L, 85));
+            inventoryService.releaseStock(new StockReservationRequest(1L, 85));
+        }
+
+        assertTrue(overflowed.await(5, TimeUnit.SECONDS));
+        stuck.countDown();
+        assertEquals(90, inventoryService.getInventoryByProductId(1L).availableQuantity());
+        assertTrue(received.size() <= 1);
+    }
+
+    @Test
+    void subscribeLowStock_shouldDeliverConcurrentCrossingsInOrder() throws Exception {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        List<LowStockAlert> received = new CopyOnWriteArrayList<>();
+        inventoryService.subscribeLowStock(received::add, () -> { });
+
+        // two concurrent holds of 41 leave 8 of 90 available, below the reorder level of 10
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ReservationResult result = inventoryService.tryReserveStock(new StockReservationRequest(1L, 41));
+                    if (result.isReserved()) {
+                        inventoryService.releaseHold(result.orElseThrow().holdId());
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((received.isEmpty() || received.get(received.size() - 1).lowStock())
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(inventoryService.checkLowStock(null, 100).items().isEmpty());
+        assertTrue(received.size() >= 2);
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i % 2 == 0, received.get(i).lowStock());
+            if (i > 0) {
+                assertTrue(received.get(i).sequence() >= received.get(i - 1).sequence());
+            }
+        }
     }
 
     @Test
@@ -203,11 +611,9 @@ class InventoryServiceTest {
         StockReservationRequest request = new StockReservationRequest(1L, 5);
 
         when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(inventory);
-        when(inventoryEventRepository.save(any(InventoryEvent.class))).thenReturn(new InventoryEvent());
 
         inventoryService.reserveStock(request);
 
-        verify(inventoryEventRepository, times(1)).save(any(InventoryEvent.class));
+        verify(eventPublisher, times(1)).publish(any(InventoryEvent.class));
     }
 }
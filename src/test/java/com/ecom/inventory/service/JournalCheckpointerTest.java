@@ -0,0 +1,66 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JournalCheckpointerTest {
+
+    @Mock
+    private StockJournal stockJournal;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    @Mock
+    private StockLedgerFlusher stockLedgerFlusher;
+
+    private JournalCheckpointer checkpointer;
+
+    @BeforeEach
+    void setUp() {
+        checkpointer = new JournalCheckpointer(stockJournal, eventPublisher, stockLedgerFlusher);
+        when(stockJournal.isEnabled()).thenReturn(true);
+        when(stockJournal.position()).thenReturn(42L);
+        when(eventPublisher.flush(any(Duration.class))).thenReturn(true);
+    }
+
+    @Test
+    void checkpoint_shouldTrimOnceBothWriteBehindPathsHaveCaughtUp() {
+        when(stockLedgerFlusher.flushPending()).thenReturn(true);
+
+        checkpointer.checkpoint();
+
+        verify(stockJournal).truncateBefore(42L);
+    }
+
+    @Test
+    void checkpoint_shouldKeepTheJournalWhenTheStockWriteBackFails() {
+        when(stockLedgerFlusher.flushPending()).thenReturn(false);
+
+        checkpointer.checkpoint();
+
+        verify(stockJournal, never()).truncateBefore(anyLong());
+    }
+
+    @Test
+    void checkpoint_shouldKeepTheJournalOnceAnEventWasDeadLettered() {
+        when(eventPublisher.deadLettered()).thenReturn(1L);
+
+        checkpointer.checkpoint();
+
+        verify(stockLedgerFlusher, never()).flushPending();
+        verify(stockJournal, never()).truncateBefore(anyLong());
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayFoldTest {
+
+    @Test
+    void apply_shouldSkipDuplicateEvents() {
+        ReplayFold fold = ReplayFold.empty(1L, false);
+
+        assertTrue(fold.apply(1, 100, 0, 10));
+        assertFalse(fold.apply(1, 100, 0, 10));
+        assertTrue(fold.apply(2, 0, 5, null));
+
+        assertEquals(100, fold.getQuantity());
+        assertEquals(5, fold.getReservedQuantity());
+        assertEquals(10, fold.getReorderLevel());
+        assertEquals(2, fold.getEventsApplied());
+        assertEquals(0, fold.getGaps());
+    }
+
+    @Test
+    void apply_shouldCountGapsAndKeepFolding() {
+        ReplayFold fold = ReplayFold.fromSnapshot(1L, 4, 50, 5, 10, false);
+
+        fold.apply(5, 0, 1, null);
+        fold.apply(7, 0, 2, null);
+
+        assertEquals(7L, fold.getSequence());
+        assertEquals(8, fold.getReservedQuantity());
+        assertEquals(1, fold.getGaps());
+        assertFalse(fold.isStopped());
+    }
+
+    @Test
+    void apply_shouldStopAtFirstGapWhenSnapshotting() {
+        ReplayFold fold = ReplayFold.fromSnapshot(1L, 4, 50, 5, 10, true);
+
+        fold.apply(5, 0, 1, null);
+        assertFalse(fold.apply(7, 0, 2, null));
+        assertFalse(fold.apply(8, 0, 2, null));
+
+        assertEquals(5L, fold.getSequence());
+        assertEquals(6, fold.getReservedQuantity());
+        assertEquals(4L, fold.getBaseSequence());
+        assertTrue(fold.isStopped());
+    }
+}
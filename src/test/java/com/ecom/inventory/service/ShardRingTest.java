@@ -0,0 +1,54 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRingTest {
+
+    private static final URI A = URI.create("http://localhost:8082");
+    private static final URI B = URI.create("http://localhost:8083");
+    private static final URI C = URI.create("http://localhost:8084");
+    private static final URI D = URI.create("http://localhost:8085");
+
+    @Test
+    void owner_shouldSpreadProductsEvenlyAndAgreeAcrossInstances() {
+        ShardRing ring = ShardRing.of(new TreeSet<>(List.of(A, B, C)), 128);
+        ShardRing sameMembers = ShardRing.of(new TreeSet<>(List.of(C, A, B)), 128);
+        Map<URI, Integer> owned = new HashMap<>();
+
+        for (long productId = 1; productId <= 30_000; productId++) {
+            URI owner = ring.owner(productId);
+            assertEquals(owner, sameMembers.owner(productId));
+            owned.merge(owner, 1, Integer::sum);
+        }
+
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 8_000 && count < 12_000, "owned " + count));
+    }
+
+    @Test
+    void owner_shouldOnlyMoveProductsToAJoiningMember() {
+        ShardRing before = ShardRing.of(new TreeSet<>(List.of(A, B, C)), 128);
+        ShardRing after = ShardRing.of(new TreeSet<>(List.of(A, B, C, D)), 128);
+        int moved = 0;
+
+        for (long productId = 1; productId <= 40_000; productId++) {
+            URI previous = before.owner(productId);
+            URI next = after.owner(productId);
+            if (!previous.equals(next)) {
+                assertEquals(D, next);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > 8_000 && moved < 12_000, "moved " + moved);
+    }
+}
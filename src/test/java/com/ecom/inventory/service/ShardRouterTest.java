@@ -0,0 +1,73 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardRouterTest {
+
+    private static final URI SELF = URI.create("http://localhost:8082");
+    private static final URI PEER = URI.create("http://localhost:8083");
+
+    @Mock
+    private DiscoveryClient discoveryClient;
+
+    @Mock
+    private ObjectProvider<Registration> registration;
+
+    @Mock
+    private ShardHandoff shardHandoff;
+
+    @Test
+    void refresh_shouldHandOffTheProductsAJoiningPeerTakesOver() {
+        when(discoveryClient.getInstances("inventory-service")).thenReturn(List.of(instance(SELF)));
+        ShardRouter router = new ShardRouter(discoveryClient, registration, shardHandoff, true,
+                "inventory-service", SELF.toString(), 8082, 64);
+        router.start();
+        verify(shardHandoff, never()).rebalance(any(), any());
+        assertTrue(router.owns(42L));
+
+        when(discoveryClient.getInstances("inventory-service")).thenReturn(List.of(instance(SELF), instance(PEER)));
+        router.refresh();
+        router.refresh();
+
+        ArgumentCaptor<LongPredicate> lost = ArgumentCaptor.forClass(LongPredicate.class);
+        ArgumentCaptor<LongPredicate> acquired = ArgumentCaptor.forClass(LongPredicate.class);
+        verify(shardHandoff, times(1)).rebalance(lost.capture(), acquired.capture());
+        assertEquals(List.of(SELF, PEER), router.members());
+        int moved = 0;
+        for (long productId = 1; productId <= 1_000; productId++) {
+            assertEquals(!router.owns(productId), lost.getValue().test(productId));
+            assertFalse(acquired.getValue().test(productId));
+            if (!router.owns(productId)) {
+                assertEquals(PEER, router.owner(productId));
+                moved++;
+            }
+        }
+        assertTrue(moved > 300 && moved < 700, "moved " + moved);
+    }
+
+    private static DefaultServiceInstance instance(URI uri) {
+        return new DefaultServiceInstance(uri.toString(), "inventory-service", uri.getHost(), uri.getPort(), false);
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.dto.IngestError;
+import com.ecom.inventory.dto.IngestReport;
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockRow;
+import com.ecom.inventory.repository.InventoryEventRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockIngestorTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryEventRepository inventoryEventRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(inventoryRepository, inventoryEventRepository, inventoryBatchRepository,
+                eventPublisher, List.of(), 16);
+    }
+
+    @Test
+    void ingest_shouldUpdateKnownProductsCreateNewOnesAndReportBadLines() throws Exception {
+        Inventory existing = new Inventory(1L, 10, 2, 5);
+        existing.setId(11L);
+        Inventory inserted = new Inventory(2L, 3, 0, 4);
+        inserted.setId(12L);
+        when(inventoryRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(existing));
+        when(inventoryBatchRepository.findStock(List.of(2L))).thenReturn(List.of(inserted));
+
+        IngestReport report = ingestor(2).ingest(new StringReader("""
+                productId,quantity,reorderLevel
+                1,10,5
+                1,25,
+                2,3,4
+                x,5
+                3,-1
+                """), StockIngestor.Format.CSV);
+
+        assertEquals(5, report.linesRead());
+        assertEquals(1, report.created());
+        assertEquals(1, report.updated());
+        assertEquals(1, report.unchanged());
+        assertEquals(2, report.rejected());
+        assertEquals(List.of(new IngestError(5, "Not a number: 'x'"),
+                new IngestError(6, "Quantity must be non-negative")), report.errors());
+
+        assertEquals(25, stockLedger.peek(1L).getQuantity());
+        assertEquals(2, stockLedger.peek(1L).getReservedQuantity());
+        assertEquals(3, stockLedger.peek(2L).getQuantity());
+
+        ArgumentCaptor<List<StockRow>> rows = ArgumentCaptor.captor();
+        verify(inventoryBatchRepository).insertMissingStock(rows.capture());
+        assertEquals(List.of(2L), rows.getValue().stream().map(StockRow::productId).toList());
+
+        ArgumentCaptor<InventoryEvent> events = ArgumentCaptor.forClass(InventoryEvent.class);
+        verify(eventPublisher, atLeastOnce()).publish(events.capture());
+        assertEquals(List.of(InventoryEventType.STOCK_UPDATED, InventoryEventType.STOCK_UPDATED,
+                        InventoryEventType.LOW_STOCK_ALERT),
+                events.getAllValues().stream().map(InventoryEvent::getEventType).toList());
+    }
+
+    @Test
+    void ingest_shouldCapReportedErrorsButCountEveryRejectedLine() throws Exception {
+        IngestReport report = ingestor(100).ingest(new StringReader("""
+                {"productId":1,"quantity":-1}
+                {"productId":
+                {"quantity":4}
+                """), StockIngestor.Format.NDJSON);
+
+        assertEquals(3, report.linesRead());
+        assertEquals(3, report.rejected());
+        assertEquals(2, report.errors().size());
+        assertEquals(1, report.errors().get(0).line());
+        assertEquals(2, report.errors().get(1).line());
+        verify(inventoryBatchRepository, never()).insertMissingStock(any());
+    }
+
+    private StockIngestor ingestor(int batchSize) {
+        return new StockIngestor(stockLedger, inventoryBatchRepository, eventPublisher, shardRouter, changeFeed,
+                new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), new SimpleMeterRegistry(), batchSize, 2);
+    }
+}
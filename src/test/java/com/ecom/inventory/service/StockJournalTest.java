@@ -0,0 +1,128 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.config.WorkerThreads;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.model.InventoryEventType;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryReplayer inventoryReplayer;
+
+    @Test
+    void open_shouldRecoverAppendedRecordsAcrossSegments() throws IOException {
+        StockJournal journal = newJournal();
+        journal.open();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789);
+        journal.append(new InventoryEvent(1L, InventoryEventType.STOCK_UPDATED, 40, 1L, 40, 0, 5, timestamp));
+        journal.append(new InventoryEvent(1L, InventoryEventType.STOCK_RESERVED, 3, 2L, 0, 3, null, timestamp));
+        journal.append(new InventoryEvent(2L, InventoryEventType.STOCK_CONFIRMED, 2, 7L, -2, -2, null, timestamp));
+        journal.close();
+        assertEquals(2, segmentCount());
+
+        List<InventoryEvent> recovered = reopen();
+
+        assertEquals(3, recovered.size());
+        InventoryEvent first = recovered.get(0);
+        assertEquals(InventoryEventType.STOCK_UPDATED, first.getEventType());
+        assertEquals(5, first.getReorderLevel());
+        assertEquals(timestamp, first.getTimestamp());
+        assertNull(recovered.get(1).getReorderLevel());
+        assertEquals(7L, recovered.get(2).getSequence());
+        assertEquals(-2, recovered.get(2).getQuantityDelta());
+        assertEquals(0, segmentCount());
+    }
+
+    @Test
+    void open_shouldStopAtTornRecord() throws IOException {
+        StockJournal journal = newJournal();
+        journal.open();
+        LocalDateTime timestamp = LocalDateTime.now();
+        journal.append(new InventoryEvent(1L, InventoryEventType.STOCK_RESERVED, 1, 1L, 0, 1, null, timestamp));
+        journal.append(new InventoryEvent(1L, InventoryEventType.STOCK_RESERVED, 1, 2L, 0, 1, null, timestamp));
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), StockJournal.RECORD_SIZE + 9);
+        }
+
+        List<InventoryEvent> recovered = reopen();
+
+        assertEquals(1, recovered.size());
+        assertEquals(1L, recovered.get(0).getSequence());
+    }
+
+    @Test
+    void append_shouldIgnoreUnsequencedEvents() throws IOException {
+        StockJournal journal = newJournal();
+        journal.open();
+        journal.append(new InventoryEvent(1L, InventoryEventType.LOW_STOCK_ALERT, 3, LocalDateTime.now()));
+        journal.close();
+
+        assertEquals(0, journal.position());
+        assertEquals(0, segmentCount());
+        verify(inventoryBatchRepository, never()).mergeEvents(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<InventoryEvent> reopen() throws IOException {
+        when(inventoryReplayer.fold(anyLong(), anyLong(), anyBoolean()))
+                .thenReturn(new InventoryReplayer.ReplaySlice(0, 0, List.of()));
+        StockJournal journal = newJournal();
+        journal.open();
+        journal.close();
+        ArgumentCaptor<List<InventoryEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(inventoryBatchRepository).mergeEvents(events.capture());
+        return events.getValue();
+    }
+
+    private StockJournal newJournal() {
+        // two records per segment, so three records span two files
+        return new StockJournal(inventoryBatchRepository, inventoryReplayer, new WorkerThreads(false),
+                new SimpleMeterRegistry(), true, directory, DataSize.ofBytes(2 * StockJournal.RECORD_SIZE), 0);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockRow;
+import com.ecom.inventory.repository.InventoryBatchRepository.StockUpdate;
+import com.ecom.inventory.repository.InventoryEventRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerFlusherTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryEventRepository inventoryEventRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private StockLedger stockLedger;
+    private StockLedgerFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(inventoryRepository, inventoryEventRepository, inventoryBatchRepository,
+                eventPublisher, List.of(), 16);
+        flusher = new StockLedgerFlusher(stockLedger, inventoryBatchRepository, changeFeed, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void flush_shouldMergeARowAnotherInstanceWroteInsteadOfOverwritingIt() {
+        Inventory loaded = new Inventory(1L, 10, 0, 5);
+        loaded.setVersion(7L);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(loaded));
+        StockCounter counter = stockLedger.counter(1L);
+        stockLedger.reserve(counter, 3);
+        Inventory written = new Inventory(1L, 10, 2, 5);
+        written.setVersion(9L);
+        when(inventoryBatchRepository.updateStockIfUnchanged(any(), any()))
+                .thenReturn(new StockUpdate(20L, new int[]{0}))
+                .thenReturn(new StockUpdate(21L, new int[]{1}));
+        when(inventoryBatchRepository.findStock(List.of(1L))).thenReturn(List.of(written));
+
+        assertTrue(flusher.flushPending());
+        assertEquals(5, counter.getReservedQuantity());
+        assertTrue(flusher.flushPending());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockRow>> rows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<long[]> versions = ArgumentCaptor.forClass(long[].class);
+        verify(inventoryBatchRepository, times(2))
+                .updateStockIfUnchanged(rows.capture(), versions.capture());
+        assertArrayEquals(new long[]{7L}, versions.getAllValues().get(0));
+        assertArrayEquals(new long[]{9L}, versions.getAllValues().get(1));
+        assertEquals(5, rows.getAllValues().get(1).get(0).reservedQuantity());
+        assertEquals(21L, counter.flushedVersion());
+        assertTrue(stockLedger.drainDirty().isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+package com.ecom.inventory.service;
+
+import com.ecom.inventory.model.Inventory;
+import com.ecom.inventory.model.InventoryEvent;
+import com.ecom.inventory.repository.InventoryBatchRepository;
+import com.ecom.inventory.repository.InventoryEventRepository;
+import com.ecom.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryEventRepository inventoryEventRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private InventoryEventPublisher eventPublisher;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(inventoryRepository, inventoryEventRepository, inventoryBatchRepository,
+                eventPublisher, List.of(), 16);
+    }
+
+    @Test
+    void reserve_shouldRejectWithoutChangingState() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, 10, 8, 5)));
+        StockCounter counter = stockLedger.counter(1L);
+
+        assertEquals(StockLedger.REJECTED, stockLedger.reserve(counter, 3));
+        assertEquals(8, counter.getReservedQuantity());
+        assertTrue(stockLedger.drainDirty().isEmpty());
+    }
+
+    @Test
+    void reserve_shouldNeverOversellUnderContention() throws InterruptedException {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, 1000, 0, 10)));
+        StockCounter counter = stockLedger.counter(1L);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (stockLedger.reserve(counter, 1) != StockLedger.REJECTED) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, granted.get());
+        assertEquals(1000, counter.getReservedQuantity());
+        assertEquals(0, counter.getAvailableQuantity());
+    }
+
+    @Test
+    void update_shouldRefuseQuantityBelowReserved() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, 10, 6, 5)));
+        StockCounter counter = stockLedger.counter(1L);
+
+        assertFalse(stockLedger.update(counter, 5, 2));
+        assertFalse(stockLedger.adjust(counter, -5));
+        assertEquals(10, counter.getQuantity());
+        assertEquals(5, counter.getReorderLevel());
+        assertTrue(stockLedger.update(counter, 6, null));
+        assertEquals(0, counter.getAvailableQuantity());
+        verify(eventPublisher, times(1)).publish(any());
+    }
+
+    @Test
+    void drainDirty_shouldReturnEachChangedCounterOnce() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, 10, 0, 5)));
+        StockCounter counter = stockLedger.counter(1L);
+
+        stockLedger.reserve(counter, 2);
+        stockLedger.release(counter, 1);
+
+        List<StockCounter> dirty = stockLedger.drainDirty();
+        assertEquals(1, dirty.size());
+        assertEquals(1, dirty.get(0).getReservedQuantity());
+        assertTrue(stockLedger.drainDirty().isEmpty());
+    }
+
+    @Test
+    void events_shouldReplayOverSnapshotToCounterState() {
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(new Inventory(1L, 10, 0, 5)));
+        when(inventoryEventRepository.findLastSequences(any())).thenReturn(List.<Object[]>of(new Object[]{1L, 7L}));
+        StockCounter counter = stockLedger.counter(1L);
+
+        stockLedger.reserve(counter, 3);
+        stockLedger.commit(counter, 2);
+        stockLedger.update(counter, 20, 4);
+        stockLedger.release(counter, 5);
+
+        ArgumentCaptor<InventoryEvent> events = ArgumentCaptor.forClass(InventoryEvent.class);
+        verify(eventPublisher, times(4)).publish(events.capture());
+        ReplayFold fold = ReplayFold.fromSnapshot(1L, 7L, 10, 0, 5, true);
+        for (InventoryEvent event : events.getAllValues()) {
+            assertTrue(fold.apply(event.getSequence(), event.getQuantityDelta(), event.getReservedDelta(),
+                    event.getReorderLevel()));
+        }
+        assertEquals(11L, fold.getSequence());
+        assertEquals(counter.getQuantity(), fold.getQuantity());
+        assertEquals(counter.getReservedQuantity(), fold.getReservedQuantity());
+        assertEquals(counter.getReorderLevel(), fold.getReorderLevel());
+    }
+
+    @Test
+    void preload_shouldTakeReplayedStockOverTheFlushedRow() throws SQLException {
+        ResultSet replayedRow = stockRow(11L, 1L, 10, 0, 5, 3L);
+        ResultSet plainRow = stockRow(12L, 2L, 30, 1, 5, 0L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(0);
+            handler.processRow(replayedRow);
+            handler.processRow(plainRow);
+            return null;
+        }).when(inventoryBatchRepository).loadStock(any());
+        ReplayFold fold = ReplayFold.fromSnapshot(1L, 3L, 10, 0, 5, false);
+        fold.apply(4L, 0, 2, null);
+
+        assertEquals(1, stockLedger.preload(Map.of(1L, fold)));
+
+        StockCounter replayed = stockLedger.peek(1L);
+        assertEquals(2, replayed.getReservedQuantity());
+        assertEquals(4L, replayed.getSequence());
+        assertEquals(1, stockLedger.peek(2L).getReservedQuantity());
+        assertEquals(List.of(replayed), stockLedger.drainDirty());
+    }
+
+    private static ResultSet stockRow(long id, long productId, int quantity, int reservedQuantity, int reorderLevel,
+                                      long sequence) throws SQLException {
+        ResultSet rs = mock(ResultSet.class, withSettings().strictness(Strictness.LENIENT));
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getLong(2)).thenReturn(productId);
+        when(rs.getInt(3)).thenReturn(quantity);
+        when(rs.getInt(4)).thenReturn(reservedQuantity);
+        when(rs.getInt(5)).thenReturn(reorderLevel);
+        when(rs.getLong(7)).thenReturn(sequence);
+        return rs;
+    }
+}
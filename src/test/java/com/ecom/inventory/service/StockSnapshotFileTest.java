@@ -0,0 +1,89 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StockSnapshotFileTest {
+
+    private static final String EPOCH = UUID.randomUUID().toString();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_shouldReturnEveryCounterWrittenAtTheSnapshotVersion() throws IOException {
+        StockTable table = new StockTable(16);
+        int products = StockTable.PAGE_SIZE + 5;
+        for (int i = 0; i < products; i++) {
+            table.putIfAbsent(i + 1, i * 3L, i, i / 2, 10, 1_700_000_000_000L + i, i * 11L);
+            table.get(i * 3L).flushed(StockCounter.pack(i + 1, 0), i * 5L);
+        }
+        table.putIfAbsent(StockCounter.NO_ID, 999_999L, 7, 0, 0, StockCounter.NO_TIMESTAMP, 0L);
+        List<StockCounter> counters = new ArrayList<>();
+        table.forEach(counters::add);
+        Path path = directory.resolve("stock.snapshot");
+
+        StockSnapshotFile.publish(StockSnapshotFile.prepare(path, EPOCH, 42L, counters), path);
+        StockSnapshotFile.Snapshot snapshot = StockSnapshotFile.read(path);
+
+        assertEquals(EPOCH, snapshot.epoch());
+        assertEquals(42L, snapshot.version());
+        assertEquals(products + 1, snapshot.size());
+        StockTable restored = new StockTable(16);
+        snapshot.forEach((id, productId, quantity, reservedQuantity, reorderLevel, lastUpdatedMillis, sequence,
+                          flushedState, flushedVersion) -> {
+            restored.putIfAbsent(id, productId, quantity, reservedQuantity, reorderLevel, lastUpdatedMillis, sequence);
+            restored.get(productId).flushed(flushedState, flushedVersion);
+        });
+        assertEquals(products + 1, restored.size());
+        for (StockCounter original : counters) {
+            StockCounter copy = restored.get(original.getProductId());
+            assertEquals(original.getId(), copy.getId());
+            assertEquals(original.state(), copy.state());
+            assertEquals(original.getReorderLevel(), copy.getReorderLevel());
+            assertEquals(original.getLastUpdated(), copy.getLastUpdated());
+            assertEquals(original.getSequence(), copy.getSequence());
+            assertEquals(original.flushedState(), copy.flushedState());
+            assertEquals(original.flushedVersion(), copy.flushedVersion());
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void read_shouldRejectADamagedFile() throws IOException {
+        StockTable table = new StockTable(16);
+        table.putIfAbsent(1L, 1L, 50, 0, 10, 0L, 1L);
+        List<StockCounter> counters = new ArrayList<>();
+        table.forEach(counters::add);
+        Path path = directory.resolve("stock.snapshot");
+        StockSnapshotFile.publish(StockSnapshotFile.prepare(path, EPOCH, 1L, counters), path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{9}), StockSnapshotFile.HEADER_SIZE + 17);
+        }
+        assertThrows(IOException.class, () -> StockSnapshotFile.read(path));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 1);
+        }
+        assertThrows(IOException.class, () -> StockSnapshotFile.read(path));
+
+        assertNull(StockSnapshotFile.read(directory.resolve("missing.snapshot")));
+    }
+}
@@ -0,0 +1,149 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockTableTest {
+
+    @Test
+    void putIfAbsent_shouldReturnExistingCounterForKnownProduct() {
+        StockTable table = new StockTable(16);
+
+        assertNull(table.putIfAbsent(1L, 100L, 50, 5, 10, 0L, 3L));
+        StockCounter counter = table.get(100L);
+        assertSame(counter, table.putIfAbsent(2L, 100L, 0, 0, 0, 0L, 0L));
+
+        assertEquals(1, table.size());
+        assertEquals(100L, counter.getProductId());
+        assertEquals(50, counter.getQuantity());
+        assertEquals(5, counter.getReservedQuantity());
+        assertEquals(10, counter.getReorderLevel());
+        assertEquals(3L, counter.getSequence());
+        assertNull(table.get(101L));
+    }
+
+    @Test
+    void putIfAbsent_shouldGrowAcrossPagesAndIndexResizes() {
+        StockTable table = new StockTable(16);
+        int products = StockTable.PAGE_SIZE * 3 + 17;
+
+        for (int i = 0; i < products; i++) {
+            table.putIfAbsent(i, i * 7L, i, 0, 0, 0L, 0L);
+        }
+
+        assertEquals(products, table.size());
+        for (int i = 0; i < products; i++) {
+            StockCounter counter = table.get(i * 7L);
+            assertNotNull(counter);
+            assertEquals(i, counter.getQuantity());
+        }
+    }
+
+    @Test
+    void remove_shouldHideTheProductAndLetItBeAddedAgain() {
+        StockTable table = new StockTable(16);
+        for (int i = 0; i < 100; i++) {
+            table.putIfAbsent(i, i, i, 0, 0, 0L, 0L);
+        }
+
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 100; i += 2) {
+                assertNotNull(table.remove(i));
+                assertNull(table.get(i));
+                assertNull(table.putIfAbsent(i, i, round, 0, 0, 0L, 0L));
+            }
+        }
+
+        assertNull(table.remove(1_000L));
+        assertEquals(100, table.size());
+        assertEquals(49, table.get(98L).getQuantity());
+        assertEquals(99, table.get(99L).getQuantity());
+        int[] visited = new int[1];
+        table.forEach(counter -> visited[0]++);
+        assertEquals(100, visited[0]);
+    }
+
+    @Test
+    void remove_shouldRetireTheRemovedCounter() {
+        StockTable table = new StockTable(16);
+        table.putIfAbsent(1L, 100L, 50, 0, 10, 0L, 3L);
+        StockCounter counter = table.get(100L);
+        counter.tryReserve(5);
+
+        assertSame(counter, table.remove(100L));
+
+        assertTrue(counter.isRetired());
+        assertEquals(StockCounter.REJECTED, counter.tryReserve(1));
+        assertEquals(StockCounter.REJECTED, counter.update(80, null));
+        assertEquals(0, StockCounter.reserved(counter.release(5)));
+        assertEquals(50, counter.getQuantity());
+        assertEquals(5, counter.getReservedQuantity());
+        assertEquals(10, counter.getReorderLevel());
+        assertEquals(3L, counter.getSequence());
+    }
+
+    @Test
+    void putIfAbsent_shouldReuseFreedSlotsWithoutReviving() {
+        StockTable table = new StockTable(16, 0L);
+        table.putIfAbsent(1L, 100L, 50, 5, 10, 0L, 0L);
+        StockCounter stale = table.get(100L);
+        table.remove(100L);
+
+        assertNull(table.putIfAbsent(2L, 200L, 7, 0, 1, 0L, 0L));
+        StockCounter reused = table.get(200L);
+
+        assertNotSame(stale, reused);
+        assertEquals(StockCounter.REJECTED, stale.tryReserve(1));
+        assertEquals(100L, stale.getProductId());
+        assertEquals(50, stale.getQuantity());
+        assertEquals(5, stale.getReservedQuantity());
+        assertEquals(7, reused.getQuantity());
+        assertEquals(0, reused.getReservedQuantity());
+        assertFalse(reused.isRetired());
+        assertTrue(reused.markDirty());
+    }
+
+    @Test
+    void get_shouldFindEveryInsertedProductWhileTheTableGrows() throws Exception {
+        StockTable table = new StockTable(16);
+        int products = StockTable.PAGE_SIZE * 4;
+        AtomicInteger inserted = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(3);
+        try {
+            Future<?>[] futures = new Future<?>[3];
+            for (int r = 0; r < futures.length; r++) {
+                futures[r] = readers.submit(() -> {
+                    while (inserted.get() < products) {
+                        int visible = inserted.get();
+                        for (int i = Math.max(0, visible - 64); i < visible; i++) {
+                            assertNotNull(table.get(i), "product " + i);
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < products; i++) {
+                table.putIfAbsent(i, i, 1, 0, 0, 0L, 0L);
+                inserted.incrementAndGet();
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(products, table.size());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecom.inventory.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_shouldReturnItemsOnceTheirDeadlinePasses() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 450);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+        assertTrue(wheel.advance(400).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(500));
+    }
+
+    @Test
+    void advance_shouldHoldDeadlinesBeyondOneRotation() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 4, 0);
+        wheel.schedule("far", 1_050);
+
+        assertTrue(wheel.advance(1_000).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(1_100));
+    }
+
+    @Test
+    void advance_shouldReturnOverdueItemsImmediately() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.advance(1_000);
+        wheel.schedule("late", 500);
+
+        assertEquals(List.of("late"), wheel.advance(1_000));
+    }
+}